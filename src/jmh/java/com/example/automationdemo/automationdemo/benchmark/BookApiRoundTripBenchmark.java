@@ -0,0 +1,64 @@
+package com.example.automationdemo.automationdemo.benchmark;
+
+import com.example.automationdemo.automationdemo.AutomationDemoApplication;
+import com.example.automationdemo.automationdemo.model.Book;
+import com.example.automationdemo.automationdemo.repository.BookRepository;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * GET /api/books/{id} through the whole MVC stack (dispatch, book cache, ETag, JSON) with MockMvc,
+ * against the application in its test profile on H2.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookApiRoundTripBenchmark {
+
+  private ConfigurableApplicationContext context;
+  private MockMvc mockMvc;
+  private String path;
+
+  @Setup
+  public void setUp() {
+    context =
+        new SpringApplicationBuilder(AutomationDemoApplication.class)
+            .web(WebApplicationType.SERVLET)
+            .profiles("test")
+            .properties(
+                "spring.main.banner-mode=off",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN")
+            .run();
+    BookRepository bookRepository = context.getBean(BookRepository.class);
+    Book book = BookFixtures.book(0L);
+    book.setId(null);
+    book.setVersion(null);
+    Long id = bookRepository.save(book).getId();
+    path = "/api/books/" + id;
+    mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public MvcResult getBookById() throws Exception {
+    return mockMvc.perform(MockMvcRequestBuilders.get(path)).andReturn();
+  }
+}
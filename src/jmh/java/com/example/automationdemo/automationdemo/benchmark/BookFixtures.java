@@ -0,0 +1,42 @@
+package com.example.automationdemo.automationdemo.benchmark;
+
+import com.example.automationdemo.automationdemo.model.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.time.Instant;
+import java.time.LocalDate;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/** Books and an ObjectMapper configured like the application's, shared by the benchmarks. */
+final class BookFixtures {
+
+  private BookFixtures() {}
+
+  // A fully populated book, as loaded from the database
+  static Book book(long id) {
+    Book book =
+        Book.builder()
+            .id(id)
+            .title("The Left Hand of Darkness " + id)
+            .author("Ursula K. Le Guin")
+            .genre("Science Fiction")
+            .publisher("Ace Books")
+            .isbn("978-0-441-47812-" + (id % 10))
+            .publicationDate(LocalDate.of(1969, 3, 1))
+            .description(
+                "A human envoy is sent to the planet Gethen, whose inhabitants can choose and"
+                    + " change their gender, to persuade its nations to join an interplanetary"
+                    + " collective.")
+            .build();
+    book.setVersion(3L);
+    book.setUpdatedAt(Instant.parse("2024-05-01T10:15:30Z"));
+    return book;
+  }
+
+  // Same settings as spring.jackson.* in application.properties
+  static ObjectMapper objectMapper() {
+    return Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+  }
+}
@@ -0,0 +1,120 @@
+package com.example.automationdemo.automationdemo.benchmark;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.web.BookProtobufHttpMessageConverter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+/**
+ * Encoding and decoding of one book and of a 10,000-book list in each response format, through the
+ * same message converters the application uses. The encode benchmarks also report the payload size
+ * of every combination as the {@code bytes} secondary result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookFormatBenchmark {
+
+  private static final Type BOOK_LIST =
+      new ParameterizedTypeReference<List<BookDTO>>() {}.getType();
+
+  @Param({"json", "cbor", "smile", "protobuf"})
+  public String format;
+
+  @Param({"1", "10000"})
+  public int books;
+
+  private GenericHttpMessageConverter<Object> converter;
+  private MediaType mediaType;
+  private Object payload;
+  private Type type;
+  private byte[] encoded;
+
+  // Size of the last payload encoded by this thread; set rather than added to, so it reads as bytes
+  // per payload instead of growing with the number of calls
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class PayloadSize {
+    public long bytes;
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    // Same settings as spring.jackson.* in application.properties
+    Jackson2ObjectMapperBuilder builder =
+        Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    switch (format) {
+      case "json" -> {
+        converter = new MappingJackson2HttpMessageConverter(builder.build());
+        mediaType = MediaType.APPLICATION_JSON;
+      }
+      case "cbor" -> {
+        converter =
+            new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+        mediaType = MediaType.APPLICATION_CBOR;
+      }
+      case "smile" -> {
+        converter =
+            new MappingJackson2SmileHttpMessageConverter(
+                builder.factory(new SmileFactory()).build());
+        mediaType = MediaType.valueOf("application/x-jackson-smile");
+      }
+      case "protobuf" -> {
+        converter = new BookProtobufHttpMessageConverter();
+        mediaType = BookProtobufHttpMessageConverter.PROTOBUF;
+      }
+      default -> throw new IllegalArgumentException("Unknown format " + format);
+    }
+
+    if (books == 1) {
+      payload = new BookDTO(BookFixtures.book(1L));
+      type = BookDTO.class;
+    } else {
+      payload =
+          LongStream.rangeClosed(1, books)
+              .mapToObj(id -> new BookDTO(BookFixtures.book(id)))
+              .collect(Collectors.toList());
+      type = BOOK_LIST;
+    }
+    encoded = write();
+  }
+
+  @Benchmark
+  public byte[] encode(PayloadSize size) throws IOException {
+    byte[] bytes = write();
+    size.bytes = bytes.length;
+    return bytes;
+  }
+
+  @Benchmark
+  public Object decode() throws IOException {
+    return converter.read(type, null, new MockHttpInputMessage(encoded));
+  }
+
+  private byte[] write() throws IOException {
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+    converter.write(payload, type, mediaType, output);
+    return output.getBodyAsBytes();
+  }
+}
@@ -0,0 +1,46 @@
+package com.example.automationdemo.automationdemo.benchmark;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.*;
+
+/** Jackson serialization of a single book and of a 10,000-book list response. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookJsonBenchmark {
+
+  private static final int LIST_SIZE = 10_000;
+
+  private ObjectMapper objectMapper;
+  private BookDTO book;
+  private List<BookDTO> books;
+
+  @Setup
+  public void setUp() {
+    objectMapper = BookFixtures.objectMapper();
+    book = new BookDTO(BookFixtures.book(1L));
+    books =
+        LongStream.rangeClosed(1, LIST_SIZE)
+            .mapToObj(id -> new BookDTO(BookFixtures.book(id)))
+            .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public byte[] serializeBook() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(book);
+  }
+
+  @Benchmark
+  public byte[] serializeTenThousandBooks() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(books);
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.automationdemo.automationdemo.benchmark;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.model.Book;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Entity to DTO mapping and back, done for every book the API reads or writes. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookMappingBenchmark {
+
+  private Book book;
+  private BookDTO bookDTO;
+
+  @Setup
+  public void setUp() {
+    book = BookFixtures.book(1L);
+    bookDTO = new BookDTO(book);
+  }
+
+  @Benchmark
+  public BookDTO toDto() {
+    return new BookDTO(book);
+  }
+
+  @Benchmark
+  public Book toEntity() {
+    return bookDTO.toEntity();
+  }
+}
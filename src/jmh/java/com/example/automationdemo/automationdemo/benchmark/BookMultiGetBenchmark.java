@@ -0,0 +1,89 @@
+package com.example.automationdemo.automationdemo.benchmark;
+
+import com.example.automationdemo.automationdemo.AutomationDemoApplication;
+import com.example.automationdemo.automationdemo.model.Book;
+import com.example.automationdemo.automationdemo.repository.BookRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * A storefront page of 50 books: 50 GET /api/books/{id} calls against one GET /api/books?ids=...,
+ * with the book cache on and off, through the whole MVC stack on H2 in the test profile.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookMultiGetBenchmark {
+
+  private static final int PAGE_SIZE = 50;
+
+  @Param({"true", "false"})
+  public boolean cacheEnabled;
+
+  private ConfigurableApplicationContext context;
+  private MockMvc mockMvc;
+  private List<String> singlePaths;
+  private String multiGetIds;
+
+  @Setup
+  public void setUp() {
+    context =
+        new SpringApplicationBuilder(AutomationDemoApplication.class)
+            .web(WebApplicationType.SERVLET)
+            .profiles("test")
+            .properties(
+                "books.cache.enabled=" + cacheEnabled,
+                "spring.main.banner-mode=off",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN")
+            .run();
+    BookRepository bookRepository = context.getBean(BookRepository.class);
+    List<Long> ids = new ArrayList<>();
+    for (long i = 0; i < PAGE_SIZE; i++) {
+      Book book = BookFixtures.book(i);
+      book.setId(null);
+      book.setVersion(null);
+      book.setIsbn("97800000" + String.format("%05d", i));
+      ids.add(bookRepository.save(book).getId());
+    }
+    singlePaths = ids.stream().map(id -> "/api/books/" + id).toList();
+    multiGetIds = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void singleGets(Blackhole blackhole) throws Exception {
+    for (String path : singlePaths) {
+      blackhole.consume(mockMvc.perform(MockMvcRequestBuilders.get(path)).andReturn());
+    }
+  }
+
+  @Benchmark
+  public MvcResult multiGet() throws Exception {
+    return mockMvc
+        .perform(MockMvcRequestBuilders.get("/api/books").param("ids", multiGetIds))
+        .andReturn();
+  }
+}
@@ -0,0 +1,37 @@
+package com.example.automationdemo.automationdemo.benchmark;
+
+import com.example.automationdemo.automationdemo.exception.BookNotFoundException;
+import com.example.automationdemo.automationdemo.exception.GlobalExceptionHandler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/** Building and serializing the 404 error body, including the cost of the exception itself. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorResponseBenchmark {
+
+  private GlobalExceptionHandler handler;
+  private ObjectMapper objectMapper;
+  private MockHttpServletRequest request;
+
+  @Setup
+  public void setUp() {
+    handler = new GlobalExceptionHandler();
+    objectMapper = BookFixtures.objectMapper();
+    request = new MockHttpServletRequest("GET", "/api/books/42");
+  }
+
+  @Benchmark
+  public byte[] notFoundBody() throws JsonProcessingException {
+    BookNotFoundException ex = new BookNotFoundException("Book not found with ID: 42");
+    return objectMapper.writeValueAsBytes(
+        handler.handleBookNotFoundException(ex, request).getBody());
+  }
+}
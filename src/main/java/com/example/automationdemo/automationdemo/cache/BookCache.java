@@ -0,0 +1,240 @@
+package com.example.automationdemo.automationdemo.cache;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.jdbc.ConsistencyToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded in-process cache of books, looked up by id or by ISBN. Entries are stored once, keyed by
+ * id, with a secondary ISBN to id index, so both keys always resolve to the same entry. Hit, miss
+ * and eviction statistics are published as the {@code cache.*} metrics with {@code cache=books}.
+ *
+ * <p>With read replicas, loads run under {@link ConsistencyToken#readLatest}, so a lagging replica
+ * can't put a row back that predates the write that evicted it; a replica that isn't known to have
+ * replayed it is skipped for the primary rather than queried or waited for. A request carrying a
+ * consistency token bypasses the cache: another instance's write never evicted this instance's
+ * entries.
+ */
+@Component
+public class BookCache {
+
+  private final boolean enabled;
+  private final Cache<Long, BookDTO> booksById;
+  private final Map<String, Long> idsByIsbn = new ConcurrentHashMap<>();
+
+  // Bumped by every eviction; a load that overlapped an eviction is not cached (see load())
+  private final AtomicLong evictions = new AtomicLong();
+
+  @Autowired
+  public BookCache(
+      @Value("${books.cache.enabled:true}") boolean enabled,
+      @Value("${books.cache.maximum-size:10000}") long maximumSize,
+      @Value("${books.cache.ttl:10m}") Duration ttl,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.booksById =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .evictionListener(
+                (Long id, BookDTO book, RemovalCause cause) -> removeIsbnIndex(id, book))
+            .build();
+    if (enabled) {
+      CaffeineCacheMetrics.monitor(meterRegistry, booksById, "books");
+    }
+  }
+
+  // Cached book with the given id, or the loader's result (which is then cached)
+  public BookDTO getById(Long id, Supplier<BookDTO> loader) {
+    if (!isUsable()) {
+      return loader.get();
+    }
+    BookDTO cached = booksById.getIfPresent(id);
+    return cached != null ? cached : load(loader);
+  }
+
+  // Cached book with the given ISBN, or the loader's result (which is then cached)
+  public BookDTO getByIsbn(String isbn, Supplier<BookDTO> loader) {
+    if (!isUsable()) {
+      return loader.get();
+    }
+    Long id = idsByIsbn.get(isbn);
+    BookDTO cached = id != null ? booksById.getIfPresent(id) : null;
+    // The index may briefly point at an entry whose ISBN has since changed
+    if (cached != null && isbn.equals(cached.getIsbn())) {
+      return cached;
+    }
+    return load(loader);
+  }
+
+  /**
+   * Books for the given ids, keyed by id. Cached entries are used as they are and the loader is
+   * called once with the ids that were not cached; what it returns is cached. Ids the loader
+   * doesn't return are missing from the result.
+   */
+  public Map<Long, BookDTO> getAllById(
+      Collection<Long> ids, Function<Set<Long>, Collection<BookDTO>> loader) {
+    Map<Long, BookDTO> books = new HashMap<>();
+    Set<Long> missing = new LinkedHashSet<>();
+    boolean usable = isUsable();
+    for (Long id : ids) {
+      BookDTO cached = usable ? booksById.getIfPresent(id) : null;
+      if (cached != null) {
+        books.put(id, cached);
+      } else {
+        missing.add(id);
+      }
+    }
+    if (!missing.isEmpty()) {
+      loadAll(() -> loader.apply(missing)).forEach(book -> books.put(book.getId(), book));
+    }
+    return books;
+  }
+
+  /**
+   * Books for the given ISBNs, keyed by ISBN, in the same way as {@link #getAllById}: the loader is
+   * called once with the ISBNs that were not cached.
+   */
+  public Map<String, BookDTO> getAllByIsbn(
+      Collection<String> isbns, Function<Set<String>, Collection<BookDTO>> loader) {
+    Map<String, BookDTO> books = new HashMap<>();
+    Set<String> missing = new LinkedHashSet<>();
+    boolean usable = isUsable();
+    for (String isbn : isbns) {
+      Long id = usable ? idsByIsbn.get(isbn) : null;
+      BookDTO cached = id != null ? booksById.getIfPresent(id) : null;
+      if (cached != null && isbn.equals(cached.getIsbn())) {
+        books.put(isbn, cached);
+      } else {
+        missing.add(isbn);
+      }
+    }
+    if (!missing.isEmpty()) {
+      loadAll(() -> loader.apply(missing)).forEach(book -> books.put(book.getIsbn(), book));
+    }
+    return books;
+  }
+
+  /**
+   * Evict the book with the given id and any of the given ISBNs (e.g. the old and new ISBN of an
+   * update). When called inside a transaction the eviction is repeated after completion, so a
+   * concurrent read can't re-cache the row as it was before the commit.
+   */
+  public void evict(Long id, String... isbns) {
+    if (!enabled) {
+      return;
+    }
+    evictNow(id, isbns);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              evictNow(id, isbns);
+            }
+          });
+    }
+  }
+
+  // Drop every entry, e.g. after a bulk change whose ids are unknown
+  public void evictAll() {
+    if (enabled) {
+      evictions.incrementAndGet();
+      booksById.invalidateAll();
+      idsByIsbn.clear();
+    }
+  }
+
+  private BookDTO load(Supplier<BookDTO> loader) {
+    long generation = evictions.get();
+    BookDTO book = ConsistencyToken.readLatest(loader);
+    booksById.put(book.getId(), book);
+    if (book.getIsbn() != null) {
+      idsByIsbn.put(book.getIsbn(), book.getId());
+    }
+    // An eviction that ran while we were reading may have been for this very row
+    if (evictions.get() != generation) {
+      evictNow(book.getId(), book.getIsbn());
+    }
+    return book;
+  }
+
+  // Like load(), for the result of one bulk read
+  private Collection<BookDTO> loadAll(Supplier<Collection<BookDTO>> loader) {
+    if (!isUsable()) {
+      return loader.get();
+    }
+    long generation = evictions.get();
+    Collection<BookDTO> books = ConsistencyToken.readLatest(loader);
+    for (BookDTO book : books) {
+      booksById.put(book.getId(), book);
+      if (book.getIsbn() != null) {
+        idsByIsbn.put(book.getIsbn(), book.getId());
+      }
+    }
+    if (evictions.get() != generation) {
+      books.forEach(book -> evictNow(book.getId(), book.getIsbn()));
+    }
+    return books;
+  }
+
+  private void evictNow(Long id, String... isbns) {
+    evictions.incrementAndGet();
+    if (id != null) {
+      removeIsbnIndex(id, booksById.asMap().remove(id));
+    }
+    for (String isbn : isbns) {
+      if (isbn != null) {
+        idsByIsbn.remove(isbn);
+      }
+    }
+  }
+
+  private void removeIsbnIndex(Long id, BookDTO book) {
+    if (book != null && book.getIsbn() != null) {
+      idsByIsbn.remove(book.getIsbn(), id);
+    }
+  }
+
+  // Number of cached books
+  public long size() {
+    booksById.cleanUp();
+    return booksById.estimatedSize();
+  }
+
+  // True if the ISBN currently resolves to a cached entry
+  boolean containsIsbn(String isbn) {
+    Long id = idsByIsbn.get(isbn);
+    return id != null && booksById.getIfPresent(id) != null;
+  }
+
+  // Whether this read may use the cache: it is switched on and the request carries no token
+  private boolean isUsable() {
+    return enabled && ConsistencyToken.required() == null;
+  }
+
+  // Whether the cache is switched on (books.cache.enabled)
+  public boolean isEnabled() {
+    return enabled;
+  }
+}
@@ -0,0 +1,109 @@
+package com.example.automationdemo.automationdemo.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory Bloom filter of the ISBNs in the catalog. A negative answer means the ISBN is certainly
+ * not taken, so bulk ingest can skip the duplicate lookup for it. ISBNs are only ever added, never
+ * removed, which only costs false positives. Until the filter has been loaded, and when it is
+ * disabled, every ISBN might be taken.
+ *
+ * <p>Only rows written by this instance are added after the initial load; the unique constraint on
+ * {@code isbn} still rejects anything the filter misses.
+ */
+@Component
+public class IsbnFilter {
+
+  private final boolean enabled;
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+  private volatile boolean loaded;
+
+  public IsbnFilter(
+      @Value("${books.isbn-filter.enabled:false}") boolean enabled,
+      @Value("${books.isbn-filter.expected-isbns:1000000}") long expectedIsbns,
+      @Value("${books.isbn-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+    if (expectedIsbns < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException(
+          "books.isbn-filter needs expected-isbns >= 1 and 0 < false-positive-rate < 1");
+    }
+    this.enabled = enabled;
+    // Optimal sizing: m = -n ln p / (ln 2)^2 bits and k = m / n ln 2 hash functions
+    long optimalBits =
+        (long)
+            Math.ceil(-expectedIsbns * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int words = enabled ? (int) Math.min(Integer.MAX_VALUE, (optimalBits + 63) / 64) : 1;
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = words * 64L;
+    this.hashCount =
+        Math.max(1, (int) Math.round((double) optimalBits / expectedIsbns * Math.log(2)));
+  }
+
+  // Add every ISBN in the stream, then start answering lookups
+  public void load(Stream<String> isbns) {
+    if (enabled) {
+      isbns.forEach(this::put);
+      loaded = true;
+    }
+  }
+
+  // Record an ISBN as taken; null and empty values are ignored
+  public void put(String isbn) {
+    if (!enabled || isbn == null || isbn.isEmpty()) {
+      return;
+    }
+    long hash = hash(isbn);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = bits.get(word);
+      } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  // False only when the ISBN is certainly not in the catalog
+  public boolean mightContain(String isbn) {
+    if (!enabled || !loaded) {
+      return true;
+    }
+    long hash = hash(isbn);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  // 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer
+  private static long hash(String isbn) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : isbn.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb93fe53a87a5L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,62 @@
+package com.example.automationdemo.automationdemo.config;
+
+import com.example.automationdemo.automationdemo.web.ConcurrencyLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.concurrency.limits.limit.Gradient2Limit;
+import com.netflix.concurrency.limits.limiter.SimpleLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adaptive concurrency limits for the book endpoints (books.concurrency-limit.*). Limits start at
+ * the initial value and move between min-limit and max-limit using the Gradient2 algorithm, which
+ * lowers the limit as latency rises above its long-term baseline.
+ */
+@Configuration
+@ConditionalOnProperty(
+    name = "books.concurrency-limit.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+  @Bean
+  FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+      MeterRegistry meterRegistry,
+      ObjectMapper objectMapper,
+      @Value("${books.concurrency-limit.min-limit:1}") int minLimit,
+      @Value("${books.concurrency-limit.read.initial-limit:10}") int readInitialLimit,
+      @Value("${books.concurrency-limit.read.max-limit:50}") int readMaxLimit,
+      @Value("${books.concurrency-limit.write.initial-limit:5}") int writeInitialLimit,
+      @Value("${books.concurrency-limit.write.max-limit:10}") int writeMaxLimit,
+      @Value("${books.concurrency-limit.retry-after:1s}") Duration retryAfter) {
+    ConcurrencyLimitFilter filter =
+        new ConcurrencyLimitFilter(
+            limiter("books-read", minLimit, readInitialLimit, readMaxLimit),
+            limiter("books-write", minLimit, writeInitialLimit, writeMaxLimit),
+            meterRegistry,
+            objectMapper,
+            retryAfter);
+    FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+        new FilterRegistrationBean<>(filter);
+    registration.addUrlPatterns("/api/books", "/api/books/*");
+    return registration;
+  }
+
+  private static SimpleLimiter<Void> limiter(
+      String name, int minLimit, int initialLimit, int maxLimit) {
+    return SimpleLimiter.newBuilder()
+        .named(name)
+        .limit(
+            Gradient2Limit.newBuilder()
+                .minLimit(minLimit)
+                .initialLimit(initialLimit)
+                .maxConcurrency(maxLimit)
+                .build())
+        .build();
+  }
+}
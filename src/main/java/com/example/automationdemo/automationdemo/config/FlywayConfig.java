@@ -0,0 +1,26 @@
+package com.example.automationdemo.automationdemo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs the migrations on startup unless books.flyway.migrate-on-startup is false. Unlike
+ * spring.flyway.enabled this is read at run time, so it still applies to an AOT-processed build,
+ * where the Flyway beans are fixed when the jar is built. The CDS training run in the Dockerfile
+ * uses it to start without a database.
+ */
+@Configuration
+public class FlywayConfig {
+
+  @Bean
+  FlywayMigrationStrategy flywayMigrationStrategy(
+      @Value("${books.flyway.migrate-on-startup:true}") boolean migrateOnStartup) {
+    return flyway -> {
+      if (migrateOnStartup) {
+        flyway.migrate();
+      }
+    };
+  }
+}
@@ -0,0 +1,75 @@
+package com.example.automationdemo.automationdemo.config;
+
+import com.example.automationdemo.automationdemo.model.Book;
+import com.example.automationdemo.automationdemo.repository.BookRepository;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate second-level and query cache, backed by Caffeine through JCache. Every region is
+ * created here with explicit bounds (books.l2-cache.*) rather than left to provider defaults, which
+ * would be unbounded.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+  @Bean
+  HibernatePropertiesCustomizer hibernateCacheCustomizer(
+      @Value("${books.l2-cache.enabled:true}") boolean enabled,
+      @Value("${books.l2-cache.maximum-size:10000}") long maximumSize,
+      @Value("${books.l2-cache.ttl:10m}") Duration ttl,
+      @Value("${books.l2-cache.query-maximum-size:1000}") long queryMaximumSize) {
+    return properties -> {
+      properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+      properties.put(AvailableSettings.USE_QUERY_CACHE, enabled);
+      if (enabled) {
+        properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+        properties.put(
+            ConfigSettings.CACHE_MANAGER, cacheManager(maximumSize, queryMaximumSize, ttl));
+        properties.put(
+            ConfigSettings.MISSING_CACHE_STRATEGY,
+            MissingCacheStrategy.FAIL.getExternalRepresentation());
+      }
+    };
+  }
+
+  private static CacheManager cacheManager(long maximumSize, long queryMaximumSize, Duration ttl) {
+    // A cache manager per application context, so test contexts in one JVM don't share regions
+    CacheManager cacheManager =
+        Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(
+                URI.create("hibernate-" + UUID.randomUUID()),
+                HibernateCacheConfig.class.getClassLoader());
+    cacheManager.createCache(Book.CACHE_REGION, region(maximumSize, ttl));
+    cacheManager.createCache(BookRepository.QUERY_CACHE_REGION, region(queryMaximumSize, ttl));
+    cacheManager.createCache(
+        RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queryMaximumSize, ttl));
+    // Update timestamps must outlive every cached query result, so they are never evicted
+    cacheManager.createCache(
+        RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+        new CaffeineConfiguration<>());
+    return cacheManager;
+  }
+
+  private static CaffeineConfiguration<Object, Object> region(long maximumSize, Duration ttl) {
+    CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+    configuration.setMaximumSize(OptionalLong.of(maximumSize));
+    configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+    configuration.setStatisticsEnabled(true);
+    return configuration;
+  }
+}
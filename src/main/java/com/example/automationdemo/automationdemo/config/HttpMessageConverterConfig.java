@@ -0,0 +1,43 @@
+package com.example.automationdemo.automationdemo.config;
+
+import com.example.automationdemo.automationdemo.web.BookProtobufHttpMessageConverter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.util.List;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Binary alternatives to JSON, chosen by Accept / Content-Type: CBOR ({@code application/cbor}),
+ * Smile ({@code application/x-jackson-smile}) and Protobuf ({@code application/x-protobuf}) for
+ * book payloads. CBOR and Smile replace Spring's defaults so they use the same spring.jackson.*
+ * settings as JSON. All three come after JSON, so JSON stays the default for clients that accept
+ * any type or send no Accept header.
+ */
+@Configuration
+public class HttpMessageConverterConfig implements WebMvcConfigurer {
+
+  @Bean
+  MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+  }
+
+  @Bean
+  MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(
+        builder.factory(new SmileFactory()).build());
+  }
+
+  // Appended rather than declared as a bean, which Boot would put ahead of JSON
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new BookProtobufHttpMessageConverter());
+  }
+}
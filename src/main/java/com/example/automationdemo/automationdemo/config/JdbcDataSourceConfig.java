@@ -0,0 +1,30 @@
+package com.example.automationdemo.automationdemo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * The JDBC pool used by JPA and the servlet API. Boot skips its own DataSource once an R2DBC
+ * ConnectionFactory exists (the reactive v2 API), so the pool is declared here with the same
+ * spring.datasource.* and spring.datasource.hikari.* properties.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class JdbcDataSourceConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  HikariDataSource dataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource =
+        properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    if (StringUtils.hasText(properties.getName())) {
+      dataSource.setPoolName(properties.getName());
+    }
+    return dataSource;
+  }
+}
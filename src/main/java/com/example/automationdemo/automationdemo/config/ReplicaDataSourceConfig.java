@@ -0,0 +1,113 @@
+package com.example.automationdemo.automationdemo.config;
+
+import com.example.automationdemo.automationdemo.jdbc.ConsistencyToken;
+import com.example.automationdemo.automationdemo.jdbc.ReplicaDataSource;
+import com.example.automationdemo.automationdemo.jdbc.SlowQueryLog;
+import com.example.automationdemo.automationdemo.web.ConsistencyTokenFilter;
+import com.example.automationdemo.automationdemo.web.ConsistencyTokenListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Read replicas (books.replicas.*). JPA and everything else that injects a DataSource get a
+ * connection proxy that is only bound to a database on its first statement: read-only transactions
+ * then use {@link ReplicaDataSource}, everything else the primary pool. Writes made in a request
+ * return a consistency token that later reads can send back to see them.
+ */
+@Configuration
+@ConditionalOnProperty("books.replicas.urls")
+public class ReplicaDataSourceConfig {
+
+  @Bean(initMethod = "start")
+  ReplicaDataSource replicaDataSource(
+      @Qualifier("dataSource") DataSource primary,
+      @Value("${books.replicas.urls}") List<String> urls,
+      @Value("${books.replicas.username:${spring.datasource.username}}") String username,
+      @Value("${books.replicas.password:${spring.datasource.password}}") String password,
+      @Value("${books.replicas.maximum-pool-size:${spring.datasource.hikari.maximum-pool-size:10}}")
+          int maximumPoolSize,
+      @Value("${books.replicas.max-lag:16MB}") DataSize maxLag,
+      @Value("${books.replicas.check-interval:1s}") Duration checkInterval,
+      @Value("${books.replicas.catch-up-timeout:100ms}") Duration catchUpTimeout,
+      SlowQueryLog slowQueryLog,
+      MeterRegistry meterRegistry) {
+    Map<String, DataSource> replicas = new LinkedHashMap<>();
+    for (int i = 0; i < urls.size(); i++) {
+      HikariDataSource replica = new HikariDataSource();
+      replica.setPoolName("replica-" + (i + 1));
+      replica.setJdbcUrl(urls.get(i).trim());
+      replica.setUsername(username);
+      replica.setPassword(password);
+      replica.setMaximumPoolSize(maximumPoolSize);
+      replica.setReadOnly(true);
+      // Fail fast so an unreachable replica is ejected instead of stalling reads
+      replica.setConnectionTimeout(Math.max(250, catchUpTimeout.toMillis()));
+      replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+      replicas.put(replica.getPoolName(), slowQueryLog.wrap(replica.getPoolName(), replica));
+    }
+    return new ReplicaDataSource(
+        primary, replicas, maxLag.toBytes(), checkInterval, catchUpTimeout, meterRegistry);
+  }
+
+  @Bean
+  @Primary
+  DataSource routingDataSource(
+      @Qualifier("dataSource") DataSource primary, ReplicaDataSource replicaDataSource) {
+    LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+    routing.setReadOnlyDataSource(replicaDataSource);
+    return routing;
+  }
+
+  @Bean
+  ConsistencyTokenListener consistencyTokenListener(
+      DataSource dataSource, ReplicaDataSource replicaDataSource) {
+    return new ConsistencyTokenListener(dataSource, replicaDataSource);
+  }
+
+  @Bean
+  FilterRegistrationBean<ConsistencyTokenFilter> consistencyTokenFilter(ObjectMapper objectMapper) {
+    FilterRegistrationBean<ConsistencyTokenFilter> registration =
+        new FilterRegistrationBean<>(new ConsistencyTokenFilter(objectMapper));
+    registration.addUrlPatterns("/api/books", "/api/books/*");
+    // Ahead of admission control, so a malformed token never takes a concurrency slot
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+
+  // Carry the request's token over to async work such as a streamed export
+  @Bean
+  TaskDecorator consistencyTokenTaskDecorator() {
+    return runnable -> {
+      Long required = ConsistencyToken.required();
+      if (required == null) {
+        return runnable;
+      }
+      return () -> {
+        ConsistencyToken.require(required);
+        try {
+          runnable.run();
+        } finally {
+          ConsistencyToken.clear();
+        }
+      };
+    };
+  }
+}
@@ -0,0 +1,63 @@
+package com.example.automationdemo.automationdemo.config;
+
+import com.example.automationdemo.automationdemo.jdbc.SlowQueryEndpoint;
+import com.example.automationdemo.automationdemo.jdbc.SlowQueryLog;
+import com.example.automationdemo.automationdemo.jdbc.SqlStatementStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Statement timing and the slow-query log (books.sql.*) for the JDBC pool, and through {@link
+ * ReplicaDataSourceConfig} for the replica pools. The figures are served by the {@code sqlstats}
+ * actuator endpoint.
+ */
+@Configuration
+public class SlowQueryConfig {
+
+  @Bean
+  SqlStatementStats sqlStatementStats(
+      @Value("${books.sql.max-fingerprints:1000}") int maxFingerprints) {
+    return new SqlStatementStats(maxFingerprints);
+  }
+
+  @Bean
+  SlowQueryLog slowQueryLog(
+      SqlStatementStats sqlStatementStats,
+      @Value("${books.sql.slow-threshold:200ms}") Duration threshold,
+      @Value("${books.sql.explain.queries:findPage,findByFilters}") Set<String> explainedQueries,
+      @Value("${books.sql.explain.sample-rate:0.1}") double sampleRate,
+      @Value("${books.sql.explain.timeout:10s}") Duration explainTimeout,
+      MeterRegistry meterRegistry) {
+    return new SlowQueryLog(
+        sqlStatementStats, threshold, explainedQueries, sampleRate, explainTimeout, meterRegistry);
+  }
+
+  // Static so the post-processor is registered before the DataSource is created. Not ordered, so
+  // it runs after the (ordered) throttling one in virtual-thread mode and wraps its result.
+  @Bean
+  static BeanPostProcessor slowQueryDataSourcePostProcessor(
+      ObjectProvider<SlowQueryLog> slowQueryLog) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && beanName.equals("dataSource")) {
+          return slowQueryLog.getObject().wrap(beanName, dataSource);
+        }
+        return bean;
+      }
+    };
+  }
+
+  @Bean
+  SlowQueryEndpoint slowQueryEndpoint(
+      SqlStatementStats sqlStatementStats, @Value("${books.sql.top:20}") int top) {
+    return new SlowQueryEndpoint(sqlStatementStats, top);
+  }
+}
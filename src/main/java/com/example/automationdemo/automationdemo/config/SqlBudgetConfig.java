@@ -0,0 +1,49 @@
+package com.example.automationdemo.automationdemo.config;
+
+import com.example.automationdemo.automationdemo.web.SqlBudgetAdvice;
+import com.example.automationdemo.automationdemo.web.SqlBudgetFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Per-request SQL statement budgets and the Server-Timing header for the book endpoints
+ * (books.sql.budget.*). Statements are counted by the slow-query log's DataSource wrapper, see
+ * {@link SlowQueryConfig}.
+ */
+@Configuration
+public class SqlBudgetConfig {
+
+  @Bean
+  FilterRegistrationBean<SqlBudgetFilter> sqlBudgetFilter(
+      MeterRegistry meterRegistry,
+      ObjectMapper objectMapper,
+      @Value("${books.sql.budget.default:10}") int defaultBudget,
+      @Value("${books.sql.budget.endpoints:}") List<String> endpointBudgets,
+      @Value("${books.sql.budget.action:log}") String action,
+      @Value("${books.sql.budget.server-timing:false}") boolean serverTiming) {
+    SqlBudgetFilter filter =
+        new SqlBudgetFilter(
+            SqlBudgetFilter.parseBudgets(endpointBudgets),
+            defaultBudget,
+            SqlBudgetFilter.Action.of(action),
+            serverTiming,
+            meterRegistry,
+            objectMapper);
+    FilterRegistrationBean<SqlBudgetFilter> registration = new FilterRegistrationBean<>(filter);
+    registration.addUrlPatterns("/api/books", "/api/books/*");
+    // Just inside the consistency-token check, so admission control is part of the total
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+    return registration;
+  }
+
+  @Bean
+  SqlBudgetAdvice sqlBudgetAdvice() {
+    return new SqlBudgetAdvice();
+  }
+}
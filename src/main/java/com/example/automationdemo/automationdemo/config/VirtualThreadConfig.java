@@ -0,0 +1,79 @@
+package com.example.automationdemo.automationdemo.config;
+
+import com.example.automationdemo.automationdemo.jdbc.ThrottledDataSource;
+import com.example.automationdemo.automationdemo.jdbc.VirtualThreadPinningMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Extras for the virtual-thread mode (spring.threads.virtual.enabled=true on Java 21+), in which
+ * Boot runs Tomcat requests and the application task executor on virtual threads. Blocking JDBC
+ * calls then queue on a semaphore sized to the Hikari pool instead of all contending inside it, and
+ * pinned virtual threads are reported by {@link VirtualThreadPinningMonitor}.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+  // Static so the post-processor is registered before the DataSource is created. Ordered, so it
+  // sees the pool itself before the slow-query log (SlowQueryConfig) wraps it.
+  @Bean
+  static BeanPostProcessor throttledDataSourcePostProcessor() {
+    return new ThrottlingPostProcessor();
+  }
+
+  @Bean
+  MeterBinder throttledDataSourceMetrics(DataSource dataSource) {
+    return registry -> {
+      // Unwrapped, since with read replicas the DataSource is a routing proxy around it
+      ThrottledDataSource throttled =
+          DataSourceUnwrapper.unwrap(dataSource, ThrottledDataSource.class);
+      if (throttled != null) {
+        Gauge.builder("books.datasource.throttle.active", throttled, ThrottledDataSource::getActive)
+            .description("Callers holding a database permit")
+            .register(registry);
+        Gauge.builder(
+                "books.datasource.throttle.waiting", throttled, ThrottledDataSource::getWaiting)
+            .description("Callers queued for a database permit")
+            .register(registry);
+      }
+    };
+  }
+
+  @Bean
+  VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+      @Value("${books.virtual-threads.pinned-threshold:20ms}") Duration threshold,
+      MeterRegistry meterRegistry) {
+    return new VirtualThreadPinningMonitor(threshold, meterRegistry);
+  }
+
+  private static final class ThrottlingPostProcessor implements BeanPostProcessor, Ordered {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      // Runs after the hikari properties are bound, so the pool size is final
+      if (bean instanceof HikariDataSource hikari) {
+        return new ThrottledDataSource(
+            hikari, hikari.getMaximumPoolSize(), Duration.ofMillis(hikari.getConnectionTimeout()));
+      }
+      return bean;
+    }
+
+    @Override
+    public int getOrder() {
+      return Ordered.LOWEST_PRECEDENCE;
+    }
+  }
+}
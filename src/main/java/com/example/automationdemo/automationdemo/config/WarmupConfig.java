@@ -0,0 +1,22 @@
+package com.example.automationdemo.automationdemo.config;
+
+import com.example.automationdemo.automationdemo.warmup.BookWarmup;
+import io.micrometer.observation.ObservationPredicate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+/**
+ * Keeps the startup warm-up's synthetic requests (see {@link BookWarmup}) out of the {@code
+ * http.server.requests} metrics, so they don't count against the latency SLOs.
+ */
+@Configuration
+public class WarmupConfig {
+
+  @Bean
+  ObservationPredicate warmupRequestsObservationPredicate() {
+    return (name, context) ->
+        !(context instanceof ServerRequestObservationContext server
+            && BookWarmup.isWarmupRequest(server.getCarrier()));
+  }
+}
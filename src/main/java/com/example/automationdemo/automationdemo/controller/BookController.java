@@ -1,38 +1,159 @@
 package com.example.automationdemo.automationdemo.controller;
 
+import com.example.automationdemo.automationdemo.dto.BookBatchResult;
 import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.dto.BookDeleteResult;
+import com.example.automationdemo.automationdemo.dto.BookLookupResult;
+import com.example.automationdemo.automationdemo.dto.BookPage;
+import com.example.automationdemo.automationdemo.dto.BookPatch;
+import com.example.automationdemo.automationdemo.dto.BookSearchHitDTO;
+import com.example.automationdemo.automationdemo.dto.BookView;
+import com.example.automationdemo.automationdemo.repository.BookField;
+import com.example.automationdemo.automationdemo.repository.BookSearchCriteria;
+import com.example.automationdemo.automationdemo.repository.BookSort;
+import com.example.automationdemo.automationdemo.service.BookBatchService;
 import com.example.automationdemo.automationdemo.service.BookService;
+import com.example.automationdemo.automationdemo.web.BookProtobufHttpMessageConverter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
+  // Media type of JSON Merge Patch documents
+  static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+  // Media type of Jackson's binary JSON format (see HttpMessageConverterConfig)
+  static final String SMILE_VALUE = "application/x-jackson-smile";
+
+  // Response header carrying the cursor of the next page
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  // Upper bound on the keys of one multi-get, by id or by ISBN
+  static final int MAX_LOOKUP_KEYS = 500;
+
+  // Upper bound on ids= in a bulk delete, keeping the IN list a sensible size
+  static final int MAX_DELETE_IDS = 1_000;
+
+  static final int DEFAULT_PAGE_SIZE = 50;
+  static final int MAX_PAGE_SIZE = 500;
+
+  // Ranked results are paged by offset, which is only cheap for the first few pages
+  static final int DEFAULT_TEXT_SEARCH_LIMIT = 20;
+  static final int MAX_TEXT_SEARCH_LIMIT = 100;
+  static final int MAX_TEXT_SEARCH_OFFSET = 1_000;
+
   private final BookService bookService;
+  private final BookBatchService bookBatchService;
+  private final ObjectMapper objectMapper;
 
-  public BookController(BookService bookService) {
+  public BookController(
+      BookService bookService, BookBatchService bookBatchService, ObjectMapper objectMapper) {
     this.bookService = bookService;
+    this.bookBatchService = bookBatchService;
+    this.objectMapper = objectMapper;
   }
 
-  // Get all books
+  // Get all books, or a single page of them when limit, cursor or sort is given. Only the fields
+  // listed in fields= are returned (default: everything but the description).
   @GetMapping
-  public ResponseEntity<List<BookDTO>> getAllBooks() {
-    return ResponseEntity.ok(bookService.getAllBooks());
+  public ResponseEntity<List<BookView>> getAllBooks(
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) String sort,
+      @RequestParam(required = false) String fields,
+      WebRequest request) {
+    return listResponse(BookSearchCriteria.none(), limit, cursor, sort, fields, request);
+  }
+
+  // Get many books by id (?ids=1,2,3) in one call; one result per id, in request order, with
+  // NOT_FOUND for ids that don't exist
+  @GetMapping(params = "ids")
+  public ResponseEntity<List<BookLookupResult<Long>>> getBooksByIds(@RequestParam List<Long> ids) {
+    checkLookupKeys(ids);
+    return ResponseEntity.ok(bookService.getBooksByIds(ids));
   }
 
-  // Get book by ID
+  // Export the whole catalog as newline-delimited JSON, writing each book as soon as it is read
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportBooks() {
+    // Flushing is left to the output buffers, apart from the first line
+    ObjectWriter writer =
+        objectMapper.writerFor(BookDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    StreamingResponseBody body =
+        out -> {
+          try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // One document per line instead of Jackson's default space between root values
+            generator.setRootValueSeparator(null);
+            AtomicBoolean first = new AtomicBoolean(true);
+            bookService.exportBooks(
+                book -> {
+                  try {
+                    writer.writeValue(generator, book);
+                    generator.writeRaw('\n');
+                    // Send the first line straight away so clients get the first byte quickly
+                    if (first.getAndSet(false)) {
+                      generator.flush();
+                    }
+                  } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                  }
+                });
+          }
+        };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  // Get book by ID; If-None-Match / If-Modified-Since are answered with 304 and no body
   @GetMapping("/{id}")
-  public ResponseEntity<BookDTO> getBookById(@PathVariable Long id) {
-    return ResponseEntity.ok(bookService.getBookById(id));
+  public ResponseEntity<BookDTO> getBookById(
+      @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    return bookResponse(bookService.getBookById(id), accept);
   }
 
-  // Get book by ISBN
+  // Get book by ISBN; If-None-Match / If-Modified-Since are answered with 304 and no body
   @GetMapping("/isbn/{isbn}")
-  public ResponseEntity<BookDTO> getBookByIsbn(@PathVariable String isbn) {
-    return ResponseEntity.ok(bookService.getBookByIsbn(isbn));
+  public ResponseEntity<BookDTO> getBookByIsbn(
+      @PathVariable String isbn,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    return bookResponse(bookService.getBookByIsbn(isbn), accept);
+  }
+
+  // Get many books by ISBN from a JSON array of ISBNs; one result per ISBN, in request order, with
+  // NOT_FOUND for ISBNs that don't exist
+  @PostMapping(value = "/isbn/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<List<BookLookupResult<String>>> getBooksByIsbns(
+      @RequestBody List<String> isbns) {
+    checkLookupKeys(isbns);
+    if (isbns.stream().anyMatch(String::isBlank)) {
+      throw new IllegalArgumentException("ISBNs must not be blank");
+    }
+    return ResponseEntity.ok(bookService.getBooksByIsbns(isbns));
   }
 
   // Create a new book
@@ -42,10 +163,56 @@ public class BookController {
     return new ResponseEntity<>(createdBook, HttpStatus.CREATED);
   }
 
-  // Update a book
+  // Create many books at once from a JSON (or CBOR, Smile, Protobuf) array; one result per item, in
+  // request order
+  @PostMapping(
+      value = "/batch",
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        SMILE_VALUE,
+        BookProtobufHttpMessageConverter.PROTOBUF_VALUE
+      })
+  public ResponseEntity<List<BookBatchResult>> createBooks(@RequestBody List<BookDTO> bookDTOs) {
+    return ResponseEntity.ok(bookBatchService.createBooks(bookDTOs));
+  }
+
+  // Create many books at once from newline-delimited JSON
+  @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<List<BookBatchResult>> createBooksFromNdjson(InputStream body)
+      throws IOException {
+    List<BookDTO> bookDTOs;
+    try (MappingIterator<BookDTO> lines = objectMapper.readerFor(BookDTO.class).readValues(body)) {
+      bookDTOs = lines.readAll();
+    } catch (JsonProcessingException ex) {
+      throw new IllegalArgumentException("Malformed NDJSON: " + ex.getOriginalMessage());
+    }
+    return createBooks(bookDTOs);
+  }
+
+  // Update a book; with If-Match the update only succeeds if the book is still at that version
   @PutMapping("/{id}")
-  public ResponseEntity<BookDTO> updateBook(@PathVariable Long id, @RequestBody BookDTO bookDTO) {
-    return ResponseEntity.ok(bookService.updateBook(id, bookDTO));
+  public ResponseEntity<BookDTO> updateBook(
+      @PathVariable Long id,
+      @RequestBody BookDTO bookDTO,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    Long expectedVersion = BookETags.expectedVersion(ifMatch, id);
+    return bookResponse(bookService.updateBook(id, bookDTO, expectedVersion), accept);
+  }
+
+  // Partially update a book with a JSON Merge Patch (RFC 7396): only the members present change and
+  // null clears a field. If-Match works as for PUT.
+  @PatchMapping(
+      value = "/{id}",
+      consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public ResponseEntity<BookDTO> patchBook(
+      @PathVariable Long id,
+      @RequestBody JsonNode patch,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    Long expectedVersion = BookETags.expectedVersion(ifMatch, id);
+    return bookResponse(bookService.patchBook(id, BookPatch.from(patch), expectedVersion), accept);
   }
 
   // Delete a book
@@ -55,15 +222,150 @@ public class BookController {
     return ResponseEntity.noContent().build();
   }
 
-  // Search books by filters
-  @GetMapping("/search")
-  public ResponseEntity<List<BookDTO>> searchBooks(
+  // Bulk delete, either the books listed in ids= or every book matching the search filters, as
+  // one statement. Returns how many books were deleted.
+  @DeleteMapping
+  public ResponseEntity<BookDeleteResult> deleteBooks(
+      @RequestParam(required = false) List<Long> ids,
       @RequestParam(required = false) String title,
       @RequestParam(required = false) String author,
       @RequestParam(required = false) String genre,
       @RequestParam(required = false) String publisher,
       @RequestParam(required = false) String isbn) {
 
-    return ResponseEntity.ok(bookService.searchBooks(title, author, genre, publisher, isbn));
+    BookSearchCriteria criteria = new BookSearchCriteria(title, author, genre, publisher, isbn);
+    boolean filtered = !criteria.equals(BookSearchCriteria.none());
+    if ((ids == null) == !filtered) {
+      throw new IllegalArgumentException("Give either ids or at least one filter to delete by");
+    }
+    if (ids != null) {
+      if (ids.isEmpty() || ids.size() > MAX_DELETE_IDS || ids.contains(null)) {
+        throw new IllegalArgumentException(
+            "ids must list between 1 and " + MAX_DELETE_IDS + " ids");
+      }
+      return ResponseEntity.ok(new BookDeleteResult(bookService.deleteBooks(Set.copyOf(ids))));
+    }
+    // An empty filter would match every book
+    for (String filter : new String[] {title, author, genre, publisher, isbn}) {
+      if (filter != null && filter.isBlank()) {
+        throw new IllegalArgumentException("Delete filters must not be blank");
+      }
+    }
+    return ResponseEntity.ok(new BookDeleteResult(bookService.deleteBooks(criteria)));
+  }
+
+  // Search books by filters; takes the same paging and fields= parameters as the list
+  @GetMapping("/search")
+  public ResponseEntity<List<BookView>> searchBooks(
+      @RequestParam(required = false) String title,
+      @RequestParam(required = false) String author,
+      @RequestParam(required = false) String genre,
+      @RequestParam(required = false) String publisher,
+      @RequestParam(required = false) String isbn,
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) String sort,
+      @RequestParam(required = false) String fields,
+      WebRequest request) {
+
+    return listResponse(
+        new BookSearchCriteria(title, author, genre, publisher, isbn),
+        limit,
+        cursor,
+        sort,
+        fields,
+        request);
+  }
+
+  // Ranked full-text search over title, author and description
+  @GetMapping("/search/text")
+  public ResponseEntity<List<BookSearchHitDTO>> searchText(
+      @RequestParam String q,
+      @RequestParam(defaultValue = "" + DEFAULT_TEXT_SEARCH_LIMIT) int limit,
+      @RequestParam(defaultValue = "0") int offset,
+      @RequestParam(defaultValue = "false") boolean highlight,
+      WebRequest request) {
+    if (limit < 1 || limit > MAX_TEXT_SEARCH_LIMIT) {
+      throw new IllegalArgumentException("limit must be between 1 and " + MAX_TEXT_SEARCH_LIMIT);
+    }
+    if (offset < 0 || offset > MAX_TEXT_SEARCH_OFFSET) {
+      throw new IllegalArgumentException("offset must be between 0 and " + MAX_TEXT_SEARCH_OFFSET);
+    }
+    return catalogResponse(
+        request, () -> ResponseEntity.ok(bookService.searchText(q, highlight, limit, offset)));
+  }
+
+  // A single book with its ETag for the negotiated format and Last-Modified; Spring turns a
+  // matching conditional GET into a 304 before the body is serialized
+  static ResponseEntity<BookDTO> bookResponse(BookDTO book, String accept) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+    String eTag = BookETags.of(book, accept);
+    if (eTag != null) {
+      response.eTag(eTag);
+    }
+    if (book.getUpdatedAt() != null) {
+      response.lastModified(book.getUpdatedAt());
+    }
+    return response.body(book);
+  }
+
+  // Answer a collection request with 304 if the catalog hasn't changed since the client's ETag,
+  // without running the query. The version is read before the query, so a concurrent write can
+  // only make the tag older than the body (costing a refetch), never newer. The tag depends on the
+  // format, so the response (304 included) varies by Accept.
+  private <T> ResponseEntity<T> catalogResponse(
+      WebRequest request, Supplier<ResponseEntity<T>> response) {
+    if (request instanceof NativeWebRequest nativeRequest
+        && nativeRequest.getNativeResponse() instanceof HttpServletResponse servletResponse) {
+      servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+    String eTag =
+        BookETags.ofCatalog(bookService.getCatalogVersion(), request.getHeader(HttpHeaders.ACCEPT));
+    if (eTag != null && request.checkNotModified(eTag)) {
+      return null;
+    }
+    return response.get();
+  }
+
+  // All matching books, or one keyset page of them with the next cursor in a response header
+  private ResponseEntity<List<BookView>> listResponse(
+      BookSearchCriteria criteria,
+      Integer limit,
+      String cursor,
+      String sort,
+      String fields,
+      WebRequest request) {
+    Set<BookField> bookFields = BookField.fromParameter(fields);
+    if (limit == null && cursor == null && sort == null) {
+      return catalogResponse(
+          request, () -> ResponseEntity.ok(bookService.getBookViews(criteria, bookFields)));
+    }
+
+    int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    BookSort bookSort = sort != null ? BookSort.fromParameter(sort) : null;
+
+    return catalogResponse(
+        request,
+        () -> {
+          BookPage page =
+              bookService.getBooksPage(criteria, bookSort, cursor, pageSize, bookFields);
+          ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+          if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+          }
+          return response.body(page.items());
+        });
+  }
+
+  private static void checkLookupKeys(List<?> keys) {
+    if (keys.isEmpty()
+        || keys.size() > MAX_LOOKUP_KEYS
+        || keys.stream().anyMatch(Objects::isNull)) {
+      throw new IllegalArgumentException(
+          "Between 1 and " + MAX_LOOKUP_KEYS + " keys can be looked up at once");
+    }
   }
 }
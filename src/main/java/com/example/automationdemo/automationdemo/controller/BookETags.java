@@ -0,0 +1,100 @@
+package com.example.automationdemo.automationdemo.controller;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.exception.PreconditionFailedException;
+import com.example.automationdemo.automationdemo.web.BookProtobufHttpMessageConverter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Strong entity tags for books ({@code "<id>.<version>"}) and for the collection endpoints ({@code
+ * "c<catalog version>"}). Both change whenever the underlying rows change, so a matching tag means
+ * the client's copy is current. A strong tag also promises identical bytes, so the binary formats
+ * add their name ({@code "<id>.<version>-cbor"}); JSON, the default, keeps the bare tag. Responses
+ * carrying these tags must vary by Accept.
+ */
+final class BookETags {
+
+  // Formats other than JSON with their tag suffix; a wildcard that covers them covers JSON first
+  private static final Map<MediaType, String> BINARY_FORMATS =
+      Map.of(
+          MediaType.APPLICATION_CBOR,
+          "-cbor",
+          MediaType.valueOf("application/x-jackson-smile"),
+          "-smile",
+          BookProtobufHttpMessageConverter.PROTOBUF,
+          "-protobuf",
+          MediaType.valueOf("application/protobuf"),
+          "-protobuf");
+
+  private BookETags() {}
+
+  // ETag of a single book in the format negotiated from the Accept header, or null when its
+  // version isn't known
+  static String of(BookDTO book, String accept) {
+    if (book.getId() == null || book.getVersion() == null) {
+      return null;
+    }
+    return "\"" + book.getId() + "." + book.getVersion() + suffix(accept) + "\"";
+  }
+
+  // ETag of the collection endpoints in the negotiated format, or null when the catalog version
+  // isn't maintained
+  static String ofCatalog(Long catalogVersion, String accept) {
+    return catalogVersion != null ? "\"c" + catalogVersion + suffix(accept) + "\"" : null;
+  }
+
+  // The suffix of the format the response will be written in: JSON unless the client prefers one
+  // of the binary formats to it
+  static String suffix(String accept) {
+    if (accept == null || accept.isBlank()) {
+      return "";
+    }
+    List<MediaType> acceptable;
+    try {
+      acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+    } catch (InvalidMediaTypeException ex) {
+      return "";
+    }
+    MimeTypeUtils.sortBySpecificity(acceptable);
+    for (MediaType type : acceptable) {
+      if (type.getQualityValue() == 0) {
+        continue;
+      }
+      if (type.includes(MediaType.APPLICATION_JSON)) {
+        return "";
+      }
+      for (Map.Entry<MediaType, String> format : BINARY_FORMATS.entrySet()) {
+        if (type.includes(format.getKey())) {
+          return format.getValue();
+        }
+      }
+    }
+    return "";
+  }
+
+  // Version the client expects from an If-Match header; null means any version ("*" or absent)
+  static Long expectedVersion(String ifMatch, Long id) {
+    if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+      return null;
+    }
+    // A list of tags can't name more than one current version of a single book, so take the first
+    String tag = ifMatch.split(",")[0].trim();
+    String prefix = "\"" + id + ".";
+    if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+      throw new PreconditionFailedException("If-Match does not match the current book: " + tag);
+    }
+    // Any format's tag names the version: the book is the same whatever it was fetched as
+    String version = tag.substring(prefix.length(), tag.length() - 1);
+    int suffix = version.indexOf('-');
+    try {
+      return Long.valueOf(suffix >= 0 ? version.substring(0, suffix) : version);
+    } catch (NumberFormatException ex) {
+      throw new PreconditionFailedException("If-Match does not match the current book: " + tag);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.automationdemo.automationdemo.controller;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.dto.IngestTicketStatus;
+import com.example.automationdemo.automationdemo.service.BookIngestService;
+import java.util.List;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Asynchronous ingestion: books are accepted with 202 and a ticket, and written in the background.
+ * The ticket's status URL is returned in the Location header.
+ */
+@RestController
+@RequestMapping("/api/books/ingest")
+public class BookIngestController {
+
+  private final BookIngestService bookIngestService;
+
+  public BookIngestController(BookIngestService bookIngestService) {
+    this.bookIngestService = bookIngestService;
+  }
+
+  // Queue books for creation; answers 503 with Retry-After when the queue is full
+  @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<IngestTicketStatus> ingestBooks(@RequestBody List<BookDTO> bookDTOs) {
+    IngestTicketStatus status = bookIngestService.submit(bookDTOs);
+    return ResponseEntity.accepted()
+        .location(
+            ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{ticket}")
+                .buildAndExpand(status.ticket())
+                .toUri())
+        .body(status);
+  }
+
+  // Progress of an ingest ticket, with the rejected items and why
+  @GetMapping("/{ticket}")
+  public ResponseEntity<IngestTicketStatus> getTicket(@PathVariable String ticket) {
+    return ResponseEntity.of(bookIngestService.getStatus(ticket));
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.automationdemo.automationdemo.controller;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.exception.BookNotFoundException;
+import com.example.automationdemo.automationdemo.repository.BookSearchCriteria;
+import com.example.automationdemo.automationdemo.repository.ReactiveBookRepository;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-only v2 of the book API on R2DBC. Handlers return Mono/Flux, which Spring MVC completes
+ * asynchronously, so no request thread is held while a query is waiting on the database.
+ */
+@RestController
+@RequestMapping("/api/v2/books")
+public class BookReactiveController {
+
+  static final int DEFAULT_PAGE_SIZE = 50;
+  static final int MAX_PAGE_SIZE = 500;
+
+  private final ReactiveBookRepository reactiveBookRepository;
+
+  public BookReactiveController(ReactiveBookRepository reactiveBookRepository) {
+    this.reactiveBookRepository = reactiveBookRepository;
+  }
+
+  // Stream the whole catalog as newline-delimited JSON in id order
+  @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<BookDTO> streamBooks() {
+    return reactiveBookRepository.streamAll();
+  }
+
+  // Get book by ID, with the same ETag and Last-Modified headers as v1
+  @GetMapping("/{id}")
+  public Mono<ResponseEntity<BookDTO>> getBookById(
+      @PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    return reactiveBookRepository
+        .findById(id)
+        .switchIfEmpty(Mono.error(() -> new BookNotFoundException("Book not found with ID: " + id)))
+        .map(book -> BookController.bookResponse(book, accept));
+  }
+
+  // Get book by ISBN, with the same ETag and Last-Modified headers as v1
+  @GetMapping("/isbn/{isbn}")
+  public Mono<ResponseEntity<BookDTO>> getBookByIsbn(
+      @PathVariable String isbn,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    return reactiveBookRepository
+        .findByIsbn(isbn)
+        .switchIfEmpty(
+            Mono.error(() -> new BookNotFoundException("Book not found with ISBN: " + isbn)))
+        .map(book -> BookController.bookResponse(book, accept));
+  }
+
+  // Search books by the same filters as v1, one page at a time; pass the last id seen as after=
+  @GetMapping("/search")
+  public Flux<BookDTO> searchBooks(
+      @RequestParam(required = false) String title,
+      @RequestParam(required = false) String author,
+      @RequestParam(required = false) String genre,
+      @RequestParam(required = false) String publisher,
+      @RequestParam(required = false) String isbn,
+      @RequestParam(required = false) Long after,
+      @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    BookSearchCriteria criteria = new BookSearchCriteria(title, author, genre, publisher, isbn);
+    return reactiveBookRepository.search(criteria, after, limit);
+  }
+}
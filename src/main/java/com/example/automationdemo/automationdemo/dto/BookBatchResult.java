@@ -0,0 +1,24 @@
+package com.example.automationdemo.automationdemo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one item of a batch create, identified by its position in the request. Created items
+ * carry the stored book, rejected items the reason.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BookBatchResult(int index, Status status, BookDTO book, String message) {
+
+  public enum Status {
+    CREATED,
+    REJECTED
+  }
+
+  public static BookBatchResult created(int index, BookDTO book) {
+    return new BookBatchResult(index, Status.CREATED, book, null);
+  }
+
+  public static BookBatchResult rejected(int index, String message) {
+    return new BookBatchResult(index, Status.REJECTED, null, message);
+  }
+}
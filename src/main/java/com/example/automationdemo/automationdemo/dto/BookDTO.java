@@ -2,6 +2,8 @@ package com.example.automationdemo.automationdemo.dto;
 
 import com.example.automationdemo.automationdemo.model.Book;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.Instant;
 import java.time.LocalDate;
 import lombok.*;
 
@@ -25,6 +27,11 @@ public class BookDTO {
 
   private String description;
 
+  // Carried in the ETag and Last-Modified headers rather than the body
+  @JsonIgnore private Long version;
+
+  @JsonIgnore private Instant updatedAt;
+
   // Constructor from entity
   public BookDTO(Book book) {
     this.id = book.getId();
@@ -35,6 +42,8 @@ public class BookDTO {
     this.isbn = book.getIsbn();
     this.publicationDate = book.getPublicationDate();
     this.description = book.getDescription();
+    this.version = book.getVersion();
+    this.updatedAt = book.getUpdatedAt();
   }
 
   // Convert DTO to entity
@@ -0,0 +1,4 @@
+package com.example.automationdemo.automationdemo.dto;
+
+/** Outcome of a bulk delete: how many books were removed. */
+public record BookDeleteResult(int deleted) {}
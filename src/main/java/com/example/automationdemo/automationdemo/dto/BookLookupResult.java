@@ -0,0 +1,21 @@
+package com.example.automationdemo.automationdemo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one key of a multi-get, identified by the key as requested (an id or an ISBN). Found
+ * keys carry the book, missing keys only the NOT_FOUND status.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BookLookupResult<K>(K key, Status status, BookDTO book) {
+
+  public enum Status {
+    FOUND,
+    NOT_FOUND
+  }
+
+  // FOUND with the book, or NOT_FOUND when the book is null
+  public static <K> BookLookupResult<K> of(K key, BookDTO book) {
+    return new BookLookupResult<>(key, book != null ? Status.FOUND : Status.NOT_FOUND, book);
+  }
+}
@@ -0,0 +1,8 @@
+package com.example.automationdemo.automationdemo.dto;
+
+import java.util.List;
+
+/**
+ * One page of books plus the cursor for the following page, which is {@code null} on the last page.
+ */
+public record BookPage(List<BookView> items, String nextCursor) {}
@@ -0,0 +1,102 @@
+package com.example.automationdemo.automationdemo.dto;
+
+import com.example.automationdemo.automationdemo.model.Book;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A JSON Merge Patch (RFC 7396) for a book: members that are present replace the field, {@code
+ * null} clears it and absent members leave it unchanged. Title, author and genre can't be cleared.
+ */
+public final class BookPatch {
+
+  private static final Set<String> REQUIRED = Set.of("title", "author", "genre");
+  private static final Set<String> TEXT_FIELDS =
+      Set.of("title", "author", "genre", "publisher", "isbn", "description");
+
+  // Field name to new value (null to clear), in request order
+  private final Map<String, Object> changes;
+
+  private BookPatch(Map<String, Object> changes) {
+    this.changes = changes;
+  }
+
+  // Parse a merge patch document; unknown members and values of the wrong type are rejected
+  public static BookPatch from(JsonNode patch) {
+    if (patch == null || !patch.isObject()) {
+      throw new IllegalArgumentException("A merge patch must be a JSON object");
+    }
+    Map<String, Object> changes = new LinkedHashMap<>();
+    Iterator<Map.Entry<String, JsonNode>> members = patch.fields();
+    while (members.hasNext()) {
+      Map.Entry<String, JsonNode> member = members.next();
+      String name = member.getKey();
+      JsonNode value = member.getValue();
+      if (name.equals("id")) {
+        // The id comes from the path; like PUT, a body id is ignored
+        continue;
+      }
+      if (value.isNull()) {
+        if (REQUIRED.contains(name)) {
+          throw new IllegalArgumentException(name + " cannot be removed");
+        }
+        if (!TEXT_FIELDS.contains(name) && !name.equals("publicationDate")) {
+          throw new IllegalArgumentException("Unsupported field: " + name);
+        }
+        changes.put(name, null);
+      } else if (TEXT_FIELDS.contains(name)) {
+        if (!value.isTextual() || (REQUIRED.contains(name) && value.asText().isBlank())) {
+          throw new IllegalArgumentException(name + " must be a non-empty string");
+        }
+        changes.put(name, value.asText());
+      } else if (name.equals("publicationDate")) {
+        changes.put(name, parseDate(value));
+      } else {
+        throw new IllegalArgumentException("Unsupported field: " + name);
+      }
+    }
+    return new BookPatch(changes);
+  }
+
+  // True when the patch sets or clears the field
+  public boolean changes(String field) {
+    return changes.containsKey(field);
+  }
+
+  public boolean isEmpty() {
+    return changes.isEmpty();
+  }
+
+  // Copy the patched fields onto the entity; Hibernate only writes the ones whose value changed
+  public void applyTo(Book book) {
+    changes.forEach(
+        (field, value) -> {
+          switch (field) {
+            case "title" -> book.setTitle((String) value);
+            case "author" -> book.setAuthor((String) value);
+            case "genre" -> book.setGenre((String) value);
+            case "publisher" -> book.setPublisher((String) value);
+            case "isbn" -> book.setIsbn((String) value);
+            case "publicationDate" -> book.setPublicationDate((LocalDate) value);
+            case "description" -> book.setDescription((String) value);
+            default -> throw new IllegalStateException("Unexpected patch field " + field);
+          }
+        });
+  }
+
+  private static LocalDate parseDate(JsonNode value) {
+    if (value.isTextual()) {
+      try {
+        return LocalDate.parse(value.asText());
+      } catch (DateTimeParseException ex) {
+        // Fall through to the error below
+      }
+    }
+    throw new IllegalArgumentException("publicationDate must be a yyyy-MM-dd date");
+  }
+}
@@ -0,0 +1,13 @@
+package com.example.automationdemo.automationdemo.dto;
+
+import com.example.automationdemo.automationdemo.repository.BookSearchHit;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** Full-text search result: the book, its relevance score and an optional highlighted excerpt. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BookSearchHitDTO(BookDTO book, double rank, String snippet) {
+
+  public BookSearchHitDTO(BookSearchHit hit) {
+    this(new BookDTO(hit.book()), hit.rank(), hit.snippet());
+  }
+}
@@ -0,0 +1,31 @@
+package com.example.automationdemo.automationdemo.dto;
+
+import com.example.automationdemo.automationdemo.repository.BookField;
+import com.example.automationdemo.automationdemo.repository.BookProjection;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A book reduced to the requested fields. Serializes as a plain JSON object with only those
+ * properties, in the same order and format as {@link BookDTO}.
+ */
+public record BookView(@JsonValue Map<String, Object> properties) {
+
+  public BookView(BookProjection projection, Set<BookField> fields) {
+    this(toProperties(projection, fields));
+  }
+
+  private static Map<String, Object> toProperties(
+      BookProjection projection, Set<BookField> fields) {
+    Map<String, Object> properties = new LinkedHashMap<>();
+    for (BookField field : fields) {
+      Object value = projection.values().get(field);
+      // Same yyyy-MM-dd form BookDTO uses, whatever the ObjectMapper's date settings
+      properties.put(field.fieldName(), value instanceof LocalDate date ? date.toString() : value);
+    }
+    return properties;
+  }
+}
@@ -0,0 +1,25 @@
+package com.example.automationdemo.automationdemo.dto;
+
+import java.util.List;
+
+/**
+ * Progress of an asynchronous ingest request. {@code processed} counts every item written or
+ * rejected; {@code created} and {@code rejected} only cover this run of the application, so after a
+ * restart they can add up to less than {@code processed}. Rejected items are listed with their
+ * position in the request and the reason.
+ */
+public record IngestTicketStatus(
+    String ticket,
+    State state,
+    int accepted,
+    int processed,
+    int created,
+    int rejected,
+    List<BookBatchResult> rejections) {
+
+  public enum State {
+    QUEUED,
+    IN_PROGRESS,
+    COMPLETED
+  }
+}
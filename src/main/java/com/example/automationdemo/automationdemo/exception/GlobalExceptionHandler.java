@@ -7,6 +7,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -46,6 +48,72 @@ public class GlobalExceptionHandler {
     return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
   }
 
+  // Handle a conditional request whose If-Match no longer matches
+  @ExceptionHandler(PreconditionFailedException.class)
+  public ResponseEntity<ErrorResponse> handlePreconditionFailedException(
+      PreconditionFailedException ex, jakarta.servlet.http.HttpServletRequest request) {
+
+    ErrorResponse errorResponse =
+        new ErrorResponse(
+            LocalDateTime.now(),
+            HttpStatus.PRECONDITION_FAILED.value(),
+            "Precondition Failed",
+            ex.getMessage(),
+            request.getRequestURI());
+
+    return new ResponseEntity<>(errorResponse, HttpStatus.PRECONDITION_FAILED);
+  }
+
+  // Handle a concurrent update detected by the entity version
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(
+      OptimisticLockingFailureException ex, jakarta.servlet.http.HttpServletRequest request) {
+
+    ErrorResponse errorResponse =
+        new ErrorResponse(
+            LocalDateTime.now(),
+            HttpStatus.CONFLICT.value(),
+            "Conflict",
+            "The book was modified concurrently, please retry",
+            request.getRequestURI());
+
+    return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+  }
+
+  // Handle an ingest request that doesn't fit in the queue; the client should retry later
+  @ExceptionHandler(IngestQueueFullException.class)
+  public ResponseEntity<ErrorResponse> handleIngestQueueFullException(
+      IngestQueueFullException ex, jakarta.servlet.http.HttpServletRequest request) {
+
+    ErrorResponse errorResponse =
+        new ErrorResponse(
+            LocalDateTime.now(),
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            "Service Unavailable",
+            ex.getMessage(),
+            request.getRequestURI());
+
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+        .body(errorResponse);
+  }
+
+  // Handle a request that ran more SQL statements than its budget (books.sql.budget.action=fail)
+  @ExceptionHandler(SqlBudgetExceededException.class)
+  public ResponseEntity<ErrorResponse> handleSqlBudgetExceededException(
+      SqlBudgetExceededException ex, jakarta.servlet.http.HttpServletRequest request) {
+
+    ErrorResponse errorResponse =
+        new ErrorResponse(
+            LocalDateTime.now(),
+            HttpStatus.INTERNAL_SERVER_ERROR.value(),
+            "Internal Server Error",
+            ex.getMessage(),
+            request.getRequestURI());
+
+    return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+  }
+
   // Handle illegal argument exception
   @ExceptionHandler(IllegalArgumentException.class)
   public ResponseEntity<ErrorResponse> handleIllegalArgumentException(
@@ -0,0 +1,12 @@
+package com.example.automationdemo.automationdemo.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+public class SqlBudgetExceededException extends RuntimeException {
+
+  public SqlBudgetExceededException(String message) {
+    super(message);
+  }
+}
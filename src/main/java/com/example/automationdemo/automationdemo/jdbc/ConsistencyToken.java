@@ -0,0 +1,80 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import java.util.function.Supplier;
+
+/**
+ * Read-your-writes token: a position in the primary's write-ahead log (a Postgres LSN, written as
+ * {@code X/Y} in hex) that reads on the current thread must see. {@link ReplicaDataSource} only
+ * hands out a replica that has replayed at least that far.
+ *
+ * <p>{@link #readLatest} goes further for reads whose result is kept, such as cache loads: the
+ * replica must have replayed everything the primary had written when the read began.
+ */
+public final class ConsistencyToken {
+
+  private static final ThreadLocal<Long> REQUIRED = new ThreadLocal<>();
+  private static final ThreadLocal<Boolean> LATEST = new ThreadLocal<>();
+
+  private ConsistencyToken() {}
+
+  // Parse an LSN such as "16/B374D848"; throws IllegalArgumentException if it isn't one
+  public static long parse(String lsn) {
+    int slash = lsn.indexOf('/');
+    if (slash < 1 || slash > 8 || lsn.length() - slash - 1 < 1 || lsn.length() - slash - 1 > 8) {
+      throw new IllegalArgumentException("Invalid consistency token: " + lsn);
+    }
+    try {
+      long high = Long.parseLong(lsn.substring(0, slash), 16);
+      long low = Long.parseLong(lsn.substring(slash + 1), 16);
+      return high << 32 | low;
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Invalid consistency token: " + lsn, ex);
+    }
+  }
+
+  public static String format(long lsn) {
+    return Long.toHexString(lsn >>> 32).toUpperCase()
+        + "/"
+        + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+  }
+
+  // True when position a is at or after position b (LSNs are unsigned)
+  public static boolean isAtOrAfter(long a, long b) {
+    return Long.compareUnsigned(a, b) >= 0;
+  }
+
+  // The position reads on this thread must see, or null when any replica will do
+  public static Long required() {
+    return REQUIRED.get();
+  }
+
+  // Require reads on this thread to see at least this position; never lowers an earlier one
+  public static void require(long lsn) {
+    Long current = REQUIRED.get();
+    if (current == null || !isAtOrAfter(current, lsn)) {
+      REQUIRED.set(lsn);
+    }
+  }
+
+  public static void clear() {
+    REQUIRED.remove();
+  }
+
+  // Run a read that must see every write committed before it started, whichever database serves it
+  public static <T> T readLatest(Supplier<T> read) {
+    if (LATEST.get() != null) {
+      return read.get();
+    }
+    LATEST.set(Boolean.TRUE);
+    try {
+      return read.get();
+    } finally {
+      LATEST.remove();
+    }
+  }
+
+  // True inside readLatest()
+  public static boolean isLatestRequired() {
+    return LATEST.get() != null;
+  }
+}
@@ -0,0 +1,313 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * Connections for read-only transactions, spread round robin over a set of Postgres streaming
+ * replicas. A background check every {@code checkInterval} ejects a replica that can't be reached,
+ * is no longer in recovery or has replayed more than {@code maxLagBytes} of WAL less than the
+ * primary has written, and takes it back once it passes again. With no healthy replica, reads go to
+ * the primary.
+ *
+ * <p>When the thread carries a {@link ConsistencyToken}, only a replica that has replayed that
+ * position is used: one already known to be there, or else the next replica is polled for up to
+ * {@code catchUpTimeout}, after which the read goes to the primary. Inside {@link
+ * ConsistencyToken#readLatest} the furthest primary position known without asking (sampled by the
+ * last check, or reported by a commit on this instance through {@link #primaryReached}) is required
+ * instead; a replica that isn't known to be there isn't waited for, so such a read costs no
+ * statements beyond its own.
+ */
+public class ReplicaDataSource extends AbstractDataSource implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+  // How often a replica is asked for its position while a read waits for it to catch up
+  private static final long CATCH_UP_POLL_MILLIS = 5;
+
+  private final DataSource primary;
+  private final List<Replica> replicas = new ArrayList<>();
+  private final long maxLagBytes;
+  private final Duration checkInterval;
+  private final Duration catchUpTimeout;
+  private final AtomicInteger next = new AtomicInteger();
+  // Furthest primary WAL position seen by a check or reported by a commit
+  private final AtomicLong primaryLsn = new AtomicLong();
+  private final Counter replicaReads;
+  private final Counter primaryReads;
+  private ScheduledExecutorService checker;
+
+  public ReplicaDataSource(
+      DataSource primary,
+      Map<String, DataSource> replicas,
+      long maxLagBytes,
+      Duration checkInterval,
+      Duration catchUpTimeout,
+      MeterRegistry meterRegistry) {
+    if (replicas.isEmpty()) {
+      throw new IllegalArgumentException("At least one replica is required");
+    }
+    this.primary = primary;
+    replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+    this.maxLagBytes = maxLagBytes;
+    this.checkInterval = checkInterval;
+    this.catchUpTimeout = catchUpTimeout;
+    this.replicaReads = readCounter("replica", meterRegistry);
+    this.primaryReads = readCounter("primary", meterRegistry);
+    Gauge.builder("books.datasource.replicas.healthy", this, ReplicaDataSource::healthyReplicas)
+        .description("Replicas currently serving reads")
+        .register(meterRegistry);
+  }
+
+  // Check the replicas now and then every checkInterval; until the first check, reads use the
+  // primary
+  public synchronized void start() {
+    if (checker == null) {
+      checker =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, "replica-health-check");
+                thread.setDaemon(true);
+                return thread;
+              });
+      checker.scheduleWithFixedDelay(
+          this::checkReplicas, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  // Stop the checks and close the replica pools
+  @Override
+  public synchronized void close() {
+    if (checker != null) {
+      checker.shutdownNow();
+      checker = null;
+    }
+    for (Replica replica : replicas) {
+      if (replica.dataSource instanceof Closeable pool) {
+        try {
+          pool.close();
+        } catch (IOException ex) {
+          log.warn("Could not close replica pool {}", replica.name, ex);
+        }
+      }
+    }
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    Long required = ConsistencyToken.required();
+    boolean latest = ConsistencyToken.isLatestRequired();
+    List<Replica> healthy = healthy();
+    if (latest) {
+      long known = primaryLsn.get();
+      if (required == null || !ConsistencyToken.isAtOrAfter(required, known)) {
+        required = known;
+      }
+    }
+    if (!healthy.isEmpty()) {
+      int start = Math.floorMod(next.getAndIncrement(), healthy.size());
+      for (int i = 0; i < healthy.size(); i++) {
+        Replica replica = healthy.get((start + i) % healthy.size());
+        if (required == null || replica.hasReplayed(required)) {
+          Connection connection = replica.connect();
+          if (connection != null) {
+            replicaReads.increment();
+            return connection;
+          }
+        }
+      }
+      // A latest read is usually a cache miss on a hot path: the primary is cheaper than a wait
+      if (required != null && !latest) {
+        Connection connection = awaitCatchUp(healthy.get(start), required);
+        if (connection != null) {
+          replicaReads.increment();
+          return connection;
+        }
+      }
+    }
+    primaryReads.increment();
+    return primary.getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+  }
+
+  // Refresh every replica's replay position and health against the primary's WAL position
+  public void checkReplicas() {
+    long lsn;
+    try (Connection connection = primary.getConnection()) {
+      lsn = currentLsn(connection);
+    } catch (SQLException ex) {
+      // Without the primary's position lag can't be judged, so leave the replicas as they are
+      log.warn("Could not read the primary WAL position to check replicas", ex);
+      return;
+    }
+    primaryReached(lsn);
+    for (Replica replica : replicas) {
+      replica.check(lsn);
+    }
+  }
+
+  // Record that the primary has written at least this far, e.g. past a commit made here
+  public void primaryReached(long lsn) {
+    primaryLsn.accumulateAndGet(lsn, (a, b) -> ConsistencyToken.isAtOrAfter(a, b) ? a : b);
+  }
+
+  // Replicas currently in rotation
+  public int healthyReplicas() {
+    return healthy().size();
+  }
+
+  List<Replica> healthy() {
+    List<Replica> healthy = new ArrayList<>(replicas.size());
+    for (Replica replica : replicas) {
+      if (replica.healthy) {
+        healthy.add(replica);
+      }
+    }
+    return healthy;
+  }
+
+  // A connection to the replica once it has replayed the required position, or null if it doesn't
+  // get there within catchUpTimeout
+  private Connection awaitCatchUp(Replica replica, long required) {
+    Connection connection = replica.connect();
+    if (connection == null) {
+      return null;
+    }
+    long deadline = System.nanoTime() + catchUpTimeout.toNanos();
+    try {
+      while (true) {
+        replica.replayed(replayLsn(connection));
+        if (replica.hasReplayed(required)) {
+          return connection;
+        }
+        if (System.nanoTime() - deadline >= 0) {
+          break;
+        }
+        Thread.sleep(CATCH_UP_POLL_MILLIS);
+      }
+    } catch (SQLException ex) {
+      replica.eject(ex.getMessage());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    closeQuietly(connection);
+    return null;
+  }
+
+  private static long replayLsn(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet =
+            statement.executeQuery(
+                "SELECT CASE WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn() END")) {
+      resultSet.next();
+      String lsn = resultSet.getString(1);
+      if (lsn == null) {
+        throw new SQLException("Not a streaming replica");
+      }
+      return ConsistencyToken.parse(lsn);
+    }
+  }
+
+  // The primary's current WAL position, read on a primary connection
+  public static long currentLsn(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT pg_current_wal_lsn()")) {
+      resultSet.next();
+      return ConsistencyToken.parse(resultSet.getString(1));
+    }
+  }
+
+  private static void closeQuietly(Connection connection) {
+    try {
+      connection.close();
+    } catch (SQLException ex) {
+      log.debug("Could not close replica connection", ex);
+    }
+  }
+
+  private static Counter readCounter(String target, MeterRegistry meterRegistry) {
+    return Counter.builder("books.datasource.reads")
+        .tag("target", target)
+        .description("Read-only connections handed out, by database")
+        .register(meterRegistry);
+  }
+
+  // One replica: its pool, health and the furthest WAL position it is known to have replayed
+  final class Replica {
+    private final String name;
+    private final DataSource dataSource;
+    private final AtomicLong replayLsn = new AtomicLong();
+    private volatile boolean healthy;
+
+    Replica(String name, DataSource dataSource) {
+      this.name = name;
+      this.dataSource = dataSource;
+    }
+
+    boolean hasReplayed(long lsn) {
+      return ConsistencyToken.isAtOrAfter(replayLsn.get(), lsn);
+    }
+
+    void replayed(long lsn) {
+      replayLsn.accumulateAndGet(lsn, (a, b) -> ConsistencyToken.isAtOrAfter(a, b) ? a : b);
+    }
+
+    // A connection, or null (and the replica ejected) when it can't be reached
+    Connection connect() {
+      try {
+        return dataSource.getConnection();
+      } catch (SQLException ex) {
+        eject(ex.getMessage());
+        return null;
+      }
+    }
+
+    void check(long primaryLsn) {
+      try (Connection connection = dataSource.getConnection()) {
+        long replayed = replayLsn(connection);
+        replayed(replayed);
+        long lag = ConsistencyToken.isAtOrAfter(replayed, primaryLsn) ? 0 : primaryLsn - replayed;
+        if (lag > maxLagBytes) {
+          eject("replay is " + lag + " bytes behind the primary");
+        } else if (!healthy) {
+          healthy = true;
+          log.info("Replica {} is serving reads", name);
+        }
+      } catch (SQLException | IllegalArgumentException ex) {
+        eject(ex.getMessage());
+      }
+    }
+
+    void eject(String reason) {
+      if (healthy) {
+        healthy = false;
+        log.warn("Replica {} taken out of rotation: {}", name, reason);
+      }
+    }
+  }
+}
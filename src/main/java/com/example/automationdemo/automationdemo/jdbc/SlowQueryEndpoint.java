@@ -0,0 +1,38 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * /actuator/sqlstats: the slowest statement fingerprints, by mean execution time unless {@code
+ * order} is total or max, at most {@code limit} of them. DELETE starts the figures over.
+ */
+@Endpoint(id = "sqlstats")
+public class SlowQueryEndpoint {
+
+  private final SqlStatementStats stats;
+  private final int defaultLimit;
+
+  public SlowQueryEndpoint(SqlStatementStats stats, int defaultLimit) {
+    this.stats = stats;
+    this.defaultLimit = defaultLimit;
+  }
+
+  @ReadOperation
+  public List<SqlStatementStats.Summary> top(@Nullable Integer limit, @Nullable String order) {
+    if (limit != null && limit < 1) {
+      throw new IllegalArgumentException("limit must be at least 1");
+    }
+    SqlStatementStats.Order sortOrder =
+        order != null ? SqlStatementStats.Order.of(order) : SqlStatementStats.Order.MEAN;
+    return stats.top(limit != null ? limit : defaultLimit, sortOrder);
+  }
+
+  @DeleteOperation
+  public void reset() {
+    stats.reset();
+  }
+}
@@ -0,0 +1,217 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Times every statement run through a DataSource returned by {@link #wrap}, adds it to the {@link
+ * SqlStatementStats} of its fingerprint and logs the ones that take {@code threshold} or longer
+ * with their bind values. Executions on a thread that has started a {@link StatementTally} are
+ * added to it.
+ *
+ * <p>A {@code sampleRate} share of the slow SELECTs whose Hibernate comment names one of the {@code
+ * explainedQueries} (e.g. {@code findByFilters}) is run again on PostgreSQL under {@code EXPLAIN
+ * (ANALYZE, BUFFERS)} with the same bind values, on a background thread and a separate connection,
+ * one at a time; samples that arrive while one runs are dropped. The plan is logged and kept with
+ * the fingerprint.
+ */
+public class SlowQueryLog implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+  private static final String START_NANOS = SlowQueryLog.class.getName() + ".start";
+
+  // Enough bind values to recognise the call without logging a whole batch
+  private static final int MAX_LOGGED_PARAMETER_SETS = 3;
+  private static final int MAX_LOGGED_VALUE_LENGTH = 100;
+
+  private final SqlStatementStats stats;
+  private final long thresholdNanos;
+  private final Set<String> explainedQueries;
+  private final double sampleRate;
+  private final Duration explainTimeout;
+  private final Counter slowStatements;
+  private final ThreadPoolExecutor explainer;
+
+  public SlowQueryLog(
+      SqlStatementStats stats,
+      Duration threshold,
+      Set<String> explainedQueries,
+      double sampleRate,
+      Duration explainTimeout,
+      MeterRegistry meterRegistry) {
+    if (sampleRate < 0 || sampleRate > 1) {
+      throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+    }
+    this.stats = stats;
+    this.thresholdNanos = threshold.toNanos();
+    this.explainedQueries = Set.copyOf(explainedQueries);
+    this.sampleRate = sampleRate;
+    this.explainTimeout = explainTimeout;
+    this.slowStatements =
+        Counter.builder("books.sql.slow")
+            .description("Statements that took at least the slow-query threshold")
+            .register(meterRegistry);
+    this.explainer =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1),
+            runnable -> {
+              Thread thread = new Thread(runnable, "slow-query-explain");
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+  }
+
+  // The DataSource with every statement timed; EXPLAIN samples use dataSource itself
+  public DataSource wrap(String name, DataSource dataSource) {
+    return ProxyDataSourceBuilder.create(name, dataSource)
+        .listener(new Listener(dataSource))
+        .build();
+  }
+
+  @Override
+  public void close() {
+    explainer.shutdownNow();
+  }
+
+  private void afterQuery(DataSource target, ExecutionInfo execInfo, List<QueryInfo> queries) {
+    Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+    if (start == null) {
+      return;
+    }
+    long elapsed = System.nanoTime() - start;
+    StatementTally.record(elapsed);
+    boolean slow = elapsed >= thresholdNanos;
+    for (QueryInfo query : queries) {
+      String fingerprint = SqlFingerprint.of(query.getQuery());
+      stats.record(fingerprint, elapsed, slow);
+      if (slow) {
+        slowStatements.increment();
+        log.warn(
+            "Slow SQL ({} ms{}): {} {}",
+            elapsed / 1_000_000,
+            execInfo.isBatch() ? ", batch of " + execInfo.getBatchSize() : "",
+            query.getQuery(),
+            bindValues(query));
+        if (execInfo.isSuccess() && shouldExplain(query.getQuery())) {
+          explainer.execute(() -> explain(target, fingerprint, query));
+        }
+      }
+    }
+  }
+
+  private boolean shouldExplain(String sql) {
+    String label = SqlFingerprint.label(sql);
+    if (label == null || !explainedQueries.contains(label)) {
+      return false;
+    }
+    String statement = sql.substring(sql.indexOf("*/") + 2).stripLeading();
+    return statement.regionMatches(true, 0, "select", 0, 6)
+        && ThreadLocalRandom.current().nextDouble() < sampleRate;
+  }
+
+  private void explain(DataSource target, String fingerprint, QueryInfo query) {
+    try (Connection connection = target.getConnection()) {
+      if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+        return;
+      }
+      connection.setReadOnly(true);
+      try (PreparedStatement statement =
+          connection.prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + query.getQuery())) {
+        statement.setQueryTimeout((int) Math.max(1, explainTimeout.toSeconds()));
+        if (!query.getParametersList().isEmpty()) {
+          for (ParameterSetOperation operation : query.getParametersList().get(0)) {
+            operation.getMethod().invoke(statement, operation.getArgs());
+          }
+        }
+        StringJoiner plan = new StringJoiner("\n");
+        try (ResultSet resultSet = statement.executeQuery()) {
+          while (resultSet.next()) {
+            plan.add(resultSet.getString(1));
+          }
+        }
+        stats.recordPlan(fingerprint, plan.toString());
+        log.warn("Plan of slow SQL {}\n{}", fingerprint, plan);
+      }
+    } catch (SQLException | ReflectiveOperationException | RuntimeException ex) {
+      log.warn("Could not EXPLAIN slow SQL {}", fingerprint, ex);
+    }
+  }
+
+  // "[a, 1], [b, 2]": the first few parameter sets, each in the order the values were bound
+  private static String bindValues(QueryInfo query) {
+    List<List<ParameterSetOperation>> parameterSets = query.getParametersList();
+    if (parameterSets.isEmpty()) {
+      return "";
+    }
+    StringJoiner joiner = new StringJoiner(", ");
+    for (List<ParameterSetOperation> parameters :
+        parameterSets.subList(0, Math.min(parameterSets.size(), MAX_LOGGED_PARAMETER_SETS))) {
+      StringJoiner values = new StringJoiner(", ", "[", "]");
+      for (ParameterSetOperation operation : parameters) {
+        values.add(value(operation));
+      }
+      joiner.add(values.toString());
+    }
+    if (parameterSets.size() > MAX_LOGGED_PARAMETER_SETS) {
+      joiner.add("... " + (parameterSets.size() - MAX_LOGGED_PARAMETER_SETS) + " more");
+    }
+    return joiner.toString();
+  }
+
+  private static String value(ParameterSetOperation operation) {
+    if (ParameterSetOperation.isSetNullParameterOperation(operation)) {
+      return "null";
+    }
+    Object[] args = operation.getArgs();
+    String value = args.length > 1 ? String.valueOf(args[1]) : "?";
+    return value.length() > MAX_LOGGED_VALUE_LENGTH
+        ? value.substring(0, MAX_LOGGED_VALUE_LENGTH) + "..."
+        : value;
+  }
+
+  private final class Listener implements QueryExecutionListener {
+
+    private final DataSource target;
+
+    Listener(DataSource target) {
+      this.target = target;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queries) {
+      execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queries) {
+      SlowQueryLog.this.afterQuery(target, execInfo, queries);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.regex.Pattern;
+
+/**
+ * The shape of a SQL statement, so executions that differ only in their values are counted
+ * together: literals become {@code ?}, an IN list of placeholders of any length becomes {@code
+ * (?...)} and whitespace is collapsed. Hibernate's leading comment, which names the query, is kept.
+ * Fingerprints are cached by statement text, since the same few statements run over and over.
+ */
+public final class SqlFingerprint {
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  // Digits only count as a literal when they aren't part of a name such as b1_0
+  private static final Pattern NUMBER_LITERAL =
+      Pattern.compile("(?<![\\w.$])-?\\d+(?:\\.\\d+)?\\b");
+  private static final Pattern PLACEHOLDER_LIST =
+      Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  // Bounded because statements with inlined literals are all different
+  private static final Cache<String, String> CACHE =
+      Caffeine.newBuilder().maximumSize(2_000).build();
+
+  private SqlFingerprint() {}
+
+  public static String of(String sql) {
+    return CACHE.get(sql, SqlFingerprint::compute);
+  }
+
+  private static String compute(String sql) {
+    String fingerprint = STRING_LITERAL.matcher(sql).replaceAll("?");
+    fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll("?");
+    fingerprint = WHITESPACE.matcher(fingerprint).replaceAll(" ").trim();
+    return PLACEHOLDER_LIST.matcher(fingerprint).replaceAll("(?...)");
+  }
+
+  // The name from a leading /* comment */, e.g. findByFilters; null if there is none
+  public static String label(String sql) {
+    String trimmed = sql.stripLeading();
+    if (!trimmed.startsWith("/*")) {
+      return null;
+    }
+    int end = trimmed.indexOf("*/");
+    return end < 0 ? null : trimmed.substring(2, end).trim();
+  }
+}
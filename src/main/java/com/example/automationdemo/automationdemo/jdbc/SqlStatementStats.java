@@ -0,0 +1,134 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Execution time per statement fingerprint ({@link SqlFingerprint}) since startup or the last
+ * {@link #reset()}. At most {@code maxFingerprints} fingerprints are tracked; statements of a new
+ * shape beyond that are not counted, so a stream of ad-hoc SQL can't grow it without bound.
+ */
+public class SqlStatementStats {
+
+  private static final Logger log = LoggerFactory.getLogger(SqlStatementStats.class);
+
+  private final int maxFingerprints;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicBoolean fullLogged = new AtomicBoolean();
+
+  public SqlStatementStats(int maxFingerprints) {
+    if (maxFingerprints < 1) {
+      throw new IllegalArgumentException("maxFingerprints must be at least 1");
+    }
+    this.maxFingerprints = maxFingerprints;
+  }
+
+  // How the top list is ordered
+  public enum Order {
+    TOTAL,
+    MEAN,
+    MAX;
+
+    // Lenient, for the order= parameter of the actuator endpoint
+    public static Order of(String value) {
+      try {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException ex) {
+        throw new IllegalArgumentException("order must be one of total, mean, max: " + value);
+      }
+    }
+  }
+
+  // One fingerprint's figures in milliseconds, with the last EXPLAIN plan sampled for it
+  public record Summary(
+      String fingerprint,
+      long count,
+      double totalMillis,
+      double meanMillis,
+      double maxMillis,
+      long slowCount,
+      Instant lastSlowAt,
+      String plan) {}
+
+  public void record(String fingerprint, long elapsedNanos, boolean slow) {
+    Entry entry = entries.get(fingerprint);
+    if (entry == null) {
+      if (entries.size() >= maxFingerprints) {
+        if (fullLogged.compareAndSet(false, true)) {
+          log.warn(
+              "Tracking the maximum of {} SQL fingerprints; new ones are not counted",
+              maxFingerprints);
+        }
+        return;
+      }
+      entry = entries.computeIfAbsent(fingerprint, key -> new Entry());
+    }
+    entry.add(elapsedNanos, slow);
+  }
+
+  // Keep the plan from a sampled EXPLAIN with the fingerprint it was taken for
+  public void recordPlan(String fingerprint, String plan) {
+    Entry entry = entries.get(fingerprint);
+    if (entry != null) {
+      entry.plan = plan;
+    }
+  }
+
+  public List<Summary> top(int limit, Order order) {
+    Comparator<Summary> comparator =
+        switch (order) {
+          case TOTAL -> Comparator.comparingDouble(Summary::totalMillis);
+          case MEAN -> Comparator.comparingDouble(Summary::meanMillis);
+          case MAX -> Comparator.comparingDouble(Summary::maxMillis);
+        };
+    return entries.entrySet().stream()
+        .map(e -> e.getValue().summary(e.getKey()))
+        .sorted(comparator.reversed())
+        .limit(limit)
+        .toList();
+  }
+
+  public void reset() {
+    entries.clear();
+    fullLogged.set(false);
+  }
+
+  private static final class Entry {
+
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+    private long slowCount;
+    private Instant lastSlowAt;
+    private volatile String plan;
+
+    synchronized void add(long elapsedNanos, boolean slow) {
+      count++;
+      totalNanos += elapsedNanos;
+      maxNanos = Math.max(maxNanos, elapsedNanos);
+      if (slow) {
+        slowCount++;
+        lastSlowAt = Instant.now();
+      }
+    }
+
+    synchronized Summary summary(String fingerprint) {
+      return new Summary(
+          fingerprint,
+          count,
+          totalNanos / 1_000_000.0,
+          count > 0 ? totalNanos / 1_000_000.0 / count : 0,
+          maxNanos / 1_000_000.0,
+          slowCount,
+          lastSlowAt,
+          plan);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+/**
+ * Number of JDBC statements, and the time spent in them, on the current thread since {@link
+ * #start}. {@link SlowQueryLog} adds each execution through a wrapped DataSource (a batch counts
+ * once: it is one round trip). Work handed to other threads, such as a streamed export, and R2DBC
+ * reads are not counted.
+ */
+public final class StatementTally {
+
+  private static final ThreadLocal<StatementTally> CURRENT = new ThreadLocal<>();
+
+  private int statements;
+  private long nanos;
+
+  private StatementTally() {}
+
+  // Start counting on this thread; replaces a tally already started
+  public static StatementTally start() {
+    StatementTally tally = new StatementTally();
+    CURRENT.set(tally);
+    return tally;
+  }
+
+  public static void stop() {
+    CURRENT.remove();
+  }
+
+  static void record(long elapsedNanos) {
+    StatementTally tally = CURRENT.get();
+    if (tally != null) {
+      tally.statements++;
+      tally.nanos += elapsedNanos;
+    }
+  }
+
+  public int statements() {
+    return statements;
+  }
+
+  public long nanos() {
+    return nanos;
+  }
+}
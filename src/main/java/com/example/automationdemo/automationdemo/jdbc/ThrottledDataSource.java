@@ -0,0 +1,114 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Lets at most {@code permits} callers hold a connection at once and queues the rest, first come
+ * first served, on a semaphore. Sized to the pool, this keeps thousands of virtual threads from all
+ * contending inside the pool itself; a permit is returned when the connection is closed.
+ */
+public class ThrottledDataSource extends DelegatingDataSource {
+
+  private final Semaphore permits;
+  private final int maxPermits;
+  private final long timeoutMillis;
+
+  public ThrottledDataSource(DataSource target, int permits, Duration timeout) {
+    super(target);
+    if (permits < 1) {
+      throw new IllegalArgumentException("permits must be at least 1");
+    }
+    this.permits = new Semaphore(permits, true);
+    this.maxPermits = permits;
+    this.timeoutMillis = timeout.toMillis();
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    acquire();
+    try {
+      return releasing(obtainTargetDataSource().getConnection());
+    } catch (SQLException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    acquire();
+    try {
+      return releasing(obtainTargetDataSource().getConnection(username, password));
+    } catch (SQLException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  // Number of permits, i.e. connections that can be checked out at once
+  public int getMaxPermits() {
+    return maxPermits;
+  }
+
+  // Callers currently holding a connection
+  public int getActive() {
+    return maxPermits - permits.availablePermits();
+  }
+
+  // Callers waiting for a permit
+  public int getWaiting() {
+    return permits.getQueueLength();
+  }
+
+  private void acquire() throws SQLException {
+    try {
+      if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new SQLTransientConnectionException(
+            "Timed out after "
+                + timeoutMillis
+                + "ms waiting for one of "
+                + maxPermits
+                + " database permits");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("Interrupted waiting for a database permit", ex);
+    }
+  }
+
+  // The same connection, returning the permit the first time it is closed
+  private Connection releasing(Connection connection) {
+    AtomicBoolean released = new AtomicBoolean();
+    return (Connection)
+        Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+              if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                try {
+                  connection.close();
+                } finally {
+                  if (released.compareAndSet(false, true)) {
+                    permits.release();
+                  }
+                }
+                return null;
+              }
+              try {
+                return method.invoke(connection, args);
+              } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+              }
+            });
+  }
+}
@@ -0,0 +1,96 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier (blocking inside a {@code synchronized}
+ * block or native frame) for longer than the threshold, using the JDK's {@code
+ * jdk.VirtualThreadPinned} JFR event. Each occurrence is logged with its stack and counted in
+ * {@code books.virtual-threads.pinned}, tagged {@code source=jdbc} when the stack runs through the
+ * driver, the pool or Hibernate.
+ */
+public class VirtualThreadPinningMonitor {
+
+  static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  // Packages of the blocking database path
+  private static final List<String> JDBC_PACKAGES =
+      List.of("org.postgresql.", "com.zaxxer.hikari.", "org.hibernate.", "java.sql.");
+
+  private static final int LOGGED_FRAMES = 12;
+
+  private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+  private final Duration threshold;
+  private final Counter jdbcPinned;
+  private final Counter otherPinned;
+  private RecordingStream stream;
+
+  public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry meterRegistry) {
+    this.threshold = threshold;
+    this.jdbcPinned = pinnedCounter(meterRegistry, "jdbc");
+    this.otherPinned = pinnedCounter(meterRegistry, "other");
+  }
+
+  @PostConstruct
+  void start() {
+    stream = new RecordingStream();
+    stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+    stream.onEvent(PINNED_EVENT, this::onPinned);
+    stream.startAsync();
+  }
+
+  @PreDestroy
+  void stop() {
+    if (stream != null) {
+      stream.close();
+    }
+  }
+
+  private void onPinned(RecordedEvent event) {
+    List<String> frames =
+        event.getStackTrace() == null
+            ? List.of()
+            : event.getStackTrace().getFrames().stream()
+                .map(VirtualThreadPinningMonitor::describe)
+                .collect(Collectors.toList());
+    boolean jdbc = isJdbcPath(frames);
+    (jdbc ? jdbcPinned : otherPinned).increment();
+    log.warn(
+        "Virtual thread pinned for {} ms{}:\n\t{}",
+        event.getDuration().toMillis(),
+        jdbc ? " in the JDBC path" : "",
+        frames.stream().limit(LOGGED_FRAMES).collect(Collectors.joining("\n\t")));
+  }
+
+  // True when any frame belongs to the driver, the connection pool or Hibernate
+  static boolean isJdbcPath(List<String> frames) {
+    return frames.stream().anyMatch(frame -> JDBC_PACKAGES.stream().anyMatch(frame::startsWith));
+  }
+
+  private static String describe(RecordedFrame frame) {
+    return frame.getMethod().getType().getName()
+        + "."
+        + frame.getMethod().getName()
+        + ":"
+        + frame.getLineNumber();
+  }
+
+  private static Counter pinnedCounter(MeterRegistry meterRegistry, String source) {
+    return Counter.builder("books.virtual-threads.pinned")
+        .description("Virtual threads pinned to their carrier for longer than the threshold")
+        .tag("source", source)
+        .register(meterRegistry);
+  }
+}
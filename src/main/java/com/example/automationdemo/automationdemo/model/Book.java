@@ -1,8 +1,13 @@
 package com.example.automationdemo.automationdemo.model;
 
 import jakarta.persistence.*;
+import java.time.Instant;
 import java.time.LocalDate;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 
 @Entity
 @Table(name = "books")
@@ -13,10 +18,19 @@ import lombok.*;
 @Builder
 @ToString(of = {"id", "title", "author", "genre", "isbn"})
 @EqualsAndHashCode(of = "id")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
+// UPDATEs set only the columns that changed, so a one-field patch doesn't rewrite the description
+@DynamicUpdate
 public class Book {
 
+  // Second-level cache region for books (see HibernateCacheConfig)
+  public static final String CACHE_REGION = "books";
+
+  // Ids are allocated from the sequence in blocks (see V4 migration) so inserts can be batched,
+  // which IDENTITY columns prevent
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_id_seq")
+  @SequenceGenerator(name = "books_id_seq", sequenceName = "books_id_seq", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false)
@@ -40,6 +54,14 @@ public class Book {
   @Column(columnDefinition = "TEXT")
   private String description;
 
+  // Bumped on every update; doubles as the strong ETag of the book
+  @Version private Long version;
+
+  // Last-Modified of the book, set on insert and update
+  @UpdateTimestamp
+  @Column(name = "updated_at")
+  private Instant updatedAt;
+
   // Constructor with required fields
   public Book(String title, String author, String genre) {
     this.title = title;
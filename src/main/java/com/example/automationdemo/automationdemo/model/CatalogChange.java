@@ -0,0 +1,28 @@
+package com.example.automationdemo.automationdemo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+// One or more changes to the books table, inserted by a trigger; the catalog version is the sum of
+// their weights (see V8 migration)
+@Entity
+@Table(name = "catalog_changes")
+@Immutable
+@Getter
+@NoArgsConstructor
+public class CatalogChange {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false)
+  private Long weight;
+}
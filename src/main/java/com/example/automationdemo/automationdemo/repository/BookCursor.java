@@ -0,0 +1,51 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import com.example.automationdemo.automationdemo.model.Book;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last book returned on a page, i.e. the sort key of that row. Clients only ever
+ * see the opaque {@link #encode() encoded} form.
+ */
+public record BookCursor(BookSort sort, Long id, String title) {
+
+  private static final char SEPARATOR = ':';
+
+  // Cursor pointing just after the given book in the given sort order
+  public static BookCursor after(Book book, BookSort sort) {
+    return new BookCursor(sort, book.getId(), sort == BookSort.TITLE ? book.getTitle() : null);
+  }
+
+  // Cursor pointing just after the given row in the given sort order
+  public static BookCursor after(BookProjection book, BookSort sort) {
+    return new BookCursor(sort, book.id(), sort == BookSort.TITLE ? book.title() : null);
+  }
+
+  // Opaque, URL-safe token, e.g. "i:42" or "t:42:Dune" before encoding
+  public String encode() {
+    String raw =
+        sort == BookSort.TITLE ? "t" + SEPARATOR + id + SEPARATOR + title : "i" + SEPARATOR + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  // Parse a token produced by encode()
+  public static BookCursor decode(String token) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int idEnd = raw.indexOf(SEPARATOR, 2);
+      if (raw.startsWith("i:")) {
+        return new BookCursor(BookSort.ID, Long.valueOf(raw.substring(2)), null);
+      }
+      if (raw.startsWith("t:") && idEnd > 2) {
+        return new BookCursor(
+            BookSort.TITLE, Long.valueOf(raw.substring(2, idEnd)), raw.substring(idEnd + 1));
+      }
+    } catch (IllegalArgumentException ex) {
+      // Fall through to the generic error below
+    }
+    throw new IllegalArgumentException("Invalid cursor: " + token);
+  }
+}
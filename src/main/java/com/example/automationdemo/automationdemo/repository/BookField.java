@@ -0,0 +1,60 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Book fields that can be requested with {@code fields=}. The names are both the entity attribute
+ * and the JSON property, so a projection selects exactly the columns it serializes.
+ */
+public enum BookField {
+  ID("id"),
+  TITLE("title"),
+  AUTHOR("author"),
+  GENRE("genre"),
+  PUBLISHER("publisher"),
+  ISBN("isbn"),
+  PUBLICATION_DATE("publicationDate"),
+  DESCRIPTION("description");
+
+  // List views leave out the description, which is a TEXT column and usually the bulk of a row
+  public static final Set<BookField> LIST_DEFAULT =
+      Collections.unmodifiableSet(EnumSet.complementOf(EnumSet.of(DESCRIPTION)));
+
+  private static final Map<String, BookField> BY_NAME =
+      Arrays.stream(values())
+          .collect(Collectors.toMap(f -> f.name.toLowerCase(Locale.ROOT), Function.identity()));
+
+  private final String name;
+
+  BookField(String name) {
+    this.name = name;
+  }
+
+  // Attribute / property name, e.g. "publicationDate"
+  public String fieldName() {
+    return name;
+  }
+
+  // Parse a comma-separated fields parameter; the id is always included
+  public static Set<BookField> fromParameter(String value) {
+    if (value == null || value.isBlank()) {
+      return EnumSet.copyOf(LIST_DEFAULT);
+    }
+    Set<BookField> fields = EnumSet.of(ID);
+    for (String name : value.split(",")) {
+      BookField field = BY_NAME.get(name.trim().toLowerCase(Locale.ROOT));
+      if (field == null) {
+        throw new IllegalArgumentException("Unsupported field: " + name.trim());
+      }
+      fields.add(field);
+    }
+    return fields;
+  }
+}
@@ -0,0 +1,15 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import java.util.Map;
+
+/** The selected columns of one book row, keyed by field. */
+public record BookProjection(Map<BookField, Object> values) {
+
+  public Long id() {
+    return (Long) values.get(BookField.ID);
+  }
+
+  public String title() {
+    return (String) values.get(BookField.TITLE);
+  }
+}
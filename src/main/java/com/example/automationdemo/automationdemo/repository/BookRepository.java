@@ -1,43 +1,81 @@
 package com.example.automationdemo.automationdemo.repository;
 
 import com.example.automationdemo.automationdemo.model.Book;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 
-  // Find book by ISBN
+  // Query cache region for book lookups (see HibernateCacheConfig)
+  String QUERY_CACHE_REGION = "books-queries";
+
+  // Find book by ISBN; the result is kept in the query cache until the books table changes
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+  })
   Optional<Book> findByIsbn(String isbn);
 
+  // Find the books with any of the given ISBNs, using a single query
+  List<Book> findByIsbnIn(Collection<String> isbns);
+
+  // Return which of the given ISBNs are already taken, using a single query
+  @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+  List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+  // The substring searches below compare LOWER(column) so PostgreSQL can answer them from the
+  // trigram indexes on LOWER(column) (see V5 migration) instead of scanning the whole table
+
   // Find books by title containing the given string (case-insensitive)
-  List<Book> findByTitleContainingIgnoreCase(String title);
+  @Query("SELECT b FROM Book b WHERE LOWER(b.title) LIKE LOWER(CONCAT('%', :title, '%'))")
+  List<Book> findByTitleContainingIgnoreCase(@Param("title") String title);
 
   // Find books by author containing the given string (case-insensitive)
-  List<Book> findByAuthorContainingIgnoreCase(String author);
+  @Query("SELECT b FROM Book b WHERE LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))")
+  List<Book> findByAuthorContainingIgnoreCase(@Param("author") String author);
 
   // Find books by genre containing the given string (case-insensitive)
-  List<Book> findByGenreContainingIgnoreCase(String genre);
+  @Query("SELECT b FROM Book b WHERE LOWER(b.genre) LIKE LOWER(CONCAT('%', :genre, '%'))")
+  List<Book> findByGenreContainingIgnoreCase(@Param("genre") String genre);
 
   // Find books by publisher containing the given string (case-insensitive)
-  List<Book> findByPublisherContainingIgnoreCase(String publisher);
-
-  // Custom query to search by multiple fields
-  @Query(
-      "SELECT b FROM Book b WHERE "
-          + "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND "
-          + "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))) AND "
-          + "(:genre IS NULL OR LOWER(b.genre) LIKE LOWER(CONCAT('%', :genre, '%'))) AND "
-          + "(:publisher IS NULL OR LOWER(b.publisher) LIKE LOWER(CONCAT('%', :publisher, '%'))) AND "
-          + "(:isbn IS NULL OR b.isbn = :isbn)")
-  List<Book> findByFilters(
-      @Param("title") String title,
-      @Param("author") String author,
-      @Param("genre") String genre,
-      @Param("publisher") String publisher,
-      @Param("isbn") String isbn);
+  @Query("SELECT b FROM Book b WHERE LOWER(b.publisher) LIKE LOWER(CONCAT('%', :publisher, '%'))")
+  List<Book> findByPublisherContainingIgnoreCase(@Param("publisher") String publisher);
+
+  // Stream every book in id order. Must be consumed inside a transaction; the fetch size makes the
+  // JDBC driver use a cursor instead of buffering the whole result set, and read-only entities
+  // skip Hibernate's dirty-checking snapshots.
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT b FROM Book b ORDER BY b.id")
+  Stream<Book> streamAllBy();
+
+  // Stream every ISBN in the catalog, e.g. to load the IsbnFilter. Must be consumed inside a
+  // transaction.
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("SELECT b.isbn FROM Book b WHERE b.isbn IS NOT NULL")
+  Stream<String> streamAllIsbns();
+
+  // Delete one book with a single statement; returns the number of rows deleted (0 or 1)
+  @Modifying
+  @Query("DELETE FROM Book b WHERE b.id = :id")
+  int deleteBookById(@Param("id") Long id);
+
+  // Delete all the listed books with a single statement; returns the number of rows deleted
+  @Modifying
+  @Query("DELETE FROM Book b WHERE b.id IN :ids")
+  int deleteBooksByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,35 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import com.example.automationdemo.automationdemo.model.Book;
+import java.util.List;
+import java.util.Set;
+
+/** Queries that are built dynamically and therefore can't be expressed as a single @Query. */
+public interface BookRepositoryCustom {
+
+  /**
+   * Search by multiple fields. Only the filters that are set end up in the SQL, each as a single
+   * index-friendly predicate, so PostgreSQL can combine the trigram indexes with a bitmap AND.
+   */
+  List<Book> findByFilters(
+      String title, String author, String genre, String publisher, String isbn);
+
+  /**
+   * Find up to {@code limit} books matching the criteria (all of them when it is {@code null}),
+   * ordered by {@code sort} and starting strictly after {@code after} (or from the beginning when
+   * it is {@code null}). Uses a keyset predicate instead of OFFSET so every page costs the same
+   * regardless of its depth. Only the requested fields, plus the sort key, are selected.
+   */
+  List<BookProjection> findPage(
+      BookSearchCriteria criteria,
+      BookSort sort,
+      BookCursor after,
+      Integer limit,
+      Set<BookField> fields);
+
+  /**
+   * Delete every book matching the criteria with a single DELETE and return the number deleted. At
+   * least one filter must be set, so an empty criteria can't wipe the catalog.
+   */
+  int deleteByFilters(BookSearchCriteria criteria);
+}
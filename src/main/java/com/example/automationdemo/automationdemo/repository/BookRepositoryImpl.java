@@ -0,0 +1,152 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import com.example.automationdemo.automationdemo.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.hibernate.jpa.HibernateHints;
+
+class BookRepositoryImpl implements BookRepositoryCustom {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Override
+  public List<Book> findByFilters(
+      String title, String author, String genre, String publisher, String isbn) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Book> query = cb.createQuery(Book.class);
+    Root<Book> book = query.from(Book.class);
+
+    BookSearchCriteria criteria = new BookSearchCriteria(title, author, genre, publisher, isbn);
+    List<Predicate> predicates = filterPredicates(cb, book, criteria);
+    query.select(book).where(predicates.toArray(new Predicate[0]));
+    // Named in the SQL comment, which the slow-query log uses to pick the statements it EXPLAINs
+    TypedQuery<Book> typedQuery =
+        entityManager.createQuery(query).setHint(HibernateHints.HINT_COMMENT, "findByFilters");
+    // Single-filter searches (by author, genre, ...) are the ones that repeat, so only they go to
+    // the query cache; combined filters would mostly fill it with one-off entries
+    if (predicates.size() == 1) {
+      typedQuery
+          .setHint(HibernateHints.HINT_CACHEABLE, true)
+          .setHint(HibernateHints.HINT_CACHE_REGION, BookRepository.QUERY_CACHE_REGION);
+    }
+    return typedQuery.getResultList();
+  }
+
+  @Override
+  public List<BookProjection> findPage(
+      BookSearchCriteria criteria,
+      BookSort sort,
+      BookCursor after,
+      Integer limit,
+      Set<BookField> fields) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = cb.createTupleQuery();
+    Root<Book> book = query.from(Book.class);
+
+    List<Predicate> predicates = filterPredicates(cb, book, criteria);
+    boolean singleFilter = predicates.size() == 1;
+    Path<Long> id = book.get("id");
+    Path<String> title = book.get("title");
+
+    // Select the requested columns plus the sort key, which the next cursor is built from
+    Set<BookField> columns = EnumSet.of(BookField.ID);
+    columns.addAll(fields);
+
+    if (sort == BookSort.TITLE) {
+      columns.add(BookField.TITLE);
+      if (after != null) {
+        // title >= :t narrows the (title, id) index range; the OR handles ties on title
+        predicates.add(cb.greaterThanOrEqualTo(title, after.title()));
+        predicates.add(cb.or(cb.greaterThan(title, after.title()), cb.greaterThan(id, after.id())));
+      }
+      query.orderBy(cb.asc(title), cb.asc(id));
+    } else {
+      if (after != null) {
+        predicates.add(cb.greaterThan(id, after.id()));
+      }
+      query.orderBy(cb.asc(id));
+    }
+
+    List<Selection<?>> selections = new ArrayList<>();
+    for (BookField column : columns) {
+      selections.add(book.get(column.fieldName()).alias(column.fieldName()));
+    }
+    query.multiselect(selections).where(predicates.toArray(new Predicate[0]));
+
+    // Named for the slow-query log's EXPLAIN sampling, like findByFilters
+    TypedQuery<Tuple> typedQuery =
+        entityManager.createQuery(query).setHint(HibernateHints.HINT_COMMENT, "findPage");
+    if (limit != null) {
+      typedQuery.setMaxResults(limit);
+    }
+    // Same rule as findByFilters: the first page of a single-filter search is the one that repeats
+    if (after == null && singleFilter) {
+      typedQuery
+          .setHint(HibernateHints.HINT_CACHEABLE, true)
+          .setHint(HibernateHints.HINT_CACHE_REGION, BookRepository.QUERY_CACHE_REGION);
+    }
+
+    List<BookProjection> rows = new ArrayList<>();
+    for (Tuple tuple : typedQuery.getResultList()) {
+      Map<BookField, Object> values = new EnumMap<>(BookField.class);
+      for (BookField column : columns) {
+        values.put(column, tuple.get(column.fieldName()));
+      }
+      rows.add(new BookProjection(values));
+    }
+    return rows;
+  }
+
+  @Override
+  public int deleteByFilters(BookSearchCriteria criteria) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaDelete<Book> delete = cb.createCriteriaDelete(Book.class);
+    Root<Book> book = delete.from(Book.class);
+
+    List<Predicate> predicates = filterPredicates(cb, book, criteria);
+    if (predicates.isEmpty()) {
+      throw new IllegalArgumentException("A bulk delete needs at least one filter");
+    }
+    delete.where(predicates.toArray(new Predicate[0]));
+    return entityManager.createQuery(delete).executeUpdate();
+  }
+
+  // Only add a predicate for filters that are actually set. "(:x IS NULL OR ...)" would stop
+  // PostgreSQL from using the trigram indexes once the statement switches to a generic plan.
+  private List<Predicate> filterPredicates(
+      CriteriaBuilder cb, Root<Book> book, BookSearchCriteria criteria) {
+    List<Predicate> predicates = new ArrayList<>();
+    addContains(cb, book.get("title"), criteria.title(), predicates);
+    addContains(cb, book.get("author"), criteria.author(), predicates);
+    addContains(cb, book.get("genre"), criteria.genre(), predicates);
+    addContains(cb, book.get("publisher"), criteria.publisher(), predicates);
+    if (criteria.isbn() != null) {
+      predicates.add(cb.equal(book.get("isbn"), criteria.isbn()));
+    }
+    return predicates;
+  }
+
+  // LOWER(column) LIKE '%value%', matching the LOWER(column) gin_trgm_ops indexes
+  private void addContains(
+      CriteriaBuilder cb, Path<String> column, String value, List<Predicate> predicates) {
+    if (value != null) {
+      predicates.add(cb.like(cb.lower(column), "%" + value.toLowerCase(Locale.ROOT) + "%"));
+    }
+  }
+}
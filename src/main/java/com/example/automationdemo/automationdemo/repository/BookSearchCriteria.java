@@ -0,0 +1,14 @@
+package com.example.automationdemo.automationdemo.repository;
+
+/**
+ * Optional filters applied to book listings. A {@code null} value means the filter is not applied;
+ * text filters match case-insensitive substrings and {@code isbn} must match exactly.
+ */
+public record BookSearchCriteria(
+    String title, String author, String genre, String publisher, String isbn) {
+
+  // Criteria that matches every book
+  public static BookSearchCriteria none() {
+    return new BookSearchCriteria(null, null, null, null, null);
+  }
+}
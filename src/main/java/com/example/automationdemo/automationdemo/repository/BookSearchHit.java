@@ -0,0 +1,6 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import com.example.automationdemo.automationdemo.model.Book;
+
+/** A full-text search match: the book, its relevance and, when requested, a highlighted excerpt. */
+public record BookSearchHit(Book book, double rank, String snippet) {}
@@ -0,0 +1,24 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import java.util.Locale;
+
+/**
+ * Sort orders supported by keyset pagination. Every order ends with the primary key so the sort key
+ * is unique and a cursor always points at exactly one position.
+ */
+public enum BookSort {
+  ID,
+  TITLE;
+
+  // Parse a request parameter such as "id" or "title"
+  public static BookSort fromParameter(String value) {
+    if (value == null || value.isBlank()) {
+      return ID;
+    }
+    try {
+      return BookSort.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException("Unsupported sort: " + value);
+    }
+  }
+}
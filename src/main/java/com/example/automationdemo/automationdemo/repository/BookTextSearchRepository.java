@@ -0,0 +1,16 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import java.util.List;
+
+/**
+ * Full-text search over title, author and description. The PostgreSQL implementation uses the
+ * indexed {@code search_vector} column; databases without it fall back to substring matching.
+ */
+public interface BookTextSearchRepository {
+
+  /**
+   * Return up to {@code limit} matches for a web-style query ("quoted phrases", -exclusions, or),
+   * best match first, skipping the first {@code offset}.
+   */
+  List<BookSearchHit> search(String query, boolean highlight, int limit, int offset);
+}
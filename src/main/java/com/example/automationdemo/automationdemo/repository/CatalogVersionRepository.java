@@ -0,0 +1,29 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import com.example.automationdemo.automationdemo.model.CatalogChange;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface CatalogVersionRepository extends Repository<CatalogChange, Long> {
+
+  // Current catalog version; empty where the change rows aren't maintained (e.g. H2). Never
+  // query-cached, because the trigger inserts them behind Hibernate's back.
+  @Query("SELECT SUM(c.weight) FROM CatalogChange c")
+  Optional<Long> findCurrentVersion();
+
+  // Fold the committed change rows into one with their total weight, leaving the version as it is.
+  // Rows committed meanwhile aren't in the DELETE's snapshot and stay for the next run. Returns the
+  // number of rows inserted: 0 when there were none.
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "WITH folded AS (DELETE FROM catalog_changes RETURNING weight) "
+              + "INSERT INTO catalog_changes (weight) "
+              + "SELECT sum(weight) FROM folded HAVING count(*) > 0",
+      nativeQuery = true)
+  int compact();
+}
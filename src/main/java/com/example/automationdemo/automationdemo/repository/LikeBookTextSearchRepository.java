@@ -0,0 +1,39 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import com.example.automationdemo.automationdemo.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Fallback for databases without PostgreSQL full-text search (the H2 test profile). Matches the
+ * whole query as a substring of title, author or description; results are unranked and have no
+ * snippets.
+ */
+@Repository
+@ConditionalOnProperty(name = "books.search.full-text", havingValue = "like")
+public class LikeBookTextSearchRepository implements BookTextSearchRepository {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Override
+  public List<BookSearchHit> search(String query, boolean highlight, int limit, int offset) {
+    String pattern = "%" + query.toLowerCase(Locale.ROOT) + "%";
+    return entityManager
+        .createQuery(
+            "SELECT b FROM Book b WHERE LOWER(b.title) LIKE :pattern"
+                + " OR LOWER(b.author) LIKE :pattern OR LOWER(b.description) LIKE :pattern"
+                + " ORDER BY b.id",
+            Book.class)
+        .setParameter("pattern", pattern)
+        .setFirstResult(offset)
+        .setMaxResults(limit)
+        .getResultList()
+        .stream()
+        .map(book -> new BookSearchHit(book, 0, null))
+        .toList();
+  }
+}
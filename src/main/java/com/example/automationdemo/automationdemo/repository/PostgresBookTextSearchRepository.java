@@ -0,0 +1,84 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import com.example.automationdemo.automationdemo.model.Book;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.util.HtmlUtils;
+
+/** Ranked search on the GIN-indexed {@code search_vector} column (see V6 migration). */
+@Repository
+@ConditionalOnProperty(
+    name = "books.search.full-text",
+    havingValue = "postgres",
+    matchIfMissing = true)
+public class PostgresBookTextSearchRepository implements BookTextSearchRepository {
+
+  // The page is selected first so ts_headline, which re-parses the text, only runs for its rows
+  private static final String SEARCH_SQL =
+      "SELECT page.*, %s AS snippet FROM ("
+          + " SELECT b.id, b.title, b.author, b.genre, b.publisher, b.isbn, b.publication_date,"
+          + " b.description, ts_rank(b.search_vector, q) AS rank"
+          + " FROM books b, websearch_to_tsquery('english', :query) q"
+          + " WHERE b.search_vector @@ q"
+          + " ORDER BY rank DESC, b.id"
+          + " LIMIT :limit OFFSET :offset) page"
+          + " ORDER BY page.rank DESC, page.id";
+
+  // ts_headline returns the stored text as is, so matches are marked with private-use characters
+  // (stripped from the text first) and only turned into <b> tags once the text has been escaped
+  private static final String START_SEL = "\uE000";
+  private static final String STOP_SEL = "\uE001";
+
+  private static final String HEADLINE =
+      "ts_headline('english',"
+          + " translate(coalesce(page.description, page.title), :markers, ''),"
+          + " websearch_to_tsquery('english', :query),"
+          + " 'StartSel="
+          + START_SEL
+          + ", StopSel="
+          + STOP_SEL
+          + ", MaxWords=30, MinWords=10, MaxFragments=2')";
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  public PostgresBookTextSearchRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public List<BookSearchHit> search(String query, boolean highlight, int limit, int offset) {
+    MapSqlParameterSource params =
+        new MapSqlParameterSource()
+            .addValue("query", query)
+            .addValue("limit", limit)
+            .addValue("offset", offset)
+            .addValue("markers", START_SEL + STOP_SEL);
+    String sql = String.format(SEARCH_SQL, highlight ? HEADLINE : "NULL");
+    return jdbcTemplate.query(sql, params, (rs, rowNum) -> toHit(rs));
+  }
+
+  private BookSearchHit toHit(ResultSet rs) throws SQLException {
+    Book book = new Book(rs.getString("title"), rs.getString("author"), rs.getString("genre"));
+    book.setId(rs.getLong("id"));
+    book.setPublisher(rs.getString("publisher"));
+    book.setIsbn(rs.getString("isbn"));
+    Date publicationDate = rs.getDate("publication_date");
+    book.setPublicationDate(publicationDate != null ? publicationDate.toLocalDate() : null);
+    book.setDescription(rs.getString("description"));
+    return new BookSearchHit(book, rs.getDouble("rank"), toHtml(rs.getString("snippet")));
+  }
+
+  // Escape the excerpt, then mark the matches
+  static String toHtml(String headline) {
+    if (headline == null) {
+      return null;
+    }
+    return HtmlUtils.htmlEscape(headline).replace(START_SEL, "<b>").replace(STOP_SEL, "</b>");
+  }
+}
@@ -0,0 +1,107 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import io.r2dbc.spi.Readable;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking reads of the {@code books} table over R2DBC, used by the v2 API. Writes still go
+ * through JPA, so this repository only ever selects.
+ */
+@Repository
+public class ReactiveBookRepository {
+
+  private static final String SELECT_BOOK =
+      "SELECT id, title, author, genre, publisher, isbn, publication_date, description,"
+          + " version, updated_at FROM books";
+
+  private final DatabaseClient databaseClient;
+
+  public ReactiveBookRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  // Find a book by id; empty when there is none
+  public Mono<BookDTO> findById(Long id) {
+    return databaseClient
+        .sql(SELECT_BOOK + " WHERE id = :id")
+        .bind("id", id)
+        .map(ReactiveBookRepository::toBook)
+        .one();
+  }
+
+  // Find a book by ISBN; empty when there is none
+  public Mono<BookDTO> findByIsbn(String isbn) {
+    return databaseClient
+        .sql(SELECT_BOOK + " WHERE isbn = :isbn")
+        .bind("isbn", isbn)
+        .map(ReactiveBookRepository::toBook)
+        .one();
+  }
+
+  // Books matching every set filter with an id after afterId (if given), ordered by id. Filters
+  // use the same LOWER(col) LIKE form as the JPA queries so the trigram indexes apply.
+  public Flux<BookDTO> search(BookSearchCriteria criteria, Long afterId, int limit) {
+    List<String> conditions = new ArrayList<>();
+    Map<String, Object> params = new LinkedHashMap<>();
+    addContains(conditions, params, "title", criteria.title());
+    addContains(conditions, params, "author", criteria.author());
+    addContains(conditions, params, "genre", criteria.genre());
+    addContains(conditions, params, "publisher", criteria.publisher());
+    if (criteria.isbn() != null) {
+      conditions.add("isbn = :isbn");
+      params.put("isbn", criteria.isbn());
+    }
+    if (afterId != null) {
+      conditions.add("id > :afterId");
+      params.put("afterId", afterId);
+    }
+    params.put("limit", limit);
+
+    String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    GenericExecuteSpec spec =
+        databaseClient.sql(SELECT_BOOK + where + " ORDER BY id LIMIT :limit").bindValues(params);
+    return spec.map(ReactiveBookRepository::toBook).all();
+  }
+
+  // The whole catalog in id order, emitted row by row as the driver receives them
+  public Flux<BookDTO> streamAll() {
+    return databaseClient
+        .sql(SELECT_BOOK + " ORDER BY id")
+        .map(ReactiveBookRepository::toBook)
+        .all();
+  }
+
+  private static void addContains(
+      List<String> conditions, Map<String, Object> params, String column, String value) {
+    if (value != null) {
+      conditions.add("LOWER(" + column + ") LIKE LOWER(:" + column + ")");
+      params.put(column, "%" + value + "%");
+    }
+  }
+
+  private static BookDTO toBook(Readable row) {
+    return BookDTO.builder()
+        .id(row.get("id", Long.class))
+        .title(row.get("title", String.class))
+        .author(row.get("author", String.class))
+        .genre(row.get("genre", String.class))
+        .publisher(row.get("publisher", String.class))
+        .isbn(row.get("isbn", String.class))
+        .publicationDate(row.get("publication_date", LocalDate.class))
+        .description(row.get("description", String.class))
+        .version(row.get("version", Long.class))
+        .updatedAt(row.get("updated_at", Instant.class))
+        .build();
+  }
+}
@@ -0,0 +1,202 @@
+package com.example.automationdemo.automationdemo.service;
+
+import com.example.automationdemo.automationdemo.cache.IsbnFilter;
+import com.example.automationdemo.automationdemo.dto.BookBatchResult;
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.model.Book;
+import com.example.automationdemo.automationdemo.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk creation of books. Duplicate ISBNs are found with one set-based query and the inserts are
+ * flushed in JDBC batches of {@code books.batch.size}, so N books cost roughly N / batchSize round
+ * trips instead of 2N. With the {@link IsbnFilter} enabled, only ISBNs the filter might contain are
+ * looked up, and a batch of new ISBNs skips the query altogether. The filter only knows the ISBNs
+ * this instance has seen, so when an insert hits one taken elsewhere, the batch is rolled back and
+ * redone with every ISBN looked up, which rejects that book alone.
+ */
+@Service
+public class BookBatchService {
+
+  // Upper bound on the number of books accepted in one request
+  public static final int MAX_BATCH_ITEMS = 5_000;
+
+  // Lengths of the text columns (V1 migration)
+  static final int MAX_ISBN_LENGTH = 20;
+  static final int MAX_TEXT_LENGTH = 255;
+  static final int MAX_GENRE_LENGTH = 100;
+
+  // Tries of a batch that keeps hitting ISBNs taken after its lookup
+  private static final int MAX_ATTEMPTS = 3;
+
+  private final BookRepository bookRepository;
+  private final EntityManager entityManager;
+  private final int batchSize;
+  private final IsbnFilter isbnFilter;
+  private final TransactionTemplate transactionTemplate;
+
+  @Autowired
+  public BookBatchService(
+      BookRepository bookRepository,
+      EntityManager entityManager,
+      @Value("${books.batch.size:50}") int batchSize,
+      IsbnFilter isbnFilter,
+      PlatformTransactionManager transactionManager) {
+    this.bookRepository = bookRepository;
+    this.entityManager = entityManager;
+    this.batchSize = batchSize;
+    this.isbnFilter = isbnFilter;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  // Fill the ISBN filter from the catalog once the application is up
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void loadIsbnFilter() {
+    if (isbnFilter.isEnabled()) {
+      try (Stream<String> isbns = bookRepository.streamAllIsbns()) {
+        isbnFilter.load(isbns);
+      }
+    }
+  }
+
+  // Create all valid books in one transaction; returns one result per item in request order
+  public List<BookBatchResult> createBooks(List<BookDTO> bookDTOs) {
+    if (bookDTOs.size() > MAX_BATCH_ITEMS) {
+      throw new IllegalArgumentException(
+          "A batch may contain at most " + MAX_BATCH_ITEMS + " books");
+    }
+
+    for (int attempt = 1; ; attempt++) {
+      boolean trustFilter = attempt == 1;
+      try {
+        return transactionTemplate.execute(status -> create(bookDTOs, trustFilter));
+      } catch (IsbnTakenException ex) {
+        if (attempt == MAX_ATTEMPTS) {
+          throw new IllegalArgumentException(ex.getMessage());
+        }
+        // Taken on another instance or since the lookup; the retry looks every ISBN up
+      }
+    }
+  }
+
+  private List<BookBatchResult> create(List<BookDTO> bookDTOs, boolean trustFilter) {
+    // Check every ISBN in the request that might be taken with a single query
+    Set<String> requestedIsbns = new HashSet<>();
+    for (BookDTO bookDTO : bookDTOs) {
+      if (hasIsbn(bookDTO) && (!trustFilter || isbnFilter.mightContain(bookDTO.getIsbn()))) {
+        requestedIsbns.add(bookDTO.getIsbn());
+      }
+    }
+    Set<String> takenIsbns =
+        requestedIsbns.isEmpty()
+            ? new HashSet<>()
+            : new HashSet<>(bookRepository.findExistingIsbns(requestedIsbns));
+
+    List<BookBatchResult> results = new ArrayList<>(bookDTOs.size());
+    int pending = 0;
+    for (int i = 0; i < bookDTOs.size(); i++) {
+      BookDTO bookDTO = bookDTOs.get(i);
+      String problem = validate(bookDTO, takenIsbns);
+      if (problem != null) {
+        results.add(BookBatchResult.rejected(i, problem));
+        continue;
+      }
+      if (hasIsbn(bookDTO)) {
+        // Later items in the same request may not reuse this ISBN
+        takenIsbns.add(bookDTO.getIsbn());
+        isbnFilter.put(bookDTO.getIsbn());
+      }
+
+      // The pooled sequence assigns the id on persist, so the result is complete already
+      Book book = bookDTO.toEntity();
+      book.setId(null);
+      entityManager.persist(book);
+      results.add(BookBatchResult.created(i, new BookDTO(book)));
+
+      if (++pending == batchSize) {
+        flushBatch();
+        pending = 0;
+      }
+    }
+    flushBatch();
+    return results;
+  }
+
+  // Send the queued inserts as one JDBC batch and drop them from the persistence context. An ISBN
+  // taken since the lookup (or missed by the filter) rolls back the attempt.
+  private void flushBatch() {
+    try {
+      entityManager.flush();
+    } catch (PersistenceException ex) {
+      if (UniqueViolations.isUniqueViolation(ex)) {
+        throw new IsbnTakenException();
+      }
+      throw ex;
+    }
+    entityManager.clear();
+  }
+
+  // An insert hit the unique ISBN constraint
+  private static final class IsbnTakenException extends RuntimeException {
+    IsbnTakenException() {
+      super("A book in the batch has an ISBN that already exists");
+    }
+  }
+
+  // Return why the book can't be created, or null when it can
+  private String validate(BookDTO bookDTO, Set<String> takenIsbns) {
+    if (bookDTO == null) {
+      return "Book must not be null";
+    }
+    if (isBlank(bookDTO.getTitle())
+        || isBlank(bookDTO.getAuthor())
+        || isBlank(bookDTO.getGenre())) {
+      return "Title, author and genre are required";
+    }
+    // Longer values would fail the whole insert batch rather than just this book
+    if (bookDTO.getTitle().length() > MAX_TEXT_LENGTH) {
+      return "Title must be at most " + MAX_TEXT_LENGTH + " characters";
+    }
+    if (bookDTO.getAuthor().length() > MAX_TEXT_LENGTH) {
+      return "Author must be at most " + MAX_TEXT_LENGTH + " characters";
+    }
+    if (bookDTO.getGenre().length() > MAX_GENRE_LENGTH) {
+      return "Genre must be at most " + MAX_GENRE_LENGTH + " characters";
+    }
+    if (bookDTO.getPublisher() != null && bookDTO.getPublisher().length() > MAX_TEXT_LENGTH) {
+      return "Publisher must be at most " + MAX_TEXT_LENGTH + " characters";
+    }
+    if (hasIsbn(bookDTO)) {
+      if (bookDTO.getIsbn().length() > MAX_ISBN_LENGTH) {
+        return "ISBN must be at most " + MAX_ISBN_LENGTH + " characters";
+      }
+      if (takenIsbns.contains(bookDTO.getIsbn())) {
+        return "Book with ISBN " + bookDTO.getIsbn() + " already exists";
+      }
+    }
+    return null;
+  }
+
+  private static boolean hasIsbn(BookDTO bookDTO) {
+    return bookDTO != null && bookDTO.getIsbn() != null && !bookDTO.getIsbn().isEmpty();
+  }
+
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
+  }
+}
@@ -0,0 +1,355 @@
+package com.example.automationdemo.automationdemo.service;
+
+import com.example.automationdemo.automationdemo.dto.BookBatchResult;
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.dto.IngestTicketStatus;
+import com.example.automationdemo.automationdemo.exception.IngestQueueFullException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Write-behind ingestion. Accepted books are logged to an append-only file ({@link IngestLog}) and
+ * queued in memory; a single background writer drains the queue in batches of {@code
+ * books.ingest.batch-size}, each created through {@link BookBatchService} in its own transaction
+ * with the same validation as a synchronous batch. The queue holds at most {@code
+ * books.ingest.queue-capacity} books; a request that doesn't fit is turned away rather than
+ * blocked.
+ *
+ * <p>Delivery is at least once: a batch committed just before a crash, but not yet marked finished
+ * in the log, is written again on restart, where books with an ISBN are rejected as duplicates.
+ */
+@Service
+public class BookIngestService implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(BookIngestService.class);
+
+  // How long the writer waits for work before checking for shutdown and expired tickets
+  private static final long POLL_MILLIS = 200;
+
+  private final BookBatchService bookBatchService;
+  private final ObjectMapper objectMapper;
+  private final Path logFile;
+  private final boolean fsync;
+  private final DataSize logCompactSize;
+  private final int queueCapacity;
+  private final int batchSize;
+  private final Duration retryDelay;
+  private final Duration ticketTtl;
+
+  private final BlockingQueue<Item> queue = new LinkedBlockingQueue<>();
+  // Free places in the queue; taken when a request is accepted, returned when its items are done
+  private final Semaphore capacity;
+  private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+  private volatile boolean running;
+  private IngestLog ingestLog;
+  private Thread writer;
+
+  @Autowired
+  public BookIngestService(
+      BookBatchService bookBatchService,
+      ObjectMapper objectMapper,
+      @Value("${books.ingest.log-file:data/books-ingest.log}") Path logFile,
+      @Value("${books.ingest.fsync:true}") boolean fsync,
+      @Value("${books.ingest.log-compact-size:16MB}") DataSize logCompactSize,
+      @Value("${books.ingest.queue-capacity:10000}") int queueCapacity,
+      @Value("${books.ingest.batch-size:500}") int batchSize,
+      @Value("${books.ingest.retry-delay:1s}") Duration retryDelay,
+      @Value("${books.ingest.ticket-ttl:1h}") Duration ticketTtl,
+      MeterRegistry meterRegistry) {
+    if (queueCapacity < BookBatchService.MAX_BATCH_ITEMS || batchSize < 1) {
+      throw new IllegalArgumentException(
+          "books.ingest needs queue-capacity >= "
+              + BookBatchService.MAX_BATCH_ITEMS
+              + " and batch-size >= 1");
+    }
+    this.bookBatchService = bookBatchService;
+    this.objectMapper = objectMapper;
+    this.logFile = logFile;
+    this.fsync = fsync;
+    this.logCompactSize = logCompactSize;
+    this.queueCapacity = queueCapacity;
+    this.batchSize = batchSize;
+    this.retryDelay = retryDelay;
+    this.ticketTtl = ticketTtl;
+    this.capacity = new Semaphore(queueCapacity);
+    Gauge.builder("books.ingest.queue.size", queue, BlockingQueue::size)
+        .description("Books accepted for ingestion and not yet written")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Accept books for asynchronous creation and return the new ticket. The request is on disk when
+   * this returns. Throws {@link IngestQueueFullException} when the queue has no room for all of
+   * them.
+   */
+  public IngestTicketStatus submit(List<BookDTO> bookDTOs) {
+    if (bookDTOs.isEmpty() || bookDTOs.size() > BookBatchService.MAX_BATCH_ITEMS) {
+      throw new IllegalArgumentException(
+          "An ingest request must contain between 1 and "
+              + BookBatchService.MAX_BATCH_ITEMS
+              + " books");
+    }
+    if (!running || !capacity.tryAcquire(bookDTOs.size())) {
+      throw new IngestQueueFullException(
+          "The ingest queue is full, please retry later", retryDelay);
+    }
+
+    Ticket ticket = new Ticket(UUID.randomUUID().toString(), bookDTOs.size(), 0);
+    try {
+      ingestLog.accepted(ticket.id, bookDTOs);
+    } catch (IOException ex) {
+      capacity.release(bookDTOs.size());
+      throw new UncheckedIOException("Could not write to the ingest log", ex);
+    }
+    tickets.put(ticket.id, ticket);
+    for (int i = 0; i < bookDTOs.size(); i++) {
+      queue.add(new Item(ticket, i, bookDTOs.get(i)));
+    }
+    return ticket.status();
+  }
+
+  // Progress of a ticket; empty when it is unknown or expired
+  public Optional<IngestTicketStatus> getStatus(String ticket) {
+    return Optional.ofNullable(tickets.get(ticket)).map(Ticket::status);
+  }
+
+  @Override
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    try {
+      ingestLog = new IngestLog(logFile, objectMapper, fsync, logCompactSize.toBytes());
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Could not open the ingest log " + logFile, ex);
+    }
+
+    // Queue what was accepted but not written before the last shutdown or crash
+    for (IngestLog.Pending pending : ingestLog.pending()) {
+      int finished = pending.books().size() - pending.remaining().size();
+      Ticket ticket = new Ticket(pending.ticket(), pending.books().size(), finished);
+      tickets.put(ticket.id, ticket);
+      for (int index : pending.remaining()) {
+        queue.add(new Item(ticket, index, pending.books().get(index)));
+      }
+    }
+    // Replayed items may exceed the capacity (e.g. after lowering it); new requests wait for room
+    capacity.drainPermits();
+    capacity.release(Math.max(0, queueCapacity - queue.size()));
+    if (!queue.isEmpty()) {
+      log.info("Replaying {} books from the ingest log {}", queue.size(), logFile);
+    }
+
+    running = true;
+    writer = new Thread(this::writeLoop, "book-ingest-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  // Finish the batch in hand and stop; anything still queued stays in the log for the next start
+  @Override
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    try {
+      writer.join();
+      ingestLog.close();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (IOException ex) {
+      log.warn("Could not close the ingest log {}", logFile, ex);
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void writeLoop() {
+    List<Item> batch = new ArrayList<>(batchSize);
+    while (running) {
+      try {
+        Item first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          expireTickets();
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        write(batch);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException ex) {
+        log.error("Unexpected failure in the ingest writer", ex);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  // Write one batch, retrying while the database is unavailable; gives up only on shutdown, when
+  // the batch is left in the log. createBooks only lets transient failures through, so a book that
+  // can never be written is rejected instead of holding up the queue.
+  private void write(List<Item> batch) throws InterruptedException {
+    BookBatchResult[] results = new BookBatchResult[batch.size()];
+    while (true) {
+      try {
+        createBooks(batch, results);
+        break;
+      } catch (RuntimeException ex) {
+        if (!running) {
+          return;
+        }
+        log.warn("Ingest batch of {} books failed, retrying in {}", batch.size(), retryDelay, ex);
+        Thread.sleep(retryDelay.toMillis());
+      }
+    }
+
+    Map<String, List<Integer>> done = new LinkedHashMap<>();
+    batch.forEach(
+        item -> done.computeIfAbsent(item.ticket.id, id -> new ArrayList<>()).add(item.index));
+    try {
+      ingestLog.finished(done);
+    } catch (IOException ex) {
+      // The books are committed; at worst they are written again after a restart
+      log.error("Could not mark {} ingested books as finished in {}", batch.size(), logFile, ex);
+    }
+    // Only report progress once it is in the log
+    for (int i = 0; i < batch.size(); i++) {
+      batch.get(i).ticket.record(batch.get(i).index, results[i]);
+    }
+    capacity.release(batch.size());
+  }
+
+  // Fill in the results of the batch's books that have none yet. The whole batch is created in one
+  // transaction; an ISBN taken concurrently, or any other failure that isn't transient, fails all
+  // of it, so it is then redone one book at a time and only the offending book is rejected. Each of
+  // those results is kept as soon as its book is committed, so a retry after a transient failure
+  // halfway resumes with the next book instead of creating the earlier ones again.
+  private void createBooks(List<Item> batch, BookBatchResult[] results) {
+    if (Arrays.stream(results).allMatch(Objects::isNull)) {
+      List<BookDTO> bookDTOs = new ArrayList<>(batch.size());
+      batch.forEach(item -> bookDTOs.add(item.bookDTO));
+      try {
+        bookBatchService.createBooks(bookDTOs).toArray(results);
+        return;
+      } catch (RuntimeException ex) {
+        if (TransientFailures.isTransient(ex)) {
+          throw ex;
+        }
+        // Redone book by book below
+      }
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      if (results[i] != null) {
+        continue;
+      }
+      try {
+        BookBatchResult result =
+            bookBatchService.createBooks(Collections.singletonList(batch.get(i).bookDTO)).get(0);
+        results[i] = new BookBatchResult(i, result.status(), result.book(), result.message());
+      } catch (IllegalArgumentException single) {
+        results[i] = BookBatchResult.rejected(i, single.getMessage());
+      } catch (RuntimeException single) {
+        if (TransientFailures.isTransient(single)) {
+          throw single;
+        }
+        log.warn(
+            "Rejecting ingested book {} of ticket {}",
+            batch.get(i).index,
+            batch.get(i).ticket.id,
+            single);
+        results[i] =
+            BookBatchResult.rejected(
+                i, NestedExceptionUtils.getMostSpecificCause(single).getMessage());
+      }
+    }
+  }
+
+  private void expireTickets() {
+    long cutoff = System.nanoTime() - ticketTtl.toNanos();
+    tickets.values().removeIf(ticket -> ticket.isCompleted() && ticket.completedAt - cutoff < 0);
+  }
+
+  // One accepted book: its ticket and position in the request
+  private record Item(Ticket ticket, int index, BookDTO bookDTO) {}
+
+  // Progress of one request; updated by the writer, read by status requests
+  private static final class Ticket {
+    private final String id;
+    private final int accepted;
+    private final AtomicInteger processed;
+    private final AtomicInteger created = new AtomicInteger();
+    private final List<BookBatchResult> rejections =
+        Collections.synchronizedList(new ArrayList<>());
+    private volatile long completedAt;
+
+    Ticket(String id, int accepted, int processed) {
+      this.id = id;
+      this.accepted = accepted;
+      this.processed = new AtomicInteger(processed);
+    }
+
+    void record(int index, BookBatchResult result) {
+      if (result.status() == BookBatchResult.Status.CREATED) {
+        created.incrementAndGet();
+      } else {
+        rejections.add(BookBatchResult.rejected(index, result.message()));
+      }
+      if (processed.incrementAndGet() == accepted) {
+        completedAt = System.nanoTime();
+      }
+    }
+
+    boolean isCompleted() {
+      return processed.get() >= accepted;
+    }
+
+    IngestTicketStatus status() {
+      int done = processed.get();
+      IngestTicketStatus.State state =
+          done >= accepted
+              ? IngestTicketStatus.State.COMPLETED
+              : done == 0 ? IngestTicketStatus.State.QUEUED : IngestTicketStatus.State.IN_PROGRESS;
+      List<BookBatchResult> rejected;
+      synchronized (rejections) {
+        rejected = List.copyOf(rejections);
+      }
+      return new IngestTicketStatus(
+          id, state, accepted, done, created.get(), rejected.size(), rejected);
+    }
+  }
+}
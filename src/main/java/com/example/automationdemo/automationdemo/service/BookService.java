@@ -1,75 +1,138 @@
 package com.example.automationdemo.automationdemo.service;
 
+import com.example.automationdemo.automationdemo.cache.BookCache;
+import com.example.automationdemo.automationdemo.cache.IsbnFilter;
 import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.dto.BookLookupResult;
+import com.example.automationdemo.automationdemo.dto.BookPage;
+import com.example.automationdemo.automationdemo.dto.BookPatch;
+import com.example.automationdemo.automationdemo.dto.BookSearchHitDTO;
+import com.example.automationdemo.automationdemo.dto.BookView;
 import com.example.automationdemo.automationdemo.exception.BookNotFoundException;
+import com.example.automationdemo.automationdemo.exception.PreconditionFailedException;
 import com.example.automationdemo.automationdemo.model.Book;
+import com.example.automationdemo.automationdemo.repository.BookCursor;
+import com.example.automationdemo.automationdemo.repository.BookField;
+import com.example.automationdemo.automationdemo.repository.BookProjection;
 import com.example.automationdemo.automationdemo.repository.BookRepository;
+import com.example.automationdemo.automationdemo.repository.BookSearchCriteria;
+import com.example.automationdemo.automationdemo.repository.BookSort;
+import com.example.automationdemo.automationdemo.repository.BookTextSearchRepository;
+import com.example.automationdemo.automationdemo.repository.CatalogVersionRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+// Every public method is timed as books.service, tagged with its class and method name
 @Service
+@Timed("books.service")
 public class BookService {
 
+  // Number of streamed rows after which the persistence context is cleared during an export
+  static final int EXPORT_CLEAR_INTERVAL = 500;
+
   private final BookRepository bookRepository;
+  private final BookTextSearchRepository bookTextSearchRepository;
+  private final EntityManager entityManager;
+  private final BookCache bookCache;
+  private final CatalogVersionRepository catalogVersionRepository;
+  private final IsbnFilter isbnFilter;
 
   @Autowired
-  public BookService(BookRepository bookRepository) {
+  public BookService(
+      BookRepository bookRepository,
+      BookTextSearchRepository bookTextSearchRepository,
+      EntityManager entityManager,
+      BookCache bookCache,
+      CatalogVersionRepository catalogVersionRepository,
+      IsbnFilter isbnFilter) {
     this.bookRepository = bookRepository;
+    this.bookTextSearchRepository = bookTextSearchRepository;
+    this.entityManager = entityManager;
+    this.bookCache = bookCache;
+    this.catalogVersionRepository = catalogVersionRepository;
+    this.isbnFilter = isbnFilter;
   }
 
-  // Get all books
-  @Transactional(readOnly = true)
-  public List<BookDTO> getAllBooks() {
-    return bookRepository.findAll().stream().map(BookDTO::new).collect(Collectors.toList());
-  }
-
-  // Get book by ID
-  @Transactional(readOnly = true)
+  // Get book by ID; not @Transactional so a cache hit never borrows a connection
   public BookDTO getBookById(Long id) {
-    return bookRepository
-        .findById(id)
-        .map(BookDTO::new)
-        .orElseThrow(() -> new BookNotFoundException("Book not found with ID: " + id));
+    return bookCache.getById(
+        id,
+        () ->
+            bookRepository
+                .findById(id)
+                .map(BookDTO::new)
+                .orElseThrow(() -> new BookNotFoundException("Book not found with ID: " + id)));
   }
 
-  // Get book by ISBN
-  @Transactional(readOnly = true)
+  // Get book by ISBN; not @Transactional so a cache hit never borrows a connection
   public BookDTO getBookByIsbn(String isbn) {
-    return bookRepository
-        .findByIsbn(isbn)
-        .map(BookDTO::new)
-        .orElseThrow(() -> new BookNotFoundException("Book not found with ISBN: " + isbn));
+    return bookCache.getByIsbn(
+        isbn,
+        () ->
+            bookRepository
+                .findByIsbn(isbn)
+                .map(BookDTO::new)
+                .orElseThrow(() -> new BookNotFoundException("Book not found with ISBN: " + isbn)));
+  }
+
+  // Get many books by id: cached books first, then one IN query for the rest. One result per
+  // requested id, in request order; like getBookById, not @Transactional.
+  public List<BookLookupResult<Long>> getBooksByIds(List<Long> ids) {
+    Map<Long, BookDTO> books =
+        bookCache.getAllById(
+            ids,
+            missing -> bookRepository.findAllById(missing).stream().map(BookDTO::new).toList());
+    return ids.stream().map(id -> BookLookupResult.of(id, books.get(id))).toList();
   }
 
-  // Create a new book
+  // Get many books by ISBN: cached books first, then one IN query for the rest. One result per
+  // requested ISBN, in request order; like getBookByIsbn, not @Transactional.
+  public List<BookLookupResult<String>> getBooksByIsbns(List<String> isbns) {
+    Map<String, BookDTO> books =
+        bookCache.getAllByIsbn(
+            isbns,
+            missing -> bookRepository.findByIsbnIn(missing).stream().map(BookDTO::new).toList());
+    return isbns.stream().map(isbn -> BookLookupResult.of(isbn, books.get(isbn))).toList();
+  }
+
+  // Create a new book with a single INSERT. Duplicate ISBNs are detected by the unique constraint,
+  // so two concurrent creates with the same ISBN can't both succeed.
   @Transactional
   public BookDTO createBook(BookDTO bookDTO) {
-    // Check if ISBN already exists
-    if (bookDTO.getIsbn() != null && !bookDTO.getIsbn().isEmpty()) {
-      Optional<Book> existingBook = bookRepository.findByIsbn(bookDTO.getIsbn());
-      if (existingBook.isPresent()) {
-        throw new IllegalArgumentException(
-            "Book with ISBN " + bookDTO.getIsbn() + " already exists");
-      }
-    }
-
     Book book = bookDTO.toEntity();
     book.setId(null); // Ensure we're creating a new book, not updating
-    Book savedBook = bookRepository.save(book);
-    return new BookDTO(savedBook);
+    return new BookDTO(saveAndFlush(book));
   }
 
   // Update an existing book
   @Transactional
   public BookDTO updateBook(Long id, BookDTO bookDTO) {
+    return updateBook(id, bookDTO, null);
+  }
+
+  // Update an existing book, provided it is still at the expected version (null for any)
+  @Transactional
+  public BookDTO updateBook(Long id, BookDTO bookDTO, Long expectedVersion) {
     Book existingBook =
         bookRepository
             .findById(id)
             .orElseThrow(() -> new BookNotFoundException("Book not found with ID: " + id));
+    if (expectedVersion != null && !expectedVersion.equals(existingBook.getVersion())) {
+      throw new PreconditionFailedException(
+          "Book " + id + " has been modified since version " + expectedVersion);
+    }
 
     // Check ISBN uniqueness if it's being changed
     if (bookDTO.getIsbn() != null && !bookDTO.getIsbn().equals(existingBook.getIsbn())) {
@@ -84,6 +147,9 @@ public class BookService {
               });
     }
 
+    // Evict under both the old and the new ISBN
+    bookCache.evict(id, existingBook.getIsbn(), bookDTO.getIsbn());
+
     // Update fields
     existingBook.setTitle(bookDTO.getTitle());
     existingBook.setAuthor(bookDTO.getAuthor());
@@ -93,25 +159,146 @@ public class BookService {
     existingBook.setPublicationDate(bookDTO.getPublicationDate());
     existingBook.setDescription(bookDTO.getDescription());
 
-    Book updatedBook = bookRepository.save(existingBook);
+    // Flush so the returned version and timestamp are the ones being committed
+    Book updatedBook = saveAndFlush(existingBook);
     return new BookDTO(updatedBook);
   }
 
+  // Apply a JSON Merge Patch. Only the changed columns are written (@DynamicUpdate), an ISBN taken
+  // by another book is reported by the unique constraint, and with the book in the second-level
+  // cache the whole patch is a single UPDATE without a SELECT.
+  @Transactional
+  public BookDTO patchBook(Long id, BookPatch patch, Long expectedVersion) {
+    Book book =
+        bookRepository
+            .findById(id)
+            .orElseThrow(() -> new BookNotFoundException("Book not found with ID: " + id));
+    if (expectedVersion != null && !expectedVersion.equals(book.getVersion())) {
+      throw new PreconditionFailedException(
+          "Book " + id + " has been modified since version " + expectedVersion);
+    }
+    if (patch.isEmpty()) {
+      return new BookDTO(book);
+    }
+
+    String oldIsbn = book.getIsbn();
+    patch.applyTo(book);
+    bookCache.evict(id, oldIsbn, book.getIsbn());
+    return new BookDTO(saveAndFlush(book));
+  }
+
   // Delete a book
   @Transactional
   public void deleteBook(Long id) {
-    if (!bookRepository.existsById(id)) {
+    // One DELETE; the row count tells whether the book existed
+    if (bookRepository.deleteBookById(id) == 0) {
       throw new BookNotFoundException("Book not found with ID: " + id);
     }
-    bookRepository.deleteById(id);
+    bookCache.evict(id);
+  }
+
+  // Delete the listed books with one statement; ids that don't exist are ignored. Returns the
+  // number of books deleted.
+  @Transactional
+  public int deleteBooks(Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    int deleted = bookRepository.deleteBooksByIdIn(ids);
+    ids.forEach(bookCache::evict);
+    return deleted;
+  }
+
+  // Delete every book matching the filters with one statement; at least one filter is required.
+  // Returns the number of books deleted.
+  @Transactional
+  public int deleteBooks(BookSearchCriteria criteria) {
+    int deleted = bookRepository.deleteByFilters(criteria);
+    if (deleted > 0) {
+      // Which books went is unknown here, so drop every cached lookup
+      bookCache.evictAll();
+    }
+    return deleted;
   }
 
-  // Search books by filters
+  // Catalog-wide change counter, the basis of the collection ETags; null if not maintained
   @Transactional(readOnly = true)
-  public List<BookDTO> searchBooks(
-      String title, String author, String genre, String publisher, String isbn) {
-    return bookRepository.findByFilters(title, author, genre, publisher, isbn).stream()
-        .map(BookDTO::new)
+  public Long getCatalogVersion() {
+    return catalogVersionRepository.findCurrentVersion().orElse(null);
+  }
+
+  // Full-text search over title, author and description, best match first
+  @Transactional(readOnly = true)
+  public List<BookSearchHitDTO> searchText(String query, boolean highlight, int limit, int offset) {
+    if (query == null || query.isBlank()) {
+      throw new IllegalArgumentException("Search query must not be empty");
+    }
+    return bookTextSearchRepository.search(query.trim(), highlight, limit, offset).stream()
+        .map(BookSearchHitDTO::new)
         .collect(Collectors.toList());
   }
+
+  // Get every book matching the criteria, reduced to the requested fields
+  @Transactional(readOnly = true)
+  public List<BookView> getBookViews(BookSearchCriteria criteria, Set<BookField> fields) {
+    return bookRepository.findPage(criteria, BookSort.ID, null, null, fields).stream()
+        .map(book -> new BookView(book, fields))
+        .collect(Collectors.toList());
+  }
+
+  // Get one page of books matching the criteria using keyset (cursor) pagination, reduced to the
+  // requested fields
+  @Transactional(readOnly = true)
+  public BookPage getBooksPage(
+      BookSearchCriteria criteria, BookSort sort, String cursor, int limit, Set<BookField> fields) {
+    BookCursor after = cursor != null ? BookCursor.decode(cursor) : null;
+    if (sort == null) {
+      sort = after != null ? after.sort() : BookSort.ID;
+    } else if (after != null && after.sort() != sort) {
+      throw new IllegalArgumentException("Cursor does not match sort: " + sort);
+    }
+
+    // Fetch one extra row to find out whether there is a next page
+    List<BookProjection> books = bookRepository.findPage(criteria, sort, after, limit + 1, fields);
+    String nextCursor = null;
+    if (books.size() > limit) {
+      books = books.subList(0, limit);
+      nextCursor = BookCursor.after(books.get(limit - 1), sort).encode();
+    }
+    return new BookPage(
+        books.stream().map(book -> new BookView(book, fields)).collect(Collectors.toList()),
+        nextCursor);
+  }
+
+  // Stream every book to the consumer as it is read, keeping memory use flat
+  @Transactional(readOnly = true)
+  public long exportBooks(Consumer<BookDTO> consumer) {
+    long count = 0;
+    try (Stream<Book> books = bookRepository.streamAllBy()) {
+      Iterator<Book> iterator = books.iterator();
+      while (iterator.hasNext()) {
+        consumer.accept(new BookDTO(iterator.next()));
+        if (++count % EXPORT_CLEAR_INTERVAL == 0) {
+          // Drop the entities already written so the persistence context doesn't grow
+          entityManager.clear();
+        }
+      }
+    }
+    return count;
+  }
+
+  // Write the book now, reporting an ISBN taken by another book as a bad request
+  private Book saveAndFlush(Book book) {
+    Book savedBook;
+    try {
+      savedBook = bookRepository.saveAndFlush(book);
+    } catch (DataIntegrityViolationException ex) {
+      if (UniqueViolations.isUniqueViolation(ex)) {
+        throw new IllegalArgumentException("Book with ISBN " + book.getIsbn() + " already exists");
+      }
+      throw ex;
+    }
+    isbnFilter.put(savedBook.getIsbn());
+    return savedBook;
+  }
 }
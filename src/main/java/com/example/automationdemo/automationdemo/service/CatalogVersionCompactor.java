@@ -0,0 +1,74 @@
+package com.example.automationdemo.automationdemo.service;
+
+import com.example.automationdemo.automationdemo.repository.CatalogVersionRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Folds the catalog change rows (see the V8 migration) into one every {@code
+ * books.catalog-version.compact-interval}, so reading the catalog version stays a sum over a
+ * handful of rows. Safe to run on several instances at once: each only folds rows it deleted
+ * itself.
+ */
+@Component
+public class CatalogVersionCompactor {
+
+  private static final Logger log = LoggerFactory.getLogger(CatalogVersionCompactor.class);
+
+  private final CatalogVersionRepository catalogVersionRepository;
+  private final Duration interval;
+  private ScheduledExecutorService scheduler;
+
+  @Autowired
+  public CatalogVersionCompactor(
+      CatalogVersionRepository catalogVersionRepository,
+      @Value("${books.catalog-version.compact-interval:1m}") Duration interval) {
+    this.catalogVersionRepository = catalogVersionRepository;
+    this.interval = interval;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void start() {
+    if (scheduler == null) {
+      scheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, "catalog-version-compactor");
+                thread.setDaemon(true);
+                return thread;
+              });
+      scheduler.scheduleWithFixedDelay(
+          this::compact, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @PreDestroy
+  public synchronized void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+
+  // Fold the rows now; nothing to do where they aren't maintained (e.g. H2)
+  public void compact() {
+    try {
+      if (catalogVersionRepository.findCurrentVersion().isPresent()) {
+        catalogVersionRepository.compact();
+      }
+    } catch (RuntimeException ex) {
+      // The next run folds whatever this one didn't
+      log.warn("Could not compact the catalog version", ex);
+    }
+  }
+}
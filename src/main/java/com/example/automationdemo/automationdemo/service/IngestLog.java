@@ -0,0 +1,209 @@
+package com.example.automationdemo.automationdemo.service;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only JSON-lines file behind the ingest queue. Every accepted request is written (and, with
+ * {@code fsync}, forced to disk) before it is acknowledged, and the writer records which items it
+ * has finished, so whatever was accepted but not yet written is replayed after a restart or crash.
+ * On open, and whenever it grows past {@code compactSize} bytes, the file is rewritten with only
+ * the unfinished requests; it is truncated whenever every item in it is finished.
+ */
+class IngestLog implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(IngestLog.class);
+
+  // One line of the log: an accepted request (books) or items of a request that are finished (done)
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  record Entry(String ticket, List<BookDTO> books, List<Integer> done) {}
+
+  // An accepted request found on open, with the positions of the items still to be written
+  record Pending(String ticket, List<BookDTO> books, List<Integer> remaining) {}
+
+  private final Path file;
+  private final ObjectMapper objectMapper;
+  private final boolean fsync;
+  private final long compactSize;
+  private final List<Pending> pending;
+  private FileChannel channel;
+
+  // Requests with unfinished items, in accept order, with the positions already finished; what a
+  // compacted file holds. The queue references the same books, so this costs little extra memory.
+  private final Map<String, Open> open = new LinkedHashMap<>();
+
+  private record Open(List<BookDTO> books, Set<Integer> done) {}
+
+  IngestLog(Path file, ObjectMapper objectMapper, boolean fsync, long compactSize)
+      throws IOException {
+    this.file = file;
+    this.objectMapper = objectMapper;
+    this.fsync = fsync;
+    this.compactSize = compactSize;
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    this.pending = replay();
+    for (Pending request : pending) {
+      Set<Integer> done = new HashSet<>();
+      for (int i = 0; i < request.books().size(); i++) {
+        if (!request.remaining().contains(i)) {
+          done.add(i);
+        }
+      }
+      open.put(request.ticket(), new Open(request.books(), done));
+    }
+    compact();
+    this.channel = openChannel();
+  }
+
+  // Requests that were accepted but not finished before the log was last closed, in accept order
+  List<Pending> pending() {
+    return pending;
+  }
+
+  // Record an accepted request; returns once the line is written (and forced, with fsync)
+  synchronized void accepted(String ticket, List<BookDTO> books) throws IOException {
+    append(List.of(new Entry(ticket, books, null)));
+    open.put(ticket, new Open(books, new HashSet<>()));
+  }
+
+  // Record finished items, by ticket
+  synchronized void finished(Map<String, List<Integer>> done) throws IOException {
+    List<Entry> entries = new ArrayList<>(done.size());
+    done.forEach((ticket, items) -> entries.add(new Entry(ticket, null, items)));
+    append(entries);
+    done.forEach(
+        (ticket, items) -> {
+          Open request = open.get(ticket);
+          if (request != null) {
+            request.done().addAll(items);
+            if (request.done().size() >= request.books().size()) {
+              open.remove(ticket);
+            }
+          }
+        });
+    if (open.isEmpty()) {
+      channel.truncate(0);
+    } else if (channel.size() >= compactSize) {
+      // Under steady traffic the file may never empty; drop the finished requests from it
+      channel.close();
+      compact();
+      channel = openChannel();
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+
+  private FileChannel openChannel() throws IOException {
+    return FileChannel.open(
+        file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+  }
+
+  private void append(List<Entry> entries) throws IOException {
+    StringBuilder lines = new StringBuilder();
+    for (Entry entry : entries) {
+      lines.append(objectMapper.writeValueAsString(entry)).append('\n');
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    if (fsync) {
+      channel.force(false);
+    }
+  }
+
+  private List<Pending> replay() throws IOException {
+    if (!Files.exists(file)) {
+      return List.of();
+    }
+    Map<String, List<BookDTO>> accepted = new LinkedHashMap<>();
+    Map<String, Set<Integer>> done = new HashMap<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+        Entry entry;
+        try {
+          entry = objectMapper.readValue(line, Entry.class);
+        } catch (JsonProcessingException ex) {
+          // Only the last line can be torn, by a crash in the middle of an append
+          log.warn("Skipping unreadable line in ingest log {}", file, ex);
+          continue;
+        }
+        if (entry.books() != null) {
+          accepted.put(entry.ticket(), entry.books());
+        } else if (entry.done() != null) {
+          done.computeIfAbsent(entry.ticket(), t -> new HashSet<>()).addAll(entry.done());
+        }
+      }
+    }
+
+    List<Pending> result = new ArrayList<>();
+    accepted.forEach(
+        (ticket, books) -> {
+          Set<Integer> finished = done.getOrDefault(ticket, Set.of());
+          List<Integer> remaining = new ArrayList<>();
+          for (int i = 0; i < books.size(); i++) {
+            if (!finished.contains(i)) {
+              remaining.add(i);
+            }
+          }
+          if (!remaining.isEmpty()) {
+            result.add(new Pending(ticket, books, remaining));
+          }
+        });
+    return result;
+  }
+
+  // Replace the file with one holding only the unfinished requests
+  private void compact() throws IOException {
+    Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+    List<String> lines = new ArrayList<>();
+    for (Map.Entry<String, Open> request : open.entrySet()) {
+      lines.add(
+          objectMapper.writeValueAsString(
+              new Entry(request.getKey(), request.getValue().books(), null)));
+      if (!request.getValue().done().isEmpty()) {
+        List<Integer> finished = new ArrayList<>(request.getValue().done());
+        Collections.sort(finished);
+        lines.add(objectMapper.writeValueAsString(new Entry(request.getKey(), null, finished)));
+      }
+    }
+    Files.write(compacted, lines, StandardCharsets.UTF_8);
+    try (FileChannel written = FileChannel.open(compacted, StandardOpenOption.WRITE)) {
+      written.force(true);
+    }
+    Files.move(
+        compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+}
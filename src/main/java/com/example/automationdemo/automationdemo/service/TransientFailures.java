@@ -0,0 +1,46 @@
+package com.example.automationdemo.automationdemo.service;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import org.hibernate.exception.JDBCConnectionException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * Recognizes failures that may pass if the same work is tried again (a lost or unavailable
+ * connection, a lock or query timeout, a serialization failure) in any wrapper. Anything else, such
+ * as a value too long for its column, fails the same way every time.
+ */
+final class TransientFailures {
+
+  // SQLState classes of connection exceptions and transaction rollbacks
+  private static final String CONNECTION_EXCEPTION = "08";
+  private static final String TRANSACTION_ROLLBACK = "40";
+
+  private TransientFailures() {}
+
+  // True when the exception or any of its causes is worth retrying
+  static boolean isTransient(Throwable ex) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof TransientDataAccessException
+          || cause instanceof RecoverableDataAccessException
+          || cause instanceof DataAccessResourceFailureException
+          || cause instanceof CannotCreateTransactionException
+          || cause instanceof JDBCConnectionException
+          || cause instanceof SQLTransientException
+          || cause instanceof SQLRecoverableException) {
+        return true;
+      }
+      if (cause instanceof SQLException sql
+          && sql.getSQLState() != null
+          && (sql.getSQLState().startsWith(CONNECTION_EXCEPTION)
+              || sql.getSQLState().startsWith(TRANSACTION_ROLLBACK))) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,26 @@
+package com.example.automationdemo.automationdemo.service;
+
+import java.sql.SQLException;
+
+/** Recognizes unique-constraint violations (SQLState 23505 on PostgreSQL and H2) in any wrapper. */
+final class UniqueViolations {
+
+  static final String UNIQUE_VIOLATION = "23505";
+
+  private UniqueViolations() {}
+
+  // True when the exception or any of its causes is a unique-constraint violation
+  static boolean isUniqueViolation(Throwable ex) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      // Batched statements report the failing row as the next exception
+      for (SQLException sql = cause instanceof SQLException s ? s : null;
+          sql != null;
+          sql = sql.getNextException()) {
+        if (UNIQUE_VIOLATION.equals(sql.getSQLState())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,424 @@
+package com.example.automationdemo.automationdemo.warmup;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.repository.BookField;
+import com.example.automationdemo.automationdemo.repository.BookRepository;
+import com.example.automationdemo.automationdemo.repository.BookSearchCriteria;
+import com.example.automationdemo.automationdemo.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+/**
+ * Synthetic traffic run once on startup, so the read paths are compiled by the JIT before real
+ * requests arrive. Application runners finish before Spring Boot publishes the readiness state
+ * {@code ACCEPTING_TRAFFIC}, so {@code /actuator/health/readiness} reports {@code OUT_OF_SERVICE}
+ * until the warm-up is over.
+ *
+ * <p>The warm-up sends the read endpoints (by id, by ISBN, list and filtered search) to the local
+ * web server, or calls {@link BookService#getBooksPage} directly when there is none, and
+ * round-trips {@link BookDTO} through Jackson. It stops after {@code books.warmup.iterations}
+ * operations or four fifths of {@code books.warmup.time-budget}, whichever comes first. The
+ * operations run with the first {@code books.warmup.sample-size} books of the database ({@code
+ * books.warmup.source=database}) or with books made up in memory ({@code sample}), whose lookups
+ * mostly miss. Each operation is then timed up to {@code books.warmup.measure-iterations} times for
+ * the {@link WarmupReport}, in what is left of the time budget: no request outlives it, so the
+ * budget bounds the whole warm-up.
+ *
+ * <p>The requests carry a {@value #REQUEST_HEADER} header that only this process knows the value of
+ * (see {@link #isWarmupRequest}), so they are left out of the request metrics, the SQL statement
+ * metrics and the concurrency limiter's latency samples.
+ *
+ * <p>The warm-up is best effort: failed requests are counted, and if it fails altogether the
+ * application becomes ready anyway. The settings are read at run time, so they also apply to an
+ * AOT-processed build.
+ */
+@Component
+public class BookWarmup implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(BookWarmup.class);
+
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+  public static final String REQUEST_HEADER = "X-Books-Warmup";
+
+  // Random per process, so a client can't pass for the warm-up
+  private static final String REQUEST_TOKEN = UUID.randomUUID().toString();
+
+  // Few enough authors that the single-filter searches repeat, as real ones do
+  private static final String[] SAMPLE_AUTHORS = {
+    "Jane Austen", "Fyodor Dostoevsky", "Toni Morrison", "Haruki Murakami", "Chinua Achebe"
+  };
+  private static final String[] SAMPLE_GENRES = {"Fiction", "Classic", "Science Fiction"};
+
+  private final BookService bookService;
+  private final BookRepository bookRepository;
+  private final ObjectMapper objectMapper;
+  private final ApplicationContext context;
+  private final MeterRegistry meterRegistry;
+  private final boolean enabled;
+  private final String source;
+  private final long iterations;
+  private final Duration timeBudget;
+  private final int threads;
+  private final int sampleSize;
+  private final int measureIterations;
+
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong errors = new AtomicLong();
+  private volatile WarmupReport report = WarmupReport.disabled();
+  private HttpClient client;
+  // System.nanoTime() by which the current phase's requests must be answered
+  private volatile long requestDeadline;
+
+  @Autowired
+  public BookWarmup(
+      BookService bookService,
+      BookRepository bookRepository,
+      ObjectMapper objectMapper,
+      ApplicationContext context,
+      MeterRegistry meterRegistry,
+      @Value("${books.warmup.enabled:false}") boolean enabled,
+      @Value("${books.warmup.source:database}") String source,
+      @Value("${books.warmup.iterations:10000}") long iterations,
+      @Value("${books.warmup.time-budget:30s}") Duration timeBudget,
+      @Value("${books.warmup.threads:2}") int threads,
+      @Value("${books.warmup.sample-size:100}") int sampleSize,
+      @Value("${books.warmup.measure-iterations:200}") int measureIterations) {
+    if (!source.equals("database") && !source.equals("sample")) {
+      throw new IllegalArgumentException(
+          "books.warmup.source must be database or sample, not " + source);
+    }
+    if (iterations < 0 || threads < 1 || sampleSize < 1 || measureIterations < 0) {
+      throw new IllegalArgumentException(
+          "books.warmup needs iterations >= 0, threads >= 1, sample-size >= 1"
+              + " and measure-iterations >= 0");
+    }
+    this.bookService = bookService;
+    this.bookRepository = bookRepository;
+    this.objectMapper = objectMapper;
+    this.context = context;
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.source = source;
+    this.iterations = iterations;
+    this.timeBudget = timeBudget;
+    this.threads = threads;
+    this.sampleSize = sampleSize;
+    this.measureIterations = measureIterations;
+    TimeGauge.builder(
+            "books.warmup.duration",
+            this,
+            TimeUnit.MILLISECONDS,
+            warmup -> {
+              Duration duration = warmup.report.duration();
+              return duration != null ? duration.toMillis() : 0;
+            })
+        .description("Time spent on the startup warm-up")
+        .register(meterRegistry);
+  }
+
+  // Where the warm-up is, or how it went
+  public WarmupReport report() {
+    return report;
+  }
+
+  // Whether the request is one of the warm-up's own
+  public static boolean isWarmupRequest(HttpServletRequest request) {
+    return REQUEST_TOKEN.equals(request.getHeader(REQUEST_HEADER));
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!enabled) {
+      return;
+    }
+    Instant startedAt = Instant.now();
+    report =
+        new WarmupReport(WarmupReport.State.RUNNING, source, startedAt, null, 0, 0, null, Map.of());
+    try {
+      report = warmUp(startedAt);
+      log.info(
+          "Warm-up finished after {} operations in {} ms ({} errors, stopped by {})",
+          report.iterations(),
+          report.duration().toMillis(),
+          report.errors(),
+          report.stoppedBy());
+    } catch (Exception ex) {
+      if (ex instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      log.warn("Warm-up failed, starting without it", ex);
+      report =
+          new WarmupReport(
+              WarmupReport.State.FAILED,
+              source,
+              startedAt,
+              Duration.between(startedAt, Instant.now()),
+              completed.get(),
+              errors.get(),
+              null,
+              Map.of());
+    }
+  }
+
+  private WarmupReport warmUp(Instant startedAt) throws InterruptedException {
+    List<BookDTO> books = books();
+    Map<String, Operation> operations = operations(books.get(0));
+    List<Operation> rotation = new ArrayList<>(operations.values());
+
+    // Operations take turns, each going through the sample books in order. The last fifth of the
+    // budget is left for measuring them.
+    AtomicLong next = new AtomicLong();
+    long start = System.nanoTime();
+    long end = start + timeBudget.toNanos();
+    long deadline = measureIterations > 0 ? start + timeBudget.toNanos() / 5 * 4 : end;
+    requestDeadline = deadline;
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            threads, runnable -> new Thread(runnable, "warmup-" + threadCount.incrementAndGet()));
+    for (int t = 0; t < threads; t++) {
+      executor.execute(
+          () -> {
+            long i;
+            while (System.nanoTime() - deadline < 0
+                && !Thread.currentThread().isInterrupted()
+                && (i = next.getAndIncrement()) < iterations) {
+              Operation operation = rotation.get((int) (i % rotation.size()));
+              attempt(operation, books.get((int) (i / rotation.size() % books.size())));
+              completed.incrementAndGet();
+            }
+          });
+    }
+    executor.shutdown();
+    // Requests time out at the deadline, so this only waits for the last ones to give up
+    if (!executor.awaitTermination(
+        deadline - System.nanoTime() + TimeUnit.SECONDS.toNanos(1), TimeUnit.NANOSECONDS)) {
+      executor.shutdownNow();
+    }
+    Duration duration = Duration.between(startedAt, Instant.now());
+    String stoppedBy = completed.get() >= iterations ? "iterations" : "time-budget";
+
+    // Each operation gets an equal share of what is left of the budget
+    requestDeadline = end;
+    Map<String, WarmupReport.Latency> latency = new LinkedHashMap<>();
+    int remaining = operations.size();
+    for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+      long share = Math.max(0, end - System.nanoTime()) / remaining--;
+      latency.put(
+          entry.getKey(),
+          measure(entry.getKey(), entry.getValue(), books, System.nanoTime() + share));
+    }
+
+    return new WarmupReport(
+        WarmupReport.State.COMPLETED,
+        source,
+        startedAt,
+        duration,
+        completed.get(),
+        errors.get(),
+        stoppedBy,
+        latency);
+  }
+
+  // The books the operations run with: from the database, or made up when it has none
+  private List<BookDTO> books() {
+    if (source.equals("database")) {
+      List<BookDTO> books =
+          bookRepository
+              .findAll(PageRequest.of(0, sampleSize, Sort.by("id")))
+              .map(BookDTO::new)
+              .getContent();
+      if (!books.isEmpty()) {
+        return books;
+      }
+      log.info("No books in the database, warming up with sample books");
+    }
+    return sampleBooks(sampleSize);
+  }
+
+  static List<BookDTO> sampleBooks(int size) {
+    List<BookDTO> books = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      books.add(
+          BookDTO.builder()
+              .id(i + 1L)
+              .title("Warm-up Book " + (i + 1))
+              .author(SAMPLE_AUTHORS[i % SAMPLE_AUTHORS.length])
+              .genre(SAMPLE_GENRES[i % SAMPLE_GENRES.length])
+              .publisher("Warm-up Press")
+              .isbn(String.format("979-0-%07d-0", i))
+              .description("A book that only exists to warm up the JIT")
+              .build());
+    }
+    return books;
+  }
+
+  // The operations by name; the HTTP ones only when there is a web server to send them to
+  private Map<String, Operation> operations(BookDTO first) {
+    Map<String, Operation> operations = new LinkedHashMap<>();
+    int port = serverPort();
+    if (port > 0) {
+      client =
+          HttpClient.newBuilder()
+              .version(HttpClient.Version.HTTP_1_1)
+              .connectTimeout(REQUEST_TIMEOUT)
+              .build();
+      String base = "http://localhost:" + port + "/api/books";
+      operations.put("book-by-id", get(base, book -> "/" + book.getId()));
+      if (first.getIsbn() != null) {
+        operations.put(
+            "book-by-isbn",
+            get(base, book -> "/isbn/" + UriUtils.encodePathSegment(isbnOf(book, first), "UTF-8")));
+      }
+      operations.put("list", get(base, book -> "?limit=20"));
+      operations.put(
+          "search",
+          get(
+              base,
+              book ->
+                  "/search?limit=20&author="
+                      + UriUtils.encodeQueryParam(book.getAuthor(), "UTF-8")));
+    } else {
+      log.info("No web server to send requests to, warming up the service and Jackson only");
+      // The query behind the list and search endpoints
+      operations.put(
+          "find-page",
+          book ->
+              bookService.getBooksPage(
+                  new BookSearchCriteria(null, book.getAuthor(), null, null, null),
+                  null,
+                  null,
+                  20,
+                  BookField.LIST_DEFAULT));
+    }
+    operations.put(
+        "json",
+        book -> objectMapper.readValue(objectMapper.writeValueAsBytes(book), BookDTO.class));
+    return operations;
+  }
+
+  private int serverPort() {
+    if (context instanceof WebServerApplicationContext webContext) {
+      WebServer webServer = webContext.getWebServer();
+      if (webServer != null) {
+        return webServer.getPort();
+      }
+    }
+    return -1;
+  }
+
+  // Books from the database don't all have an ISBN
+  private static String isbnOf(BookDTO book, BookDTO fallback) {
+    return book.getIsbn() != null ? book.getIsbn() : fallback.getIsbn();
+  }
+
+  private Operation get(String base, Function<BookDTO, String> path) {
+    return book -> {
+      long remaining = requestDeadline - System.nanoTime();
+      if (remaining <= 0) {
+        throw new IllegalStateException("Warm-up time budget spent");
+      }
+      HttpRequest request =
+          HttpRequest.newBuilder(URI.create(base + path.apply(book)))
+              .timeout(Duration.ofNanos(Math.min(REQUEST_TIMEOUT.toNanos(), remaining)))
+              .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+              .header(REQUEST_HEADER, REQUEST_TOKEN)
+              .GET()
+              .build();
+      int status = client.send(request, HttpResponse.BodyHandlers.ofByteArray()).statusCode();
+      // Made-up books are mostly not found, which is expected
+      if (status >= 400 && status != 404) {
+        throw new IllegalStateException(request.uri() + " answered " + status);
+      }
+    };
+  }
+
+  private void attempt(Operation operation, BookDTO book) {
+    try {
+      operation.run(book);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      errors.incrementAndGet();
+    } catch (Exception ex) {
+      if (errors.incrementAndGet() == 1) {
+        log.warn("Warm-up operation failed; further failures are only counted", ex);
+      }
+    }
+  }
+
+  // Time the operation now that it is warm, until the deadline at the latest
+  private WarmupReport.Latency measure(
+      String name, Operation operation, List<BookDTO> books, long deadline) {
+    Timer timer =
+        Timer.builder("books.warmup.latency")
+            .description("Latency of the warm-up operations, measured after the warm-up")
+            .tag("operation", name)
+            .register(meterRegistry);
+    long[] nanos = new long[measureIterations];
+    int samples = 0;
+    while (samples < measureIterations && System.nanoTime() - deadline < 0) {
+      long start = System.nanoTime();
+      attempt(operation, books.get(samples % books.size()));
+      nanos[samples] = System.nanoTime() - start;
+      timer.record(nanos[samples++], TimeUnit.NANOSECONDS);
+    }
+    nanos = Arrays.copyOf(nanos, samples);
+    Arrays.sort(nanos);
+    return new WarmupReport.Latency(
+        samples,
+        percentileMillis(nanos, 0.50),
+        percentileMillis(nanos, 0.99),
+        percentileMillis(nanos, 1.0));
+  }
+
+  private static double percentileMillis(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(index, 0)] / 1_000_000.0;
+  }
+
+  // One kind of synthetic request, run with one of the sample books
+  @FunctionalInterface
+  private interface Operation {
+    void run(BookDTO book) throws Exception;
+  }
+}
@@ -0,0 +1,22 @@
+package com.example.automationdemo.automationdemo.warmup;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+// /actuator/warmup: how long the startup warm-up took and the latencies measured after it
+@Component
+@Endpoint(id = "warmup")
+public class WarmupEndpoint {
+
+  private final BookWarmup bookWarmup;
+
+  public WarmupEndpoint(BookWarmup bookWarmup) {
+    this.bookWarmup = bookWarmup;
+  }
+
+  @ReadOperation
+  public WarmupReport report() {
+    return bookWarmup.report();
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.automationdemo.automationdemo.warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Outcome of the startup warm-up, served by the {@code warmup} actuator endpoint. {@code stoppedBy}
+ * says whether the iteration target or the time budget ended it; {@code latency} holds the latency
+ * of each operation measured once warm-up was over, keyed by operation name.
+ */
+public record WarmupReport(
+    State state,
+    String source,
+    Instant startedAt,
+    Duration duration,
+    long iterations,
+    long errors,
+    String stoppedBy,
+    Map<String, Latency> latency) {
+
+  public enum State {
+    DISABLED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+  }
+
+  // Percentiles over the post-warm-up measurement runs of one operation, in milliseconds
+  public record Latency(int samples, double p50, double p99, double max) {}
+
+  static WarmupReport disabled() {
+    return new WarmupReport(State.DISABLED, null, null, null, 0, 0, null, Map.of());
+  }
+}
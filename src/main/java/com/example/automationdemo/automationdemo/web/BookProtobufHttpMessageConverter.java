@@ -0,0 +1,241 @@
+package com.example.automationdemo.automationdemo.web;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.dto.BookView;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+/**
+ * Reads and writes book payloads as Protobuf, following {@code src/main/proto/book.proto}: a {@link
+ * BookDTO} is a {@code Book} message and a list of books ({@link BookDTO} or {@link BookView}) is a
+ * {@code BookList}. The wire format is written and parsed directly, without generated classes.
+ * Other body types are left to the Jackson converters.
+ */
+public class BookProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+  public static final String PROTOBUF_VALUE = "application/x-protobuf";
+  public static final MediaType PROTOBUF = MediaType.valueOf(PROTOBUF_VALUE);
+
+  // Field numbers of the Book message
+  private static final int ID = 1;
+  private static final int TITLE = 2;
+  private static final int AUTHOR = 3;
+  private static final int GENRE = 4;
+  private static final int PUBLISHER = 5;
+  private static final int ISBN = 6;
+  private static final int PUBLICATION_DATE = 7;
+  private static final int DESCRIPTION = 8;
+
+  // Field number of BookList.books
+  private static final int BOOKS = 1;
+
+  public BookProtobufHttpMessageConverter() {
+    super(PROTOBUF, new MediaType("application", "protobuf"));
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return clazz == BookDTO.class;
+  }
+
+  // Lists are only recognized by their generic type (see canRead / canWrite), so the raw class
+  // check the default applies here would never offer Protobuf for them
+  @Override
+  public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+    return clazz == BookDTO.class || Collection.class.isAssignableFrom(clazz)
+        ? getSupportedMediaTypes()
+        : List.of();
+  }
+
+  @Override
+  public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+    return (type == BookDTO.class || isCollectionOf(type, BookDTO.class)) && canRead(mediaType);
+  }
+
+  @Override
+  public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+    boolean book =
+        clazz == BookDTO.class
+            || isCollectionOf(type, BookDTO.class)
+            || isCollectionOf(type, BookView.class);
+    return book && canWrite(mediaType);
+  }
+
+  @Override
+  public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+      throws IOException {
+    CodedInputStream input = CodedInputStream.newInstance(inputMessage.getBody());
+    try {
+      return type == BookDTO.class ? readBook(input) : readBooks(input);
+    } catch (IOException | DateTimeParseException ex) {
+      throw new HttpMessageNotReadableException(
+          "Invalid Protobuf book payload: " + ex.getMessage(), ex, inputMessage);
+    }
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+    return read(clazz, null, inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage)
+      throws IOException {
+    CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody());
+    if (body instanceof BookDTO book) {
+      writeBook(output, Fields.of(book));
+    } else {
+      for (Object item : (Collection<?>) body) {
+        Fields fields = Fields.of(item);
+        output.writeTag(BOOKS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(fields.serializedSize());
+        writeBook(output, fields);
+      }
+    }
+    output.flush();
+  }
+
+  private static List<BookDTO> readBooks(CodedInputStream input) throws IOException {
+    List<BookDTO> books = new ArrayList<>();
+    for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+      if (WireFormat.getTagFieldNumber(tag) == BOOKS
+          && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+        int limit = input.pushLimit(input.readRawVarint32());
+        books.add(readBook(input));
+        input.popLimit(limit);
+      } else {
+        input.skipField(tag);
+      }
+    }
+    return books;
+  }
+
+  // Read Book fields up to the end of the input or of the current limit; unknown fields are skipped
+  private static BookDTO readBook(CodedInputStream input) throws IOException {
+    BookDTO book = new BookDTO();
+    for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+      int field = WireFormat.getTagFieldNumber(tag);
+      boolean string = WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED;
+      if (field == ID && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_VARINT) {
+        book.setId(input.readInt64());
+      } else if (field == TITLE && string) {
+        book.setTitle(input.readString());
+      } else if (field == AUTHOR && string) {
+        book.setAuthor(input.readString());
+      } else if (field == GENRE && string) {
+        book.setGenre(input.readString());
+      } else if (field == PUBLISHER && string) {
+        book.setPublisher(input.readString());
+      } else if (field == ISBN && string) {
+        book.setIsbn(input.readString());
+      } else if (field == PUBLICATION_DATE && string) {
+        book.setPublicationDate(LocalDate.parse(input.readString()));
+      } else if (field == DESCRIPTION && string) {
+        book.setDescription(input.readString());
+      } else {
+        input.skipField(tag);
+      }
+    }
+    return book;
+  }
+
+  private static void writeBook(CodedOutputStream output, Fields fields) throws IOException {
+    if (fields.id() != null) {
+      output.writeInt64(ID, fields.id());
+    }
+    writeString(output, TITLE, fields.title());
+    writeString(output, AUTHOR, fields.author());
+    writeString(output, GENRE, fields.genre());
+    writeString(output, PUBLISHER, fields.publisher());
+    writeString(output, ISBN, fields.isbn());
+    writeString(output, PUBLICATION_DATE, fields.publicationDate());
+    writeString(output, DESCRIPTION, fields.description());
+  }
+
+  private static void writeString(CodedOutputStream output, int field, String value)
+      throws IOException {
+    if (value != null) {
+      output.writeString(field, value);
+    }
+  }
+
+  private static boolean isCollectionOf(Type type, Class<?> element) {
+    return type instanceof ParameterizedType parameterized
+        && parameterized.getRawType() instanceof Class<?> raw
+        && Collection.class.isAssignableFrom(raw)
+        && parameterized.getActualTypeArguments()[0] == element;
+  }
+
+  // The Book message fields of a BookDTO or BookView; null when absent
+  private record Fields(
+      Long id,
+      String title,
+      String author,
+      String genre,
+      String publisher,
+      String isbn,
+      String publicationDate,
+      String description) {
+
+    static Fields of(Object book) {
+      if (book instanceof BookDTO dto) {
+        return new Fields(
+            dto.getId(),
+            dto.getTitle(),
+            dto.getAuthor(),
+            dto.getGenre(),
+            dto.getPublisher(),
+            dto.getIsbn(),
+            dto.getPublicationDate() != null ? dto.getPublicationDate().toString() : null,
+            dto.getDescription());
+      }
+      Map<String, Object> properties = ((BookView) book).properties();
+      Object id = properties.get("id");
+      return new Fields(
+          id != null ? ((Number) id).longValue() : null,
+          string(properties, "title"),
+          string(properties, "author"),
+          string(properties, "genre"),
+          string(properties, "publisher"),
+          string(properties, "isbn"),
+          string(properties, "publicationDate"),
+          string(properties, "description"));
+    }
+
+    int serializedSize() {
+      int size = id != null ? CodedOutputStream.computeInt64Size(ID, id) : 0;
+      size += stringSize(TITLE, title);
+      size += stringSize(AUTHOR, author);
+      size += stringSize(GENRE, genre);
+      size += stringSize(PUBLISHER, publisher);
+      size += stringSize(ISBN, isbn);
+      size += stringSize(PUBLICATION_DATE, publicationDate);
+      size += stringSize(DESCRIPTION, description);
+      return size;
+    }
+
+    private static int stringSize(int field, String value) {
+      return value != null ? CodedOutputStream.computeStringSize(field, value) : 0;
+    }
+
+    private static String string(Map<String, Object> properties, String name) {
+      Object value = properties.get(name);
+      return value != null ? value.toString() : null;
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package com.example.automationdemo.automationdemo.web;
+
+import com.example.automationdemo.automationdemo.exception.GlobalExceptionHandler.ErrorResponse;
+import com.example.automationdemo.automationdemo.warmup.BookWarmup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.concurrency.limits.Limiter;
+import com.netflix.concurrency.limits.limiter.AbstractLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Admission control in front of the book endpoints. Reads and writes each have their own limiter
+ * whose limit adapts to observed latency, so a burst is turned away with a fast 503 and a
+ * Retry-After header instead of queueing on the connection pool. The limit, in-flight and rejected
+ * counts are published as {@code books.concurrency.*} metrics tagged with {@code type=read|write}.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  // Long-lived streams would skew the latency samples the limit is derived from, and so would the
+  // startup warm-up's requests
+  private static final String EXPORT_PATH = "/api/books/export";
+
+  private final LimiterMetrics reads;
+  private final LimiterMetrics writes;
+  private final ObjectMapper objectMapper;
+  private final Duration retryAfter;
+
+  public ConcurrencyLimitFilter(
+      AbstractLimiter<Void> readLimiter,
+      AbstractLimiter<Void> writeLimiter,
+      MeterRegistry meterRegistry,
+      ObjectMapper objectMapper,
+      Duration retryAfter) {
+    this.reads = new LimiterMetrics(readLimiter, "read", meterRegistry);
+    this.writes = new LimiterMetrics(writeLimiter, "write", meterRegistry);
+    this.objectMapper = objectMapper;
+    this.retryAfter = retryAfter;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    LimiterMetrics limiter = isRead(request) ? reads : writes;
+    Optional<Limiter.Listener> acquired = limiter.limiter.acquire(null);
+    if (acquired.isEmpty()) {
+      limiter.rejected.increment();
+      reject(request, response);
+      return;
+    }
+
+    Limiter.Listener listener = acquired.get();
+    boolean sampled =
+        !request.getRequestURI().startsWith(EXPORT_PATH) && !BookWarmup.isWarmupRequest(request);
+    try {
+      chain.doFilter(request, response);
+    } catch (Throwable ex) {
+      listener.onIgnore();
+      throw ex;
+    }
+
+    if (request.isAsyncStarted()) {
+      // Keep the slot until the async response (e.g. a streamed export) has been written
+      request.getAsyncContext().addListener(new AsyncRelease(listener, response, sampled));
+    } else {
+      release(listener, response, sampled);
+    }
+  }
+
+  // Releases the slot exactly once, from onComplete: the container always follows a timeout or an
+  // error with onComplete, so those only record how the request ended
+  private static final class AsyncRelease implements AsyncListener {
+    private final Limiter.Listener listener;
+    private final HttpServletResponse response;
+    private final boolean sampled;
+    private volatile boolean failed;
+
+    AsyncRelease(Limiter.Listener listener, HttpServletResponse response, boolean sampled) {
+      this.listener = listener;
+      this.response = response;
+      this.sampled = sampled;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      if (failed) {
+        // A timed out or broken stream says nothing useful about latency, but still backs off
+        listener.onDropped();
+      } else {
+        release(listener, response, sampled);
+      }
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      failed = true;
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      failed = true;
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {}
+  }
+
+  private static boolean isRead(HttpServletRequest request) {
+    String method = request.getMethod();
+    return HttpMethod.GET.matches(method)
+        || HttpMethod.HEAD.matches(method)
+        || HttpMethod.OPTIONS.matches(method);
+  }
+
+  // Server errors count as drops so the limit backs off; everything else is a latency sample
+  private static void release(
+      Limiter.Listener listener, HttpServletResponse response, boolean sampled) {
+    if (!sampled) {
+      listener.onIgnore();
+    } else if (response.getStatus() >= 500) {
+      listener.onDropped();
+    } else {
+      listener.onSuccess();
+    }
+  }
+
+  private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(
+        response.getOutputStream(),
+        new ErrorResponse(
+            LocalDateTime.now(),
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            "Service Unavailable",
+            "Too many concurrent requests, please retry later",
+            request.getRequestURI()));
+  }
+
+  // A limiter and the meters that report on it
+  private static final class LimiterMetrics {
+    private final AbstractLimiter<Void> limiter;
+    private final Counter rejected;
+
+    LimiterMetrics(AbstractLimiter<Void> limiter, String type, MeterRegistry meterRegistry) {
+      this.limiter = limiter;
+      Gauge.builder("books.concurrency.limit", limiter, AbstractLimiter::getLimit)
+          .tag("type", type)
+          .description("Current adaptive concurrency limit")
+          .register(meterRegistry);
+      Gauge.builder("books.concurrency.inflight", limiter, AbstractLimiter::getInflight)
+          .tag("type", type)
+          .description("Requests currently admitted")
+          .register(meterRegistry);
+      this.rejected =
+          Counter.builder("books.concurrency.rejected")
+              .tag("type", type)
+              .description("Requests turned away with 503")
+              .register(meterRegistry);
+    }
+  }
+}
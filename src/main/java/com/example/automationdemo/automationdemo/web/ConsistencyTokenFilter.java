@@ -0,0 +1,65 @@
+package com.example.automationdemo.automationdemo.web;
+
+import com.example.automationdemo.automationdemo.exception.GlobalExceptionHandler.ErrorResponse;
+import com.example.automationdemo.automationdemo.jdbc.ConsistencyToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Applies the {@value #HEADER} request header, the token a client got back from an earlier write,
+ * to the reads of this request so they see that write (see {@link ConsistencyToken}). Responses to
+ * requests that commit a write carry a new token in the same header ({@link
+ * ConsistencyTokenListener}).
+ */
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+  public static final String HEADER = "X-Consistency-Token";
+
+  private final ObjectMapper objectMapper;
+
+  public ConsistencyTokenFilter(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    String token = request.getHeader(HEADER);
+    if (token != null) {
+      try {
+        ConsistencyToken.require(ConsistencyToken.parse(token.trim()));
+      } catch (IllegalArgumentException ex) {
+        reject(request, response, ex.getMessage());
+        return;
+      }
+    }
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      ConsistencyToken.clear();
+    }
+  }
+
+  private void reject(HttpServletRequest request, HttpServletResponse response, String message)
+      throws IOException {
+    response.setStatus(HttpStatus.BAD_REQUEST.value());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(
+        response.getOutputStream(),
+        new ErrorResponse(
+            LocalDateTime.now(),
+            HttpStatus.BAD_REQUEST.value(),
+            "Bad Request",
+            message,
+            request.getRequestURI()));
+  }
+}
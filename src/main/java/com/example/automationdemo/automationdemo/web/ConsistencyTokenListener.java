@@ -0,0 +1,85 @@
+package com.example.automationdemo.automationdemo.web;
+
+import com.example.automationdemo.automationdemo.jdbc.ConsistencyToken;
+import com.example.automationdemo.automationdemo.jdbc.ReplicaDataSource;
+import jakarta.servlet.http.HttpServletResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Hands out read-your-writes tokens. When a write transaction commits, the primary's WAL position,
+ * which is past that commit, is reported to {@link ReplicaDataSource#primaryReached} so that cache
+ * loads on this instance see the write. In a request it is also put in the {@value
+ * ConsistencyTokenFilter#HEADER} response header and required for the rest of the request. Writes
+ * outside a request (e.g. the ingest writer) get no token.
+ *
+ * <p>The position is read in a synchronization's afterCommit, which runs before any afterCompletion
+ * callback such as a cache eviction, so no load can start after the eviction without it.
+ */
+public class ConsistencyTokenListener implements TransactionExecutionListener {
+
+  private static final Logger log = LoggerFactory.getLogger(ConsistencyTokenListener.class);
+
+  private final DataSource dataSource;
+  private final ReplicaDataSource replicaDataSource;
+
+  public ConsistencyTokenListener(DataSource dataSource, ReplicaDataSource replicaDataSource) {
+    this.dataSource = dataSource;
+    this.replicaDataSource = replicaDataSource;
+  }
+
+  @Override
+  public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+    if (beginFailure != null
+        || transaction.isReadOnly()
+        || !transaction.isNewTransaction()
+        || !TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            committed();
+          }
+        });
+  }
+
+  private void committed() {
+    // The transaction's own connection is still bound at this point, so none is borrowed for this
+    long lsn;
+    try {
+      Connection connection = DataSourceUtils.getConnection(dataSource);
+      try {
+        lsn = ReplicaDataSource.currentLsn(connection);
+      } finally {
+        DataSourceUtils.releaseConnection(connection, dataSource);
+      }
+    } catch (SQLException | RuntimeException ex) {
+      // The write is committed either way; the client just doesn't get to read it back from a
+      // replica
+      log.warn("Could not read the primary WAL position for a consistency token", ex);
+      return;
+    }
+    replicaDataSource.primaryReached(lsn);
+
+    if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes request
+        && request.getResponse() != null) {
+      HttpServletResponse response = request.getResponse();
+      ConsistencyToken.require(lsn);
+      if (!response.isCommitted()) {
+        response.setHeader(ConsistencyTokenFilter.HEADER, ConsistencyToken.format(lsn));
+      }
+    }
+  }
+}
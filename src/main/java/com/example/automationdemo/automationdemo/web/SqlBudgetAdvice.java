@@ -0,0 +1,42 @@
+package com.example.automationdemo.automationdemo.web;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Checks the request's SQL statement budget just before its body is written, while headers can
+ * still be added and the response replaced without buffering it (see {@link SqlBudgetFilter}).
+ */
+@ControllerAdvice
+public class SqlBudgetAdvice implements ResponseBodyAdvice<Object> {
+
+  @Override
+  public boolean supports(
+      MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+    return true;
+  }
+
+  @Override
+  public Object beforeBodyWrite(
+      Object body,
+      MethodParameter returnType,
+      MediaType selectedContentType,
+      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+      ServerHttpRequest request,
+      ServerHttpResponse response) {
+    if (request instanceof ServletServerHttpRequest servletRequest
+        && response instanceof ServletServerHttpResponse servletResponse
+        && servletRequest.getServletRequest().getAttribute(SqlBudgetFilter.REQUEST_BUDGET)
+            instanceof SqlBudgetFilter.RequestBudget budget) {
+      budget.beforeBody(servletResponse.getServletResponse());
+    }
+    return body;
+  }
+}
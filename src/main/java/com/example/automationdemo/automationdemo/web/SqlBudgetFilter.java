@@ -0,0 +1,256 @@
+package com.example.automationdemo.automationdemo.web;
+
+import com.example.automationdemo.automationdemo.exception.GlobalExceptionHandler.ErrorResponse;
+import com.example.automationdemo.automationdemo.exception.SqlBudgetExceededException;
+import com.example.automationdemo.automationdemo.jdbc.StatementTally;
+import com.example.automationdemo.automationdemo.warmup.BookWarmup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Counts the JDBC statements each book request runs (see {@link StatementTally}) against a
+ * per-endpoint budget. Endpoints are named by method and path pattern, e.g. {@code GET
+ * /api/books/{id}}, and those without a budget of their own get the default one.
+ *
+ * <p>The budget is checked once the handler is done, just before the body is written (see {@link
+ * SqlBudgetAdvice}), or at the end of the request for a response that had no body written by Spring
+ * MVC. Nothing is buffered. A request over its budget is logged and counted in {@code
+ * books.sql.budget.exceeded}; with {@link Action#FAIL} its response is also replaced by a 500,
+ * which is meant for tests and staging since the request's work has already been done. When
+ * enabled, a {@value #SERVER_TIMING} header reports where the time went up to that point: {@code
+ * db} (time in JDBC statements) and {@code mapping} (everything else). Statement counts and
+ * database time per endpoint are published as {@code books.sql.statements} and {@code
+ * books.sql.time}, leaving out the startup warm-up's requests.
+ */
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+  private static final Logger log = LoggerFactory.getLogger(SqlBudgetFilter.class);
+
+  public static final String SERVER_TIMING = "Server-Timing";
+
+  // Request attribute holding the request's RequestBudget
+  static final String REQUEST_BUDGET = SqlBudgetFilter.class.getName() + ".requestBudget";
+
+  // Streamed from another thread after the request thread returns, so there's nothing to count
+  private static final String EXPORT_PATH = "/api/books/export";
+
+  /** What to do about a request that runs more statements than its endpoint's budget. */
+  public enum Action {
+    LOG,
+    FAIL;
+
+    // "log" or "fail"; throws IllegalArgumentException for anything else
+    public static Action of(String name) {
+      for (Action action : values()) {
+        if (action.name().equalsIgnoreCase(name)) {
+          return action;
+        }
+      }
+      throw new IllegalArgumentException("Unknown SQL budget action: " + name);
+    }
+  }
+
+  private final Map<String, Integer> budgets;
+  private final int defaultBudget;
+  private final Action action;
+  private final boolean serverTiming;
+  private final MeterRegistry meterRegistry;
+  private final ObjectMapper objectMapper;
+
+  public SqlBudgetFilter(
+      Map<String, Integer> budgets,
+      int defaultBudget,
+      Action action,
+      boolean serverTiming,
+      MeterRegistry meterRegistry,
+      ObjectMapper objectMapper) {
+    this.budgets = Map.copyOf(budgets);
+    this.defaultBudget = defaultBudget;
+    this.action = action;
+    this.serverTiming = serverTiming;
+    this.meterRegistry = meterRegistry;
+    this.objectMapper = objectMapper;
+  }
+
+  // Parse "GET /api/books/{id}=2" entries into budgets by endpoint
+  public static Map<String, Integer> parseBudgets(List<String> entries) {
+    Map<String, Integer> budgets = new HashMap<>();
+    for (String entry : entries) {
+      if (entry.isBlank()) {
+        continue;
+      }
+      int equals = entry.lastIndexOf('=');
+      String endpoint = equals > 0 ? entry.substring(0, equals).trim() : "";
+      if (!endpoint.matches("[A-Z]+ /\\S*")) {
+        throw new IllegalArgumentException("Expected METHOD /path=budget, got: " + entry);
+      }
+      try {
+        budgets.put(endpoint, Integer.parseInt(entry.substring(equals + 1).trim()));
+      } catch (NumberFormatException ex) {
+        throw new IllegalArgumentException("Expected METHOD /path=budget, got: " + entry, ex);
+      }
+    }
+    return budgets;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return request.getRequestURI().startsWith(EXPORT_PATH);
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    RequestBudget budget = new RequestBudget(request, System.nanoTime(), StatementTally.start());
+    request.setAttribute(REQUEST_BUDGET, budget);
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      StatementTally.stop();
+    }
+
+    // No body went through Spring MVC (e.g. an error page); fail only if nothing has been sent
+    if (budget.check(response) != null && action == Action.FAIL && !response.isCommitted()) {
+      fail(request, response, budget.exceeded);
+    }
+
+    if (budget.synthetic) {
+      return;
+    }
+    StatementTally tally = budget.tally;
+    DistributionSummary.builder("books.sql.statements")
+        .tags("method", budget.method, "uri", budget.uri)
+        .description("JDBC statements run per request")
+        .register(meterRegistry)
+        .record(tally.statements());
+    Timer.builder("books.sql.time")
+        .tags("method", budget.method, "uri", budget.uri)
+        .description("Time spent in JDBC statements per request")
+        .register(meterRegistry)
+        .record(tally.nanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /** One request's statements, checked against its endpoint's budget once. */
+  final class RequestBudget {
+    private final HttpServletRequest request;
+    private final long start;
+    private final StatementTally tally;
+    // The startup warm-up's requests are checked but left out of the metrics
+    private final boolean synthetic;
+    private boolean checked;
+    private String method;
+    private String uri;
+    // Why the request failed its budget, or null
+    private String exceeded;
+
+    private RequestBudget(HttpServletRequest request, long start, StatementTally tally) {
+      this.request = request;
+      this.start = start;
+      this.tally = tally;
+      this.synthetic = BookWarmup.isWarmupRequest(request);
+    }
+
+    // Check the budget and add the Server-Timing header; returns why the request is over its
+    // budget, or null. Only the first call checks.
+    String check(HttpServletResponse response) {
+      if (checked) {
+        return null;
+      }
+      checked = true;
+      long elapsed = System.nanoTime() - start;
+      method = request.getMethod();
+      Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      uri = pattern != null ? pattern.toString() : "UNKNOWN";
+      String endpoint = method + " " + uri;
+
+      int budget = budgets.getOrDefault(endpoint, defaultBudget);
+      if (tally.statements() > budget) {
+        exceeded =
+            endpoint
+                + " ran "
+                + tally.statements()
+                + " SQL statements, over its budget of "
+                + budget;
+        log.warn(exceeded);
+        if (!synthetic) {
+          Counter.builder("books.sql.budget.exceeded")
+              .tags("method", method, "uri", uri)
+              .description("Requests that ran more statements than their endpoint's budget")
+              .register(meterRegistry)
+              .increment();
+        }
+      }
+
+      if (serverTiming && !response.isCommitted()) {
+        response.setHeader(
+            SERVER_TIMING,
+            String.format(
+                Locale.ROOT,
+                "db;dur=%.1f;desc=\"%d %s\", mapping;dur=%.1f",
+                millis(tally.nanos()),
+                tally.statements(),
+                tally.statements() == 1 ? "statement" : "statements",
+                millis(Math.max(0, elapsed - tally.nanos()))));
+      }
+      return exceeded;
+    }
+
+    // Check the budget before the body is written, failing the request if that's the action
+    void beforeBody(HttpServletResponse response) {
+      if (check(response) != null && action == Action.FAIL) {
+        reset(response);
+        throw new SqlBudgetExceededException(exceeded);
+      }
+    }
+  }
+
+  // Replace whatever the handler produced; nothing has been sent yet
+  private void fail(HttpServletRequest request, HttpServletResponse response, String message)
+      throws IOException {
+    reset(response);
+    response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(
+        response.getOutputStream(),
+        new ErrorResponse(
+            LocalDateTime.now(),
+            HttpStatus.INTERNAL_SERVER_ERROR.value(),
+            "Internal Server Error",
+            message,
+            request.getRequestURI()));
+  }
+
+  // Clear the handler's status, headers and any buffered body, keeping the timing
+  private static void reset(HttpServletResponse response) {
+    String timing = response.getHeader(SERVER_TIMING);
+    response.reset();
+    if (timing != null) {
+      response.setHeader(SERVER_TIMING, timing);
+    }
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+}
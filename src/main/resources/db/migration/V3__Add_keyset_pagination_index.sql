@@ -0,0 +1,2 @@
+-- Composite index backing keyset pagination ordered by (title, id)
+CREATE INDEX IF NOT EXISTS idx_books_title_id ON books(title, id);
@@ -0,0 +1,2 @@
+-- Hand out book ids in blocks of 50 so Hibernate can batch inserts (must match allocationSize)
+ALTER SEQUENCE books_id_seq INCREMENT BY 50;
@@ -0,0 +1,8 @@
+-- Trigram indexes so case-insensitive substring searches (LOWER(col) LIKE '%x%') can use an index
+-- instead of scanning the whole table. The expressions must match the ones used in the queries.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_books_title_trgm ON books USING gin (LOWER(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_author_trgm ON books USING gin (LOWER(author) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_genre_trgm ON books USING gin (LOWER(genre) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_publisher_trgm ON books USING gin (LOWER(publisher) gin_trgm_ops);
@@ -16,9 +16,11 @@ import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -51,6 +53,8 @@ public class BookApiContainerIT {
     registry.add("spring.datasource.password", postgres::getPassword);
   }
 
+  @RegisterExtension final SqlStatementCountExtension sql = new SqlStatementCountExtension();
+
   @Autowired private MockMvc mockMvc;
 
   @Autowired private BookRepository bookRepository;
@@ -149,11 +153,66 @@ public class BookApiContainerIT {
 
     // Delete the book via API
     mockMvc.perform(delete("/api/books/" + bookId)).andExpect(status().isNoContent());
+    sql.assertStatements("DELETE", "/api/books/{id}", 1);
 
     // Verify the book no longer exists in the database
     assertFalse(bookRepository.findById(bookId).isPresent());
   }
 
+  @Test
+  void testConditionalRequests() throws Exception {
+    Book book = bookRepository.save(new Book("ETag Test", "ETag Author", "ETag Genre"));
+
+    // Single book: a matching If-None-Match is answered with 304
+    String bookETag =
+        mockMvc
+            .perform(get("/api/books/" + book.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    mockMvc
+        .perform(get("/api/books/" + book.getId()).header(HttpHeaders.IF_NONE_MATCH, bookETag))
+        .andExpect(status().isNotModified());
+
+    // Collection: the catalog ETag holds until the books table changes (V7 and V8 triggers)
+    String catalogETag =
+        mockMvc
+            .perform(get("/api/books"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    assertNotNull(catalogETag);
+    mockMvc
+        .perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, catalogETag))
+        .andExpect(status().isNotModified());
+
+    // Conditional update with the current ETag succeeds and changes both ETags
+    BookDTO update = new BookDTO(book);
+    update.setTitle("ETag Test Updated");
+    mockMvc
+        .perform(
+            put("/api/books/" + book.getId())
+                .header(HttpHeaders.IF_MATCH, bookETag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(update)))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, catalogETag))
+        .andExpect(status().isOk());
+
+    // Repeating it with the now stale ETag is rejected
+    mockMvc
+        .perform(
+            put("/api/books/" + book.getId())
+                .header(HttpHeaders.IF_MATCH, bookETag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(update)))
+        .andExpect(status().isPreconditionFailed());
+  }
+
   @Test
   void testSearchBooks() throws Exception {
     // Create multiple books with different attributes
@@ -175,6 +234,7 @@ public class BookApiContainerIT {
             .perform(get("/api/books/search").param("genre", "Fantasy"))
             .andExpect(status().isOk())
             .andReturn();
+    sql.assertStatements("GET", "/api/books/search", 2);
 
     List<BookDTO> genreResults =
         objectMapper.readValue(
@@ -239,4 +299,37 @@ public class BookApiContainerIT {
         .andExpect(jsonPath("$.error").value("Bad Request"))
         .andExpect(jsonPath("$.message").value(containsString("already exists")));
   }
+
+  @Test
+  void testBatchCreateBooks() throws Exception {
+    // Create a book so the batch contains one duplicate ISBN
+    Book existing = new Book("Existing Book", "Existing Author", "Existing Genre");
+    existing.setIsbn("2222222222");
+    bookRepository.save(existing);
+
+    List<BookDTO> batch = new java.util.ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      BookDTO bookDTO = new BookDTO();
+      bookDTO.setTitle("Batch Book " + i);
+      bookDTO.setAuthor("Batch Author");
+      bookDTO.setGenre("Batch Genre");
+      bookDTO.setIsbn(i == 0 ? "2222222222" : "B-" + i);
+      batch.add(bookDTO);
+    }
+
+    // Create the books via the batch API
+    mockMvc
+        .perform(
+            post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(120))
+        .andExpect(jsonPath("$[0].status").value("REJECTED"))
+        .andExpect(jsonPath("$[1].status").value("CREATED"))
+        .andExpect(jsonPath("$[119].book.id").isNumber());
+
+    // The existing book plus the 119 new ones
+    assertEquals(120, bookRepository.count());
+  }
 }
@@ -0,0 +1,193 @@
+package com.example.automationdemo.automationdemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.web.BookProtobufHttpMessageConverter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * The book endpoints in JSON (the default), CBOR, Smile and Protobuf, through the application's own
+ * message converters.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookContentNegotiationTest {
+
+  private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+  @Autowired private MockMvc mockMvc;
+
+  private String path;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    String location =
+        mockMvc
+            .perform(
+                post("/api/books")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        "{\"title\":\"Dune\",\"author\":\"Frank Herbert\","
+                            + "\"genre\":\"Science Fiction\",\"publicationDate\":\"1965-08-01\"}"))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    path = "/api/books/" + location.replaceAll(".*\"id\":(\\d+).*", "$1");
+  }
+
+  @Test
+  void getBook_WithoutAccept_ShouldStayJson() throws Exception {
+    mockMvc
+        .perform(get(path).accept(MediaType.ALL))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+  }
+
+  @Test
+  void getBook_AsCborAndSmile_ShouldUseTheJsonSettings() throws Exception {
+    byte[] cbor =
+        mockMvc
+            .perform(get(path).accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+    byte[] smile =
+        mockMvc
+            .perform(get(path).accept(SMILE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(SMILE))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+    JsonNode fromCbor = new CBORMapper().readTree(cbor);
+    JsonNode fromSmile = new SmileMapper().readTree(smile);
+    assertEquals("Dune", fromCbor.get("title").asText());
+    // Dates are written as text, as in JSON, not as timestamps
+    assertEquals("1965-08-01", fromCbor.get("publicationDate").asText());
+    assertEquals(fromCbor, fromSmile);
+  }
+
+  @Test
+  void getBook_AsCbor_ShouldHaveItsOwnETag() throws Exception {
+    // Arrange
+    String jsonTag =
+        mockMvc
+            .perform(get(path).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Vary", "Accept"))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // Act
+    String cborTag =
+        mockMvc
+            .perform(get(path).accept(MediaType.APPLICATION_CBOR).header("If-None-Match", jsonTag))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andExpect(header().string("Vary", "Accept"))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // Assert - each format's tag only revalidates that format
+    assertEquals(jsonTag.substring(0, jsonTag.length() - 1) + "-cbor\"", cborTag);
+    mockMvc
+        .perform(get(path).accept(MediaType.APPLICATION_CBOR).header("If-None-Match", cborTag))
+        .andExpect(status().isNotModified());
+    mockMvc
+        .perform(get(path).accept(MediaType.APPLICATION_JSON).header("If-None-Match", cborTag))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void updateBook_WithIfMatchFromAnotherFormat_ShouldApply() throws Exception {
+    String smileTag =
+        mockMvc.perform(get(path).accept(SMILE)).andReturn().getResponse().getHeader("ETag");
+
+    mockMvc
+        .perform(
+            patch(path)
+                .contentType("application/merge-patch+json")
+                .header("If-Match", smileTag)
+                .content("{\"genre\":\"Classic\"}"))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void createAndList_AsProtobuf_ShouldRoundTrip() throws Exception {
+    BookDTO book = new BookDTO();
+    book.setTitle("Dune Messiah");
+    book.setAuthor("Frank Herbert");
+    book.setGenre("Science Fiction");
+    book.setPublicationDate(LocalDate.of(1969, 10, 15));
+    MockHttpOutputMessage body = new MockHttpOutputMessage();
+    new BookProtobufHttpMessageConverter()
+        .write(book, BookDTO.class, BookProtobufHttpMessageConverter.PROTOBUF, body);
+
+    mockMvc
+        .perform(
+            post("/api/books")
+                .contentType(BookProtobufHttpMessageConverter.PROTOBUF)
+                .accept(BookProtobufHttpMessageConverter.PROTOBUF)
+                .content(body.getBodyAsBytes()))
+        .andExpect(status().isCreated())
+        .andExpect(content().contentType(BookProtobufHttpMessageConverter.PROTOBUF));
+
+    byte[] list =
+        mockMvc
+            .perform(
+                get("/api/books")
+                    .param("fields", "title")
+                    .accept(BookProtobufHttpMessageConverter.PROTOBUF))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(BookProtobufHttpMessageConverter.PROTOBUF))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+    @SuppressWarnings("unchecked")
+    List<BookDTO> books =
+        (List<BookDTO>)
+            new BookProtobufHttpMessageConverter()
+                .read(
+                    new ParameterizedTypeReference<List<BookDTO>>() {}.getType(),
+                    null,
+                    new MockHttpInputMessage(list));
+    assertTrue(books.stream().anyMatch(b -> b.getTitle().equals("Dune Messiah")));
+    // Only the requested fields (and the id) are sent
+    assertTrue(books.stream().allMatch(b -> b.getId() != null && b.getAuthor() == null));
+  }
+
+  @Test
+  void nonBookPayload_AsProtobuf_ShouldNotBeAcceptable() throws Exception {
+    mockMvc
+        .perform(
+            get("/api/books/search/text")
+                .param("q", "dune")
+                .accept(BookProtobufHttpMessageConverter.PROTOBUF))
+        .andExpect(status().isNotAcceptable());
+  }
+}
@@ -0,0 +1,133 @@
+package com.example.automationdemo.automationdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Load comparison of the blocking v1 search and the reactive v2 search. Tomcat gets fewer request
+ * threads than there are database connections, so v1 can only keep that many queries running at
+ * once while v2 releases the thread while each query runs and can use every connection.
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "server.tomcat.threads.max=4",
+      "spring.datasource.hikari.maximum-pool-size=10",
+      "spring.r2dbc.pool.max-size=10",
+      "books.concurrency-limit.enabled=false",
+      "books.cache.enabled=false",
+      "books.l2-cache.enabled=false",
+      "spring.jpa.show-sql=false",
+      "logging.level.org.hibernate.SQL=INFO",
+      "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+    })
+@Testcontainers
+public class BookReactiveLoadContainerIT {
+
+  private static final int ROWS = 200_000;
+  private static final int CLIENTS = 200;
+  private static final int REQUESTS = 2_000;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:13.3")
+          .withDatabaseName("testdb")
+          .withUsername("test")
+          .withPassword("test");
+
+  @DynamicPropertySource
+  static void registerPgProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add(
+        "spring.r2dbc.url",
+        () ->
+            "r2dbc:postgresql://"
+                + postgres.getHost()
+                + ":"
+                + postgres.getFirstMappedPort()
+                + "/"
+                + postgres.getDatabaseName());
+    registry.add("spring.r2dbc.username", postgres::getUsername);
+    registry.add("spring.r2dbc.password", postgres::getPassword);
+  }
+
+  @LocalServerPort private int port;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void reactiveSearch_ShouldServeMoreRequestsPerCoreThanBlockingSearch() throws Exception {
+    // Arrange
+    jdbcTemplate.execute(
+        "INSERT INTO books (title, author, genre, publisher, isbn) "
+            + "SELECT 'Title ' || md5(i::text), 'Author ' || (i % 5000), "
+            + "(ARRAY['Fantasy', 'Horror', 'Romance', 'Science Fiction'])[i % 4 + 1], "
+            + "'Publisher ' || (i % 500), 'ISBN-' || i "
+            + "FROM generate_series(1, "
+            + ROWS
+            + ") AS s(i)");
+    jdbcTemplate.execute("ANALYZE books");
+    HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(32)).build();
+    String v1 = "http://localhost:" + port + "/api/books/search?author=author%20424&limit=50";
+    String v2 = "http://localhost:" + port + "/api/v2/books/search?author=author%20424&limit=50";
+
+    // Warm up both paths, then measure each under the same concurrency
+    run(client, v1, REQUESTS / 4);
+    run(client, v2, REQUESTS / 4);
+    double blocking = run(client, v1, REQUESTS);
+    double reactive = run(client, v2, REQUESTS);
+
+    int cores = Runtime.getRuntime().availableProcessors();
+    System.out.printf(
+        "Search under %d concurrent clients, %d requests, %d cores, 4 request threads%n"
+            + "  v1 blocking   %8.1f req/s   %8.1f req/s per core%n"
+            + "  v2 reactive   %8.1f req/s   %8.1f req/s per core%n",
+        CLIENTS, REQUESTS, cores, blocking, blocking / cores, reactive, reactive / cores);
+
+    // Assert
+    assertTrue(reactive > blocking, "v2 should serve more requests per second than v1");
+  }
+
+  // Requests per second for count GETs of url issued by CLIENTS concurrent callers; all must be 200
+  private double run(HttpClient client, String url, int count) throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+    ExecutorService callers = Executors.newFixedThreadPool(CLIENTS);
+    try {
+      List<Future<Integer>> statuses = new ArrayList<>(count);
+      long start = System.nanoTime();
+      for (int i = 0; i < count; i++) {
+        statuses.add(
+            callers.submit(
+                () -> client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+      }
+      for (Future<Integer> status : statuses) {
+        assertEquals(200, status.get());
+      }
+      return count / ((System.nanoTime() - start) / 1_000_000_000.0);
+    } finally {
+      callers.shutdownNow();
+    }
+  }
+}
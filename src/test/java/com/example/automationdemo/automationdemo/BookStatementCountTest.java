@@ -0,0 +1,161 @@
+package com.example.automationdemo.automationdemo;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.example.automationdemo.automationdemo.model.Book;
+import com.example.automationdemo.automationdemo.repository.BookRepository;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Exact JDBC statement counts per book endpoint, so a change that adds round trips (an N+1 lookup,
+ * a read before a write) fails here. Caches are off so every read reaches the database.
+ */
+@SpringBootTest(
+    properties = {
+      "books.cache.enabled=false",
+      "books.l2-cache.enabled=false",
+      "books.concurrency-limit.enabled=false"
+    })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookStatementCountTest {
+
+  @RegisterExtension final SqlStatementCountExtension sql = new SqlStatementCountExtension();
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private BookRepository bookRepository;
+
+  private String path;
+
+  @BeforeEach
+  void setUp() {
+    // Saved directly rather than through the API, which also takes the id sequence's first
+    // round trip (one per 50 ids) out of the counted requests
+    Book book = new Book();
+    book.setTitle("Emma");
+    book.setAuthor("Jane Austen");
+    book.setGenre("Novel");
+    book.setPublicationDate(LocalDate.of(1815, 12, 23));
+    path = "/api/books/" + bookRepository.save(book).getId();
+  }
+
+  @Test
+  void create_ShouldRunOneStatement() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    "{\"title\":\"Persuasion\",\"author\":\"Jane Austen\",\"genre\":\"Novel\"}"))
+        .andExpect(status().isCreated());
+
+    sql.assertStatements("POST", "/api/books", 1);
+  }
+
+  @Test
+  void getById_ShouldRunOneStatement() throws Exception {
+    mockMvc
+        .perform(get(path))
+        .andExpect(status().isOk())
+        .andExpect(
+            header()
+                .string(
+                    "Server-Timing",
+                    matchesPattern("db;dur=[0-9.]+;desc=\"1 statement\", mapping;dur=[0-9.]+")));
+
+    sql.assertStatements("GET", "/api/books/{id}", 1);
+  }
+
+  @Test
+  void getByIsbn_ShouldRunOneStatement() throws Exception {
+    mockMvc.perform(get("/api/books/isbn/none")).andExpect(status().isNotFound());
+
+    sql.assertStatements("GET", "/api/books/isbn/{isbn}", 1);
+  }
+
+  @Test
+  void update_ShouldRunTwoStatements() throws Exception {
+    mockMvc
+        .perform(
+            put(path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    "{\"title\":\"Emma\",\"author\":\"Jane Austen\",\"genre\":\"Classic\","
+                        + "\"publicationDate\":\"1815-12-23\"}"))
+        .andExpect(status().isOk());
+
+    sql.assertStatements("PUT", "/api/books/{id}", 2);
+  }
+
+  @Test
+  void patch_ShouldRunTwoStatements() throws Exception {
+    mockMvc
+        .perform(
+            patch(path)
+                .contentType("application/merge-patch+json")
+                .content("{\"genre\":\"Classic\"}"))
+        .andExpect(status().isOk());
+
+    sql.assertStatements("PATCH", "/api/books/{id}", 2);
+  }
+
+  @Test
+  void delete_ShouldRunOneStatement() throws Exception {
+    mockMvc
+        .perform(delete(path))
+        .andExpect(status().isNoContent())
+        .andExpect(header().exists("Server-Timing"));
+
+    sql.assertStatements("DELETE", "/api/books/{id}", 1);
+  }
+
+  @Test
+  void deleteByIds_ShouldRunOneStatement() throws Exception {
+    mockMvc.perform(delete("/api/books").param("ids", "-1", "-2")).andExpect(status().isOk());
+
+    sql.assertStatements("DELETE", "/api/books", 1);
+  }
+
+  @Test
+  void list_ShouldRunTwoStatements() throws Exception {
+    mockMvc.perform(get("/api/books")).andExpect(status().isOk());
+
+    sql.assertStatements("GET", "/api/books", 2);
+  }
+
+  @Test
+  void search_ShouldRunTwoStatements() throws Exception {
+    mockMvc
+        .perform(get("/api/books/search").param("author", "Jane Austen"))
+        .andExpect(status().isOk());
+
+    sql.assertStatements("GET", "/api/books/search", 2);
+  }
+
+  @Test
+  void batchCreate_ShouldRunOneBatchForAllBooks() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    "[{\"title\":\"A\",\"author\":\"X\",\"genre\":\"Y\"},"
+                        + "{\"title\":\"B\",\"author\":\"X\",\"genre\":\"Y\"},"
+                        + "{\"title\":\"C\",\"author\":\"X\",\"genre\":\"Y\"}]"))
+        .andExpect(status().isOk());
+
+    sql.assertStatements("POST", "/api/books/batch", 1);
+  }
+}
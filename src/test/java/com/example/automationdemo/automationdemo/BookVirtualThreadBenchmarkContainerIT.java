@@ -0,0 +1,133 @@
+package com.example.automationdemo.automationdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Throughput and p99 latency of book lookups under 1,000 concurrent clients, first with Tomcat's
+ * default platform-thread pool and then in the virtual-thread mode. Both runs go to the database
+ * for every request (caches off) through a 10-connection pool. Needs Java 21 for virtual threads.
+ */
+@Testcontainers
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class BookVirtualThreadBenchmarkContainerIT {
+
+  private static final int ROWS = 10_000;
+  private static final int CLIENTS = 1_000;
+  private static final int REQUESTS = 20_000;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:13.3")
+          .withDatabaseName("testdb")
+          .withUsername("test")
+          .withPassword("test");
+
+  @Test
+  void virtualThreads_ShouldServeAllRequestsWithinThePool() throws Exception {
+    // Act
+    Result platform = benchmark(false);
+    Result virtual = benchmark(true);
+
+    System.out.printf(
+        "Book lookups, %d concurrent clients, %d requests, 10 connections%n"
+            + "  platform threads   %8.1f req/s   p99 %8.2f ms%n"
+            + "  virtual threads    %8.1f req/s   p99 %8.2f ms%n",
+        CLIENTS,
+        REQUESTS,
+        platform.throughput(),
+        platform.p99Millis(),
+        virtual.throughput(),
+        virtual.p99Millis());
+
+    // Assert - every request succeeded in both modes (checked while running)
+    assertEquals(REQUESTS, platform.count());
+    assertEquals(REQUESTS, virtual.count());
+  }
+
+  private Result benchmark(boolean virtualThreads) throws Exception {
+    try (ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(AutomationDemoApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.datasource.url=" + postgres.getJdbcUrl(),
+                "spring.datasource.username=" + postgres.getUsername(),
+                "spring.datasource.password=" + postgres.getPassword(),
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "books.concurrency-limit.enabled=false",
+                "books.cache.enabled=false",
+                "books.l2-cache.enabled=false",
+                "spring.jpa.show-sql=false",
+                "logging.level.org.hibernate.SQL=INFO",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO")
+            .run()) {
+      JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+      jdbcTemplate.execute("TRUNCATE books");
+      jdbcTemplate.execute(
+          "INSERT INTO books (id, title, author, genre, isbn) "
+              + "SELECT i, 'Title ' || i, 'Author ' || (i % 500), 'Fiction', 'ISBN-' || i "
+              + "FROM generate_series(1, "
+              + ROWS
+              + ") AS s(i)");
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+      run(port, REQUESTS / 4);
+      return run(port, REQUESTS);
+    }
+  }
+
+  // Issues count lookups of random books from CLIENTS concurrent callers; all must be 200
+  private Result run(int port, int count) throws Exception {
+    HttpClient client = HttpClient.newHttpClient();
+    ExecutorService callers = Executors.newFixedThreadPool(CLIENTS);
+    try {
+      List<Future<Long>> latencies = new ArrayList<>(count);
+      long start = System.nanoTime();
+      for (int i = 0; i < count; i++) {
+        URI uri = URI.create("http://localhost:" + port + "/api/books/" + (i % ROWS + 1));
+        latencies.add(
+            callers.submit(
+                () -> {
+                  long sent = System.nanoTime();
+                  HttpResponse<Void> response =
+                      client.send(
+                          HttpRequest.newBuilder(uri).GET().build(),
+                          HttpResponse.BodyHandlers.discarding());
+                  assertEquals(200, response.statusCode());
+                  return System.nanoTime() - sent;
+                }));
+      }
+      long[] nanos = new long[count];
+      for (int i = 0; i < count; i++) {
+        nanos[i] = latencies.get(i).get();
+      }
+      double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+      Arrays.sort(nanos);
+      return new Result(count, count / seconds, nanos[(int) (count * 0.99)] / 1_000_000.0);
+    } finally {
+      callers.shutdownNow();
+    }
+  }
+
+  private record Result(int count, double throughput, double p99Millis) {}
+}
@@ -0,0 +1,60 @@
+package com.example.automationdemo.automationdemo;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Checks that the Prometheus scrape output carries latency histograms for the book endpoints,
+ * service and repository methods, and the Hikari pool gauges.
+ */
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=prometheus")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class PrometheusMetricsTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Test
+  void prometheus_ShouldExposeHistogramsAndPoolMetrics() throws Exception {
+    // Arrange - one request through the controller, service and repository
+    mockMvc.perform(get("/api/books/999")).andExpect(status().isNotFound());
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/actuator/prometheus"))
+        .andExpect(status().isOk())
+        .andExpect(
+            content()
+                .string(
+                    containsString(
+                        "http_server_requests_seconds_bucket{error=\"none\",exception=\"none\","
+                            + "method=\"GET\",outcome=\"CLIENT_ERROR\",status=\"404\","
+                            + "uri=\"/api/books/{id}\",le=\"0.1\"}")))
+        .andExpect(
+            content()
+                .string(
+                    containsString(
+                        "books_service_seconds_bucket{class=\"com.example.automationdemo."
+                            + "automationdemo.service.BookService\",exception=\"BookNotFoundException\","
+                            + "method=\"getBookById\"")))
+        .andExpect(
+            content()
+                .string(
+                    containsString(
+                        "spring_data_repository_invocations_seconds_bucket{exception=\"None\","
+                            + "method=\"findById\",repository=\"BookRepository\"")))
+        .andExpect(content().string(containsString("hikaricp_connections_pending{")))
+        .andExpect(
+            content().string(containsString("hikaricp_connections_acquire_seconds_bucket{")));
+  }
+}
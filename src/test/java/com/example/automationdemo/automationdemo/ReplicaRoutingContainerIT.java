@@ -0,0 +1,265 @@
+package com.example.automationdemo.automationdemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.jdbc.ReplicaDataSource;
+import com.example.automationdemo.automationdemo.web.ConsistencyTokenFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.containers.wait.strategy.WaitStrategy;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Read-replica routing against a Postgres primary and one streaming replica. Reads go to the
+ * replica; a consistency token from a write makes the next read see it, from the primary if the
+ * replica hasn't replayed it in time. The book cache is on, so cache misses are routed here too.
+ */
+@SpringBootTest(
+    properties = {
+      "books.l2-cache.enabled=false",
+      "books.replicas.check-interval=100ms",
+      "books.replicas.catch-up-timeout=200ms"
+    })
+@AutoConfigureMockMvc
+@Testcontainers
+public class ReplicaRoutingContainerIT {
+
+  private static final String IMAGE = "bitnami/postgresql:16";
+  private static final String SUPERUSER_PASSWORD = "postgres";
+
+  static Network network = Network.newNetwork();
+
+  @Container
+  static GenericContainer<?> primary =
+      new GenericContainer<>(IMAGE)
+          .withNetwork(network)
+          .withNetworkAliases("primary")
+          .withEnv("POSTGRESQL_REPLICATION_MODE", "master")
+          .withEnv("POSTGRESQL_REPLICATION_USER", "repl")
+          .withEnv("POSTGRESQL_REPLICATION_PASSWORD", "repl")
+          .withEnv("POSTGRESQL_POSTGRES_PASSWORD", SUPERUSER_PASSWORD)
+          .withEnv("POSTGRESQL_USERNAME", "test")
+          .withEnv("POSTGRESQL_PASSWORD", "test")
+          .withEnv("POSTGRESQL_DATABASE", "testdb")
+          .withExposedPorts(5432)
+          .waitingFor(ready());
+
+  @Container
+  static GenericContainer<?> replica =
+      new GenericContainer<>(IMAGE)
+          .withNetwork(network)
+          .dependsOn(primary)
+          .withEnv("POSTGRESQL_REPLICATION_MODE", "slave")
+          .withEnv("POSTGRESQL_MASTER_HOST", "primary")
+          .withEnv("POSTGRESQL_MASTER_PORT_NUMBER", "5432")
+          .withEnv("POSTGRESQL_REPLICATION_USER", "repl")
+          .withEnv("POSTGRESQL_REPLICATION_PASSWORD", "repl")
+          .withEnv("POSTGRESQL_POSTGRES_PASSWORD", SUPERUSER_PASSWORD)
+          .withEnv("POSTGRESQL_PASSWORD", "test")
+          .withExposedPorts(5432)
+          .waitingFor(ready());
+
+  @DynamicPropertySource
+  static void registerPgProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", () -> jdbcUrl(primary));
+    registry.add("spring.datasource.username", () -> "test");
+    registry.add("spring.datasource.password", () -> "test");
+    registry.add("spring.r2dbc.url", () -> r2dbcUrl(primary));
+    registry.add("spring.r2dbc.username", () -> "test");
+    registry.add("spring.r2dbc.password", () -> "test");
+    registry.add("books.replicas.urls", () -> jdbcUrl(replica));
+  }
+
+  @RegisterExtension final SqlStatementCountExtension sql = new SqlStatementCountExtension();
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private ReplicaDataSource replicaDataSource;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @AfterEach
+  void resumeReplay() throws SQLException {
+    execute(replica, "SELECT pg_wal_replay_resume()");
+  }
+
+  @Test
+  void reads_ShouldGoToTheReplica() throws Exception {
+    // Arrange
+    awaitHealthyReplica();
+    double before = replicaReads();
+
+    // Act
+    mockMvc.perform(get("/api/books")).andExpect(status().isOk());
+
+    // Assert
+    assertTrue(replicaReads() > before);
+  }
+
+  @Test
+  void readWithToken_WhenReplicaIsBehind_ShouldStillSeeTheWrite() throws Exception {
+    // Arrange - the replica stops replaying, so it never gets to the new book
+    awaitHealthyReplica();
+    execute(replica, "SELECT pg_wal_replay_pause()");
+    String token =
+        mockMvc
+            .perform(
+                post("/api/books")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(book("Token Test"))))
+            .andExpect(status().isCreated())
+            .andExpect(header().exists(ConsistencyTokenFilter.HEADER))
+            .andReturn()
+            .getResponse()
+            .getHeader(ConsistencyTokenFilter.HEADER);
+
+    // Act & Assert - without the token the replica answers, with it the primary does
+    mockMvc
+        .perform(get("/api/books/search").param("title", "Token Test"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(0));
+    mockMvc
+        .perform(
+            get("/api/books/search")
+                .param("title", "Token Test")
+                .header(ConsistencyTokenFilter.HEADER, token))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1));
+  }
+
+  @Test
+  void readWithToken_WhenReplicaCatchesUp_ShouldUseTheReplica() throws Exception {
+    // Arrange
+    awaitHealthyReplica();
+    String token =
+        mockMvc
+            .perform(
+                post("/api/books")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(book("Caught Up"))))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getHeader(ConsistencyTokenFilter.HEADER);
+    double before = replicaReads();
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            get("/api/books/search")
+                .param("title", "Caught Up")
+                .header(ConsistencyTokenFilter.HEADER, token))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1));
+    assertTrue(replicaReads() > before);
+  }
+
+  @Test
+  void cacheMiss_AfterWrite_ShouldRunOnlyItsOwnStatement() throws Exception {
+    // Arrange - the replica stops replaying, so it never gets to the new book
+    awaitHealthyReplica();
+    execute(replica, "SELECT pg_wal_replay_pause()");
+    String created =
+        mockMvc
+            .perform(
+                post("/api/books")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(book("Cache Miss"))))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    Long id = objectMapper.readValue(created, BookDTO.class).getId();
+
+    // Act & Assert - the miss goes to the primary, without asking it for its position first or
+    // waiting for the replica
+    mockMvc
+        .perform(get("/api/books/" + id))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.title").value("Cache Miss"));
+    sql.assertStatements("GET", "/api/books/{id}", 1);
+  }
+
+  @Test
+  void malformedToken_ShouldBeRejected() throws Exception {
+    mockMvc
+        .perform(get("/api/books").header(ConsistencyTokenFilter.HEADER, "not-an-lsn"))
+        .andExpect(status().isBadRequest());
+  }
+
+  private static WaitStrategy ready() {
+    return Wait.forSuccessfulCommand(
+            "PGPASSWORD=" + SUPERUSER_PASSWORD + " psql -h 127.0.0.1 -U postgres -c 'SELECT 1'")
+        .withStartupTimeout(Duration.ofMinutes(2));
+  }
+
+  private static String jdbcUrl(GenericContainer<?> container) {
+    return "jdbc:postgresql://"
+        + container.getHost()
+        + ":"
+        + container.getMappedPort(5432)
+        + "/testdb";
+  }
+
+  private static String r2dbcUrl(GenericContainer<?> container) {
+    return "r2dbc:postgresql://"
+        + container.getHost()
+        + ":"
+        + container.getMappedPort(5432)
+        + "/testdb";
+  }
+
+  private static void execute(GenericContainer<?> container, String sql) throws SQLException {
+    try (Connection connection =
+            DriverManager.getConnection(jdbcUrl(container), "postgres", SUPERUSER_PASSWORD);
+        Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private void awaitHealthyReplica() throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (replicaDataSource.healthyReplicas() == 0) {
+      if (System.nanoTime() - deadline >= 0) {
+        fail("The replica never became healthy");
+      }
+      Thread.sleep(50);
+    }
+  }
+
+  private double replicaReads() {
+    return meterRegistry.get("books.datasource.reads").tag("target", "replica").counter().count();
+  }
+
+  private static BookDTO book(String title) {
+    BookDTO book = new BookDTO();
+    book.setTitle(title);
+    book.setAuthor("Replica Author");
+    book.setGenre("Replica Genre");
+    return book;
+  }
+}
@@ -0,0 +1,50 @@
+package com.example.automationdemo.automationdemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Asserts how many JDBC statements a request ran, from the {@code books.sql.statements} summaries
+ * that SqlBudgetFilter records in the test's application context. Register it with
+ * {@code @RegisterExtension} on a {@code @SpringBootTest} and call {@link #assertStatements} after
+ * each request: it checks that exactly one request reached the endpoint since the test started or
+ * the endpoint was last checked, and that it ran exactly the expected number of statements.
+ */
+public class SqlStatementCountExtension implements BeforeEachCallback {
+
+  private record Seen(long requests, double statements) {}
+
+  private final Map<String, Seen> seen = new HashMap<>();
+  private MeterRegistry meterRegistry;
+
+  @Override
+  public void beforeEach(ExtensionContext context) {
+    meterRegistry = SpringExtension.getApplicationContext(context).getBean(MeterRegistry.class);
+    seen.clear();
+    for (DistributionSummary summary : meterRegistry.find("books.sql.statements").summaries()) {
+      seen.put(
+          summary.getId().getTag("method") + " " + summary.getId().getTag("uri"),
+          new Seen(summary.count(), summary.totalAmount()));
+    }
+  }
+
+  // e.g. assertStatements("GET", "/api/books/{id}", 1)
+  public void assertStatements(String method, String uri, int expected) {
+    String endpoint = method + " " + uri;
+    DistributionSummary summary =
+        meterRegistry.find("books.sql.statements").tags("method", method, "uri", uri).summary();
+    Seen now = summary != null ? new Seen(summary.count(), summary.totalAmount()) : new Seen(0, 0);
+    Seen before = seen.getOrDefault(endpoint, new Seen(0, 0));
+    seen.put(endpoint, now);
+    assertEquals(1, now.requests() - before.requests(), "Requests to " + endpoint);
+    assertEquals(
+        expected, (int) (now.statements() - before.statements()), "SQL statements of " + endpoint);
+  }
+}
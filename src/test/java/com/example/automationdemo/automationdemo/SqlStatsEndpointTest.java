@@ -0,0 +1,69 @@
+package com.example.automationdemo.automationdemo;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.example.automationdemo.automationdemo.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Statements run through JPA show up by fingerprint under /actuator/sqlstats, with findByFilters
+ * and findPage named by their Hibernate comments.
+ */
+@SpringBootTest(
+    properties = {
+      "management.endpoints.web.exposure.include=sqlstats",
+      "books.cache.enabled=false",
+      "books.l2-cache.enabled=false"
+    })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SqlStatsEndpointTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private BookRepository bookRepository;
+
+  @Test
+  void sqlstats_ShouldListFingerprintsOfExecutedStatements() throws Exception {
+    // Arrange
+    bookRepository.findByFilters(null, "Endpoint Author", null, null, null);
+    bookRepository.findByFilters(null, "Another Author", null, null, null);
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/actuator/sqlstats").param("order", "total").param("limit", "100"))
+        .andExpect(status().isOk())
+        .andExpect(
+            jsonPath("$[?(@.fingerprint =~ /\\/\\* findByFilters \\*\\/ select .*/)].count")
+                .value(hasItem(2)));
+  }
+
+  @Test
+  void sqlstats_ShouldNameTheSearchEndpointsQuery() throws Exception {
+    // Arrange
+    mockMvc.perform(get("/api/books/search").param("genre", "Endpoint Genre"));
+    mockMvc.perform(get("/api/books/search").param("genre", "Another Genre"));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/actuator/sqlstats").param("order", "total").param("limit", "100"))
+        .andExpect(status().isOk())
+        .andExpect(
+            jsonPath("$[?(@.fingerprint =~ /\\/\\* findPage \\*\\/ select .*/)].count")
+                .value(hasItem(2)));
+  }
+
+  @Test
+  void sqlstats_WithUnknownOrder_ShouldBeBadRequest() throws Exception {
+    mockMvc
+        .perform(get("/actuator/sqlstats").param("order", "fastest"))
+        .andExpect(status().isBadRequest());
+  }
+}
@@ -0,0 +1,145 @@
+package com.example.automationdemo.automationdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.ImageFromDockerfile;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Cold-start time of the Docker image, with the plain {@code standard} target (java -jar, Hibernate
+ * schema update) against the default {@code optimized} target (Spring AOT, CDS archive, no schema
+ * diff): time from starting the container to the first successful {@code /actuator/health} and
+ * {@code GET /api/books/{id}}. The schema is migrated beforehand, as it is for a new Cloud Run
+ * instance. Builds both images from the Dockerfile, so the first run takes a while.
+ */
+@Testcontainers
+public class StartupBenchmarkContainerIT {
+
+  private static final int RUNS = 3;
+  private static final long BOOK_ID = 1;
+  private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+  static Network network = Network.newNetwork();
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:13.3")
+          .withNetwork(network)
+          .withNetworkAliases("postgres")
+          .withDatabaseName("testdb")
+          .withUsername("test")
+          .withPassword("test");
+
+  private final HttpClient client =
+      HttpClient.newBuilder().connectTimeout(Duration.ofMillis(500)).build();
+
+  @Test
+  void optimizedImage_ShouldStartAndServeBooks() throws Exception {
+    // Arrange
+    Flyway.configure()
+        .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+        .load()
+        .migrate();
+    try (Connection connection =
+            DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Statement statement = connection.createStatement()) {
+      statement.execute(
+          "INSERT INTO books (id, title, author, genre) "
+              + "VALUES ("
+              + BOOK_ID
+              + ", 'Startup', 'Author', 'Fiction')");
+    }
+
+    // Act
+    Result standard = benchmark("standard");
+    Result optimized = benchmark("optimized");
+
+    System.out.printf(
+        "Cold start to first 200, median of %d runs%n"
+            + "  standard    health %6d ms   /api/books/{id} %6d ms%n"
+            + "  optimized   health %6d ms   /api/books/{id} %6d ms%n",
+        RUNS,
+        standard.healthMillis(),
+        standard.bookMillis(),
+        optimized.healthMillis(),
+        optimized.bookMillis());
+
+    // Assert - both images came up and served the book on every run (checked while running)
+    assertEquals(RUNS, standard.runs());
+    assertEquals(RUNS, optimized.runs());
+  }
+
+  private Result benchmark(String target) throws Exception {
+    ImageFromDockerfile image =
+        new ImageFromDockerfile("automation-demo-startup-" + target, false)
+            .withDockerfile(Path.of("Dockerfile"))
+            .withTarget(target);
+    long[] health = new long[RUNS];
+    long[] book = new long[RUNS];
+    for (int i = 0; i < RUNS; i++) {
+      try (GenericContainer<?> app =
+          new GenericContainer<>(image)
+              .withNetwork(network)
+              .withEnv("DB_HOST", "postgres")
+              .withEnv("DB_NAME", "testdb")
+              .withEnv("DB_USER", "test")
+              .withEnv("DB_PASSWORD", "test")
+              .withExposedPorts(8080)
+              // Only wait for the JVM to be running; readiness is what's being measured
+              .waitingFor(Wait.forLogMessage(".*Starting AutomationDemoApplication.*", 1))) {
+        long start = System.nanoTime();
+        app.start();
+        String base = "http://" + app.getHost() + ":" + app.getMappedPort(8080);
+        health[i] = awaitOk(URI.create(base + "/actuator/health"), start);
+        book[i] = awaitOk(URI.create(base + "/api/books/" + BOOK_ID), start);
+      }
+    }
+    return new Result(RUNS, median(health), median(book));
+  }
+
+  // Milliseconds from start until the URI first answers 200
+  private long awaitOk(URI uri, long start) throws InterruptedException {
+    long deadline = start + TIMEOUT.toNanos();
+    while (System.nanoTime() < deadline) {
+      try {
+        HttpResponse<Void> response =
+            client.send(
+                HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(1)).GET().build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 200) {
+          return (System.nanoTime() - start) / 1_000_000;
+        }
+      } catch (java.io.IOException ex) {
+        // Not listening yet
+      }
+      Thread.sleep(20);
+    }
+    throw new AssertionError(uri + " did not answer 200 within " + TIMEOUT);
+  }
+
+  private static long median(long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+
+  private record Result(int runs, long healthMillis, long bookMillis) {}
+}
@@ -0,0 +1,206 @@
+package com.example.automationdemo.automationdemo.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.exception.BookNotFoundException;
+import com.example.automationdemo.automationdemo.jdbc.ConsistencyToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BookCacheTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private BookCache bookCache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    bookCache = new BookCache(true, 100, Duration.ofMinutes(10), meterRegistry);
+    loads = new AtomicInteger();
+  }
+
+  private BookDTO book(Long id, String isbn) {
+    BookDTO book = new BookDTO();
+    book.setId(id);
+    book.setTitle("Title " + id);
+    book.setIsbn(isbn);
+    return book;
+  }
+
+  private Supplier<BookDTO> loader(BookDTO book) {
+    return () -> {
+      loads.incrementAndGet();
+      return book;
+    };
+  }
+
+  @Test
+  void reads_WithConsistencyToken_ShouldBypassTheCache() {
+    // Arrange - cached before the token's write, possibly by another instance's reader
+    BookDTO stale = book(1L, "1234567890");
+    bookCache.getById(1L, loader(stale));
+    BookDTO fresh = book(1L, "1234567890");
+    ConsistencyToken.require(ConsistencyToken.parse("0/10100"));
+
+    // Act & Assert - neither served from nor put in the cache
+    try {
+      assertSame(fresh, bookCache.getById(1L, loader(fresh)));
+      assertSame(fresh, bookCache.getByIsbn("1234567890", loader(fresh)));
+    } finally {
+      ConsistencyToken.clear();
+    }
+    assertSame(stale, bookCache.getById(1L, loader(fresh)));
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  void loads_ShouldRequireTheLatestPrimaryPosition() {
+    AtomicBoolean latest = new AtomicBoolean();
+    BookDTO book = book(1L, null);
+
+    bookCache.getById(
+        1L,
+        () -> {
+          latest.set(ConsistencyToken.isLatestRequired());
+          return book;
+        });
+
+    assertTrue(latest.get());
+    assertFalse(ConsistencyToken.isLatestRequired());
+  }
+
+  @Test
+  void getById_ShouldLoadOnceAndThenHit() {
+    BookDTO book = book(1L, "1234567890");
+
+    assertSame(book, bookCache.getById(1L, loader(book)));
+    assertSame(book, bookCache.getById(1L, loader(book)));
+
+    assertEquals(1, loads.get());
+    assertEquals(
+        1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    assertEquals(
+        1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+  }
+
+  @Test
+  void getByIsbn_ShouldShareEntryWithId() {
+    BookDTO book = book(1L, "1234567890");
+    bookCache.getById(1L, loader(book));
+
+    assertSame(book, bookCache.getByIsbn("1234567890", loader(book)));
+    assertEquals(1, loads.get());
+    assertEquals(1, bookCache.size());
+  }
+
+  @Test
+  void getById_WhenLoaderThrows_ShouldNotCache() {
+    Supplier<BookDTO> missing =
+        () -> {
+          loads.incrementAndGet();
+          throw new BookNotFoundException("Book not found with ID: 9");
+        };
+
+    assertThrows(BookNotFoundException.class, () -> bookCache.getById(9L, missing));
+    assertThrows(BookNotFoundException.class, () -> bookCache.getById(9L, missing));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void getAllById_ShouldLoadOnlyTheMissingIdsInOneCall() {
+    BookDTO cached = book(1L, "1111111111");
+    BookDTO loaded = book(2L, "2222222222");
+    bookCache.getById(1L, loader(cached));
+    List<Set<Long>> calls = new ArrayList<>();
+
+    Map<Long, BookDTO> books =
+        bookCache.getAllById(
+            List.of(1L, 2L, 3L),
+            missing -> {
+              calls.add(missing);
+              return List.of(loaded);
+            });
+
+    assertEquals(List.of(Set.of(2L, 3L)), calls);
+    assertEquals(Map.of(1L, cached, 2L, loaded), books);
+    // The loaded book is now cached under both keys
+    assertSame(loaded, bookCache.getByIsbn("2222222222", loader(loaded)));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void getAllByIsbn_WhenEverythingIsCached_ShouldNotCallTheLoader() {
+    BookDTO book = book(1L, "1111111111");
+    bookCache.getById(1L, loader(book));
+
+    Map<String, BookDTO> books =
+        bookCache.getAllByIsbn(
+            List.of("1111111111"),
+            missing -> {
+              throw new AssertionError("Unexpected load of " + missing);
+            });
+
+    assertEquals(Map.of("1111111111", book), books);
+  }
+
+  @Test
+  void evict_ShouldDropIdAndIsbnKeys() {
+    BookDTO book = book(1L, "1234567890");
+    bookCache.getById(1L, loader(book));
+
+    bookCache.evict(1L);
+
+    assertFalse(bookCache.containsIsbn("1234567890"));
+    bookCache.getByIsbn("1234567890", loader(book));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void evict_WithChangedIsbn_ShouldNotServeOldIsbn() {
+    bookCache.getById(1L, loader(book(1L, "1111111111")));
+
+    bookCache.evict(1L, "1111111111", "2222222222");
+    BookDTO updated = book(1L, "2222222222");
+    bookCache.getById(1L, loader(updated));
+
+    assertFalse(bookCache.containsIsbn("1111111111"));
+    assertTrue(bookCache.containsIsbn("2222222222"));
+  }
+
+  @Test
+  void load_OverlappingEviction_ShouldNotCacheStaleRow() {
+    BookDTO stale = book(1L, "1234567890");
+    Supplier<BookDTO> racingLoader =
+        () -> {
+          loads.incrementAndGet();
+          // A concurrent update commits while this read is in flight
+          bookCache.evict(1L);
+          return stale;
+        };
+
+    assertSame(stale, bookCache.getById(1L, racingLoader));
+    assertEquals(0, bookCache.size());
+  }
+
+  @Test
+  void disabledCache_ShouldAlwaysLoad() {
+    BookCache disabled = new BookCache(false, 100, Duration.ofMinutes(10), meterRegistry);
+    BookDTO book = book(1L, "1234567890");
+
+    disabled.getById(1L, loader(book));
+    disabled.getById(1L, loader(book));
+
+    assertEquals(2, loads.get());
+  }
+}
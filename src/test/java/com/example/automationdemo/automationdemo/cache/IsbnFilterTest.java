@@ -0,0 +1,63 @@
+package com.example.automationdemo.automationdemo.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+public class IsbnFilterTest {
+
+  @Test
+  void mightContain_BeforeLoad_ShouldAnswerTrue() {
+    IsbnFilter filter = new IsbnFilter(true, 1_000, 0.01);
+
+    assertTrue(filter.mightContain("978-0-00-000000-0"));
+  }
+
+  @Test
+  void mightContain_AfterLoad_ShouldFindEveryLoadedIsbn() {
+    // Arrange
+    IsbnFilter filter = new IsbnFilter(true, 10_000, 0.01);
+
+    // Act
+    filter.load(IntStream.range(0, 10_000).mapToObj(i -> "ISBN-" + i));
+    filter.put("ISBN-added");
+
+    // Assert - no false negatives
+    assertTrue(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("ISBN-" + i)));
+    assertTrue(filter.mightContain("ISBN-added"));
+  }
+
+  @Test
+  void mightContain_ForUnknownIsbns_ShouldStayNearTheFalsePositiveRate() {
+    // Arrange
+    IsbnFilter filter = new IsbnFilter(true, 10_000, 0.01);
+    filter.load(IntStream.range(0, 10_000).mapToObj(i -> "ISBN-" + i));
+
+    // Act
+    long falsePositives =
+        IntStream.range(0, 10_000).filter(i -> filter.mightContain("OTHER-" + i)).count();
+
+    // Assert - 1% expected; allow for variance
+    assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+  }
+
+  @Test
+  void mightContain_WhenDisabled_ShouldAlwaysAnswerTrue() {
+    // Arrange
+    IsbnFilter filter = new IsbnFilter(false, 1_000, 0.01);
+
+    // Act
+    filter.load(Stream.of("111"));
+
+    // Assert
+    assertTrue(filter.mightContain("222"));
+    assertFalse(filter.isEnabled());
+  }
+
+  @Test
+  void constructor_WithInvalidFalsePositiveRate_ShouldThrowException() {
+    assertThrows(IllegalArgumentException.class, () -> new IsbnFilter(true, 1_000, 1.5));
+  }
+}
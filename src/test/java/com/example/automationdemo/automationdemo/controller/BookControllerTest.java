@@ -1,25 +1,53 @@
 package com.example.automationdemo.automationdemo.controller;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.example.automationdemo.automationdemo.dto.BookBatchResult;
 import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.dto.BookLookupResult;
+import com.example.automationdemo.automationdemo.dto.BookPage;
+import com.example.automationdemo.automationdemo.dto.BookPatch;
+import com.example.automationdemo.automationdemo.dto.BookSearchHitDTO;
+import com.example.automationdemo.automationdemo.dto.BookView;
 import com.example.automationdemo.automationdemo.exception.BookNotFoundException;
 import com.example.automationdemo.automationdemo.exception.GlobalExceptionHandler;
+import com.example.automationdemo.automationdemo.exception.PreconditionFailedException;
+import com.example.automationdemo.automationdemo.repository.BookField;
+import com.example.automationdemo.automationdemo.repository.BookProjection;
+import com.example.automationdemo.automationdemo.repository.BookSearchCriteria;
+import com.example.automationdemo.automationdemo.repository.BookSort;
+import com.example.automationdemo.automationdemo.service.BookBatchService;
 import com.example.automationdemo.automationdemo.service.BookService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 /**
@@ -31,16 +59,24 @@ public class BookControllerTest {
 
   private MockMvc mockMvc;
   private BookService bookService;
+  private BookBatchService bookBatchService;
   private ObjectMapper objectMapper;
   private BookDTO testBookDTO;
+  private BookView testBookView;
 
   @BeforeEach
   void setUp() {
     // Create the mocks
     this.bookService = Mockito.mock(BookService.class);
+    this.bookBatchService = Mockito.mock(BookBatchService.class);
+
+    // Set up ObjectMapper for JSON conversion
+    this.objectMapper = new ObjectMapper();
+    // Register the JavaTimeModule to handle LocalDate serialization
+    objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
 
     // Create an instance of the controller with the mocked service
-    BookController bookController = new BookController(bookService);
+    BookController bookController = new BookController(bookService, bookBatchService, objectMapper);
 
     // Set up MockMvc with the controller and exception handler
     this.mockMvc =
@@ -48,11 +84,6 @@ public class BookControllerTest {
             .setControllerAdvice(new GlobalExceptionHandler())
             .build();
 
-    // Set up ObjectMapper for JSON conversion
-    this.objectMapper = new ObjectMapper();
-    // Register the JavaTimeModule to handle LocalDate serialization
-    objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
-
     // Create test book DTO
     testBookDTO = new BookDTO();
     testBookDTO.setId(1L);
@@ -63,13 +94,25 @@ public class BookControllerTest {
     testBookDTO.setPublisher("Test Publisher");
     testBookDTO.setPublicationDate(LocalDate.of(2020, 1, 1));
     testBookDTO.setDescription("Test Description");
+
+    // The same book as the list endpoints return it by default, without the description
+    Map<BookField, Object> values = new EnumMap<>(BookField.class);
+    values.put(BookField.ID, 1L);
+    values.put(BookField.TITLE, "Test Title");
+    values.put(BookField.AUTHOR, "Test Author");
+    values.put(BookField.GENRE, "Fiction");
+    values.put(BookField.PUBLISHER, "Test Publisher");
+    values.put(BookField.ISBN, "1234567890");
+    values.put(BookField.PUBLICATION_DATE, LocalDate.of(2020, 1, 1));
+    testBookView = new BookView(new BookProjection(values), BookField.LIST_DEFAULT);
   }
 
   @Test
   void getAllBooks_ShouldReturnListOfBooks() throws Exception {
     // Arrange
-    List<BookDTO> books = Collections.singletonList(testBookDTO);
-    when(bookService.getAllBooks()).thenReturn(books);
+    List<BookView> books = Collections.singletonList(testBookView);
+    when(bookService.getBookViews(BookSearchCriteria.none(), BookField.LIST_DEFAULT))
+        .thenReturn(books);
 
     // Act & Assert
     mockMvc
@@ -79,9 +122,11 @@ public class BookControllerTest {
         .andExpect(jsonPath("$", hasSize(1)))
         .andExpect(jsonPath("$[0].id", is(1)))
         .andExpect(jsonPath("$[0].title", is("Test Title")))
-        .andExpect(jsonPath("$[0].author", is("Test Author")));
+        .andExpect(jsonPath("$[0].author", is("Test Author")))
+        .andExpect(jsonPath("$[0].publicationDate", is("2020-01-01")))
+        .andExpect(jsonPath("$[0].description").doesNotExist());
 
-    verify(bookService, times(1)).getAllBooks();
+    verify(bookService, times(1)).getBookViews(BookSearchCriteria.none(), BookField.LIST_DEFAULT);
   }
 
   @Test
@@ -101,6 +146,99 @@ public class BookControllerTest {
     verify(bookService, times(1)).getBookById(1L);
   }
 
+  @Test
+  void getBookById_ShouldReturnETagAndLastModified() throws Exception {
+    // Arrange
+    testBookDTO.setVersion(3L);
+    testBookDTO.setUpdatedAt(Instant.parse("2024-05-01T10:15:30Z"));
+    when(bookService.getBookById(1L)).thenReturn(testBookDTO);
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/books/1"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"1.3\""))
+        .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Wed, 01 May 2024 10:15:30 GMT"))
+        .andExpect(jsonPath("$.version").doesNotExist());
+  }
+
+  @Test
+  void getBookById_WithMatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+    // Arrange
+    testBookDTO.setVersion(3L);
+    when(bookService.getBookById(1L)).thenReturn(testBookDTO);
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/books/1").header(HttpHeaders.IF_NONE_MATCH, "\"1.3\""))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+  }
+
+  @Test
+  void getBookByIsbn_WithIfModifiedSince_ShouldReturnNotModified() throws Exception {
+    // Arrange
+    testBookDTO.setUpdatedAt(Instant.parse("2024-05-01T10:15:30Z"));
+    when(bookService.getBookByIsbn("1234567890")).thenReturn(testBookDTO);
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            get("/api/books/isbn/1234567890")
+                .header(HttpHeaders.IF_MODIFIED_SINCE, "Wed, 01 May 2024 10:15:30 GMT"))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  void getAllBooks_WithCurrentCatalogETag_ShouldNotQuery() throws Exception {
+    // Arrange
+    when(bookService.getCatalogVersion()).thenReturn(42L);
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, "\"c42\""))
+        .andExpect(status().isNotModified());
+
+    verify(bookService, never()).getBookViews(any(), any());
+  }
+
+  @Test
+  void searchBooks_WithStaleCatalogETag_ShouldReturnBooksAndNewETag() throws Exception {
+    // Arrange
+    when(bookService.getCatalogVersion()).thenReturn(43L);
+    when(bookService.getBookViews(
+            new BookSearchCriteria(null, "Author", null, null, null), BookField.LIST_DEFAULT))
+        .thenReturn(Collections.singletonList(testBookView));
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            get("/api/books/search")
+                .param("author", "Author")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"c42\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"c43\""))
+        .andExpect(jsonPath("$", hasSize(1)));
+  }
+
+  @Test
+  void listBooks_WithJsonETag_AsCbor_ShouldReturnBooksAndCborETag() throws Exception {
+    // Arrange
+    when(bookService.getCatalogVersion()).thenReturn(42L);
+    when(bookService.getBookViews(any(), any()))
+        .thenReturn(Collections.singletonList(testBookView));
+
+    // Act & Assert - the tag names the format, so the JSON copy doesn't revalidate CBOR
+    mockMvc
+        .perform(
+            get("/api/books")
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"c42\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"c42-cbor\""))
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+  }
+
   @Test
   void getBookById_WithInvalidId_ShouldReturnNotFound() throws Exception {
     // Arrange
@@ -201,7 +339,7 @@ public class BookControllerTest {
     updatedBookDTO.setAuthor("Test Author");
     updatedBookDTO.setGenre("Fiction");
 
-    when(bookService.updateBook(eq(1L), any(BookDTO.class))).thenReturn(updatedBookDTO);
+    when(bookService.updateBook(eq(1L), any(BookDTO.class), isNull())).thenReturn(updatedBookDTO);
 
     // Act & Assert
     mockMvc
@@ -214,13 +352,111 @@ public class BookControllerTest {
         .andExpect(jsonPath("$.id", is(1)))
         .andExpect(jsonPath("$.title", is("Updated Title")));
 
-    verify(bookService, times(1)).updateBook(eq(1L), any(BookDTO.class));
+    verify(bookService, times(1)).updateBook(eq(1L), any(BookDTO.class), isNull());
+  }
+
+  @Test
+  void updateBook_WithIfMatch_ShouldPassExpectedVersion() throws Exception {
+    // Arrange
+    testBookDTO.setVersion(4L);
+    when(bookService.updateBook(eq(1L), any(BookDTO.class), eq(3L))).thenReturn(testBookDTO);
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            put("/api/books/1")
+                .header(HttpHeaders.IF_MATCH, "\"1.3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testBookDTO)))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"1.4\""));
+  }
+
+  @Test
+  void updateBook_WithStaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+    // Arrange
+    when(bookService.updateBook(eq(1L), any(BookDTO.class), eq(3L)))
+        .thenThrow(new PreconditionFailedException("Book 1 has been modified since version 3"));
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            put("/api/books/1")
+                .header(HttpHeaders.IF_MATCH, "\"1.3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testBookDTO)))
+        .andExpect(status().isPreconditionFailed())
+        .andExpect(jsonPath("$.status", is(412)));
+  }
+
+  @Test
+  void patchBook_WithMergePatch_ShouldPassOnlyPresentMembers() throws Exception {
+    // Arrange
+    testBookDTO.setVersion(4L);
+    when(bookService.patchBook(eq(1L), any(BookPatch.class), eq(3L))).thenReturn(testBookDTO);
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            patch("/api/books/1")
+                .header(HttpHeaders.IF_MATCH, "\"1.3\"")
+                .contentType("application/merge-patch+json")
+                .content("{\"title\":\"Test Title\",\"description\":null}"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"1.4\""))
+        .andExpect(jsonPath("$.title", is("Test Title")));
+
+    ArgumentCaptor<BookPatch> captor = ArgumentCaptor.forClass(BookPatch.class);
+    verify(bookService).patchBook(eq(1L), captor.capture(), eq(3L));
+    assertTrue(captor.getValue().changes("title"));
+    assertTrue(captor.getValue().changes("description"));
+    assertFalse(captor.getValue().changes("author"));
+  }
+
+  @Test
+  void patchBook_RemovingRequiredField_ShouldReturnBadRequest() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(
+            patch("/api/books/1")
+                .contentType("application/merge-patch+json")
+                .content("{\"title\":null}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", is("title cannot be removed")));
+
+    verify(bookService, never()).patchBook(any(), any(), any());
+  }
+
+  @Test
+  void patchBook_WithUnknownField_ShouldReturnBadRequest() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(
+            patch("/api/books/1")
+                .contentType("application/merge-patch+json")
+                .content("{\"rating\":5}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", is("Unsupported field: rating")));
+  }
+
+  @Test
+  void updateBook_WithIfMatchForOtherBook_ShouldReturnPreconditionFailed() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(
+            put("/api/books/1")
+                .header(HttpHeaders.IF_MATCH, "\"2.3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testBookDTO)))
+        .andExpect(status().isPreconditionFailed());
+
+    verify(bookService, never()).updateBook(any(), any(), any());
   }
 
   @Test
   void updateBook_WithInvalidId_ShouldReturnNotFound() throws Exception {
     // Arrange
-    when(bookService.updateBook(eq(99L), any(BookDTO.class)))
+    when(bookService.updateBook(eq(99L), any(BookDTO.class), isNull()))
         .thenThrow(new BookNotFoundException("Book not found with ID: 99"));
 
     // Act & Assert
@@ -234,7 +470,7 @@ public class BookControllerTest {
         .andExpect(jsonPath("$.error", is("Not Found")))
         .andExpect(jsonPath("$.message", containsString("Book not found")));
 
-    verify(bookService, times(1)).updateBook(eq(99L), any(BookDTO.class));
+    verify(bookService, times(1)).updateBook(eq(99L), any(BookDTO.class), isNull());
   }
 
   @Test
@@ -266,12 +502,108 @@ public class BookControllerTest {
     verify(bookService, times(1)).deleteBook(99L);
   }
 
+  @Test
+  void getBooksByIds_ShouldReturnOneResultPerIdInOrder() throws Exception {
+    // Arrange
+    when(bookService.getBooksByIds(List.of(1L, 99L)))
+        .thenReturn(List.of(BookLookupResult.of(1L, testBookDTO), BookLookupResult.of(99L, null)));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/books").param("ids", "1,99"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[0].key", is(1)))
+        .andExpect(jsonPath("$[0].status", is("FOUND")))
+        .andExpect(jsonPath("$[0].book.title", is(testBookDTO.getTitle())))
+        .andExpect(jsonPath("$[1].key", is(99)))
+        .andExpect(jsonPath("$[1].status", is("NOT_FOUND")))
+        .andExpect(jsonPath("$[1].book").doesNotExist());
+  }
+
+  @Test
+  void getBooksByIsbns_ShouldReturnOneResultPerIsbn() throws Exception {
+    // Arrange
+    when(bookService.getBooksByIsbns(List.of("1234567890", "0000000000")))
+        .thenReturn(
+            List.of(
+                BookLookupResult.of("1234567890", testBookDTO),
+                BookLookupResult.of("0000000000", null)));
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            post("/api/books/isbn/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"1234567890\",\"0000000000\"]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].key", is("1234567890")))
+        .andExpect(jsonPath("$[0].status", is("FOUND")))
+        .andExpect(jsonPath("$[1].status", is("NOT_FOUND")));
+  }
+
+  @Test
+  void getBooksByIds_WithTooManyIds_ShouldReturnBadRequest() throws Exception {
+    // Arrange
+    String ids =
+        LongStream.rangeClosed(1, BookController.MAX_LOOKUP_KEYS + 1)
+            .mapToObj(Long::toString)
+            .collect(Collectors.joining(","));
+
+    // Act & Assert
+    mockMvc.perform(get("/api/books").param("ids", ids)).andExpect(status().isBadRequest());
+    mockMvc
+        .perform(
+            post("/api/books/isbn/batch").contentType(MediaType.APPLICATION_JSON).content("[]"))
+        .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(bookService);
+  }
+
+  @Test
+  void deleteBooks_WithIds_ShouldReturnDeletedCount() throws Exception {
+    // Arrange
+    when(bookService.deleteBooks(Set.of(1L, 2L, 3L))).thenReturn(2);
+
+    // Act & Assert
+    mockMvc
+        .perform(delete("/api/books").param("ids", "1,2,3"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.deleted", is(2)));
+  }
+
+  @Test
+  void deleteBooks_WithFilters_ShouldReturnDeletedCount() throws Exception {
+    // Arrange
+    BookSearchCriteria criteria = new BookSearchCriteria(null, null, "Poetry", null, null);
+    when(bookService.deleteBooks(criteria)).thenReturn(5);
+
+    // Act & Assert
+    mockMvc
+        .perform(delete("/api/books").param("genre", "Poetry"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.deleted", is(5)));
+  }
+
+  @Test
+  void deleteBooks_WithoutIdsOrFilters_ShouldReturnBadRequest() throws Exception {
+    // Act & Assert
+    mockMvc.perform(delete("/api/books")).andExpect(status().isBadRequest());
+    mockMvc
+        .perform(delete("/api/books").param("ids", "1").param("genre", "Poetry"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(delete("/api/books").param("title", " ")).andExpect(status().isBadRequest());
+
+    verifyNoInteractions(bookService);
+  }
+
   @Test
   void searchBooks_WithFilters_ShouldReturnFilteredBooks() throws Exception {
     // Arrange
-    List<BookDTO> filteredBooks = Collections.singletonList(testBookDTO);
-    when(bookService.searchBooks("Test", "Author", "Fiction", "Publisher", "1234"))
-        .thenReturn(filteredBooks);
+    BookSearchCriteria criteria =
+        new BookSearchCriteria("Test", "Author", "Fiction", "Publisher", "1234");
+    List<BookView> filteredBooks = Collections.singletonList(testBookView);
+    when(bookService.getBookViews(criteria, BookField.LIST_DEFAULT)).thenReturn(filteredBooks);
 
     // Act & Assert
     mockMvc
@@ -288,13 +620,15 @@ public class BookControllerTest {
         .andExpect(jsonPath("$[0].id", is(1)))
         .andExpect(jsonPath("$[0].title", is("Test Title")));
 
-    verify(bookService, times(1)).searchBooks("Test", "Author", "Fiction", "Publisher", "1234");
+    verify(bookService, times(1)).getBookViews(criteria, BookField.LIST_DEFAULT);
   }
 
   @Test
   void searchBooks_WithNoFilters_ShouldReturnEmptyList() throws Exception {
     // Arrange
-    when(bookService.searchBooks(null, null, null, null, null)).thenReturn(Collections.emptyList());
+    BookSearchCriteria criteria = BookSearchCriteria.none();
+    when(bookService.getBookViews(criteria, BookField.LIST_DEFAULT))
+        .thenReturn(Collections.emptyList());
 
     // Act & Assert
     mockMvc
@@ -303,6 +637,250 @@ public class BookControllerTest {
         .andExpect(content().contentType(MediaType.APPLICATION_JSON))
         .andExpect(jsonPath("$", hasSize(0)));
 
-    verify(bookService, times(1)).searchBooks(null, null, null, null, null);
+    verify(bookService, times(1)).getBookViews(criteria, BookField.LIST_DEFAULT);
+  }
+
+  @Test
+  void getAllBooks_WithFields_ShouldOnlyRequestThoseFields() throws Exception {
+    // Arrange
+    EnumSet<BookField> fields = EnumSet.of(BookField.ID, BookField.TITLE, BookField.ISBN);
+    Map<BookField, Object> values = new EnumMap<>(BookField.class);
+    values.put(BookField.ID, 1L);
+    values.put(BookField.TITLE, "Test Title");
+    values.put(BookField.ISBN, "1234567890");
+    BookView view = new BookView(new BookProjection(values), fields);
+    when(bookService.getBookViews(BookSearchCriteria.none(), fields)).thenReturn(List.of(view));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/books").param("fields", "title,isbn"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].*", hasSize(3)))
+        .andExpect(jsonPath("$[0].id", is(1)))
+        .andExpect(jsonPath("$[0].title", is("Test Title")))
+        .andExpect(jsonPath("$[0].isbn", is("1234567890")));
+  }
+
+  @Test
+  void searchBooks_WithUnknownField_ShouldReturnBadRequest() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/books/search").param("fields", "title,price"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", containsString("price")));
+
+    verifyNoInteractions(bookService);
+  }
+
+  @Test
+  void getAllBooks_WithLimit_ShouldReturnPageAndNextCursor() throws Exception {
+    // Arrange
+    BookPage page = new BookPage(Collections.singletonList(testBookView), "next-token");
+    when(bookService.getBooksPage(BookSearchCriteria.none(), null, null, 1, BookField.LIST_DEFAULT))
+        .thenReturn(page);
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/books").param("limit", "1"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, "next-token"))
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].id", is(1)));
+
+    verify(bookService, never()).getBookViews(any(), any());
+  }
+
+  @Test
+  void getAllBooks_WithCursorOnly_ShouldUseDefaultPageSize() throws Exception {
+    // Arrange
+    BookPage page = new BookPage(Collections.singletonList(testBookView), null);
+    when(bookService.getBooksPage(
+            BookSearchCriteria.none(),
+            null,
+            "cursor",
+            BookController.DEFAULT_PAGE_SIZE,
+            BookField.LIST_DEFAULT))
+        .thenReturn(page);
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/books").param("cursor", "cursor"))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(BookController.NEXT_CURSOR_HEADER))
+        .andExpect(jsonPath("$", hasSize(1)));
+  }
+
+  @Test
+  void getAllBooks_WithLimitTooLarge_ShouldReturnBadRequest() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/books").param("limit", "100000"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", containsString("limit")));
+
+    verifyNoInteractions(bookService);
+  }
+
+  @Test
+  void searchBooks_WithSort_ShouldReturnPage() throws Exception {
+    // Arrange
+    BookSearchCriteria criteria = new BookSearchCriteria(null, "Author", null, null, null);
+    BookPage page = new BookPage(Collections.singletonList(testBookView), "next-token");
+    when(bookService.getBooksPage(criteria, BookSort.TITLE, null, 10, BookField.LIST_DEFAULT))
+        .thenReturn(page);
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            get("/api/books/search")
+                .param("author", "Author")
+                .param("sort", "title")
+                .param("limit", "10"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, "next-token"))
+        .andExpect(jsonPath("$[0].title", is("Test Title")));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void exportBooks_ShouldStreamNewlineDelimitedJson() throws Exception {
+    // Arrange
+    BookDTO secondBookDTO = new BookDTO();
+    secondBookDTO.setId(2L);
+    secondBookDTO.setTitle("Second Title");
+    when(bookService.exportBooks(any()))
+        .thenAnswer(
+            invocation -> {
+              Consumer<BookDTO> consumer = invocation.getArgument(0);
+              consumer.accept(testBookDTO);
+              consumer.accept(secondBookDTO);
+              return 2L;
+            });
+
+    // Act
+    MvcResult result =
+        mockMvc.perform(get("/api/books/export")).andExpect(request().asyncStarted()).andReturn();
+
+    // Assert
+    String[] lines =
+        mockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+            .andReturn()
+            .getResponse()
+            .getContentAsString()
+            .split("\n");
+    assertEquals(2, lines.length);
+    assertEquals("Test Title", objectMapper.readValue(lines[0], BookDTO.class).getTitle());
+    assertEquals(2L, objectMapper.readValue(lines[1], BookDTO.class).getId());
+  }
+
+  @Test
+  void createBooks_WithJsonArray_ShouldReturnResultPerItem() throws Exception {
+    // Arrange
+    when(bookBatchService.createBooks(anyList()))
+        .thenReturn(
+            List.of(
+                BookBatchResult.created(0, testBookDTO),
+                BookBatchResult.rejected(1, "Book with ISBN 1234567890 already exists")));
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(testBookDTO, testBookDTO))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[0].status", is("CREATED")))
+        .andExpect(jsonPath("$[0].book.id", is(1)))
+        .andExpect(jsonPath("$[1].status", is("REJECTED")))
+        .andExpect(jsonPath("$[1].index", is(1)))
+        .andExpect(jsonPath("$[1].message", containsString("already exists")));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void createBooks_WithNdjson_ShouldParseEveryLine() throws Exception {
+    // Arrange
+    when(bookBatchService.createBooks(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<BookDTO> books = invocation.getArgument(0);
+              assertEquals(2, books.size());
+              assertEquals("Second", books.get(1).getTitle());
+              return List.of(BookBatchResult.created(0, books.get(0)));
+            });
+    String body = objectMapper.writeValueAsString(testBookDTO) + "\n" + "{\"title\":\"Second\"}\n";
+
+    // Act & Assert
+    mockMvc
+        .perform(post("/api/books/batch").contentType(MediaType.APPLICATION_NDJSON).content(body))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].status", is("CREATED")));
+
+    verify(bookBatchService, times(1)).createBooks(anyList());
+  }
+
+  @Test
+  void createBooks_WithMalformedNdjson_ShouldReturnBadRequest() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(
+            post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"title\": "))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", containsString("Malformed NDJSON")));
+
+    verifyNoInteractions(bookBatchService);
+  }
+
+  @Test
+  void searchText_ShouldReturnRankedHits() throws Exception {
+    // Arrange
+    when(bookService.searchText("hobbit", true, 10, 0))
+        .thenReturn(List.of(new BookSearchHitDTO(testBookDTO, 0.5, "a <b>hobbit</b>")));
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            get("/api/books/search/text")
+                .param("q", "hobbit")
+                .param("limit", "10")
+                .param("highlight", "true"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].book.title", is("Test Title")))
+        .andExpect(jsonPath("$[0].rank", is(0.5)))
+        .andExpect(jsonPath("$[0].snippet", is("a <b>hobbit</b>")));
+  }
+
+  @Test
+  void searchText_WithDefaults_ShouldUseFirstPage() throws Exception {
+    // Arrange
+    when(bookService.searchText("hobbit", false, BookController.DEFAULT_TEXT_SEARCH_LIMIT, 0))
+        .thenReturn(Collections.emptyList());
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/books/search/text").param("q", "hobbit"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(0)));
+
+    verify(bookService, times(1))
+        .searchText("hobbit", false, BookController.DEFAULT_TEXT_SEARCH_LIMIT, 0);
+  }
+
+  @Test
+  void searchText_WithOffsetTooLarge_ShouldReturnBadRequest() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/books/search/text").param("q", "hobbit").param("offset", "5000"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", containsString("offset")));
+
+    verifyNoInteractions(bookService);
   }
 }
@@ -0,0 +1,107 @@
+package com.example.automationdemo.automationdemo.controller;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.example.automationdemo.automationdemo.dto.BookBatchResult;
+import com.example.automationdemo.automationdemo.dto.IngestTicketStatus;
+import com.example.automationdemo.automationdemo.exception.GlobalExceptionHandler;
+import com.example.automationdemo.automationdemo.exception.IngestQueueFullException;
+import com.example.automationdemo.automationdemo.service.BookIngestService;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+public class BookIngestControllerTest {
+
+  private static final String BOOKS =
+      "[{\"title\":\"Dune\",\"author\":\"Frank Herbert\",\"genre\":\"Science Fiction\"}]";
+
+  private MockMvc mockMvc;
+  private BookIngestService bookIngestService;
+
+  @BeforeEach
+  void setUp() {
+    bookIngestService = Mockito.mock(BookIngestService.class);
+    mockMvc =
+        MockMvcBuilders.standaloneSetup(new BookIngestController(bookIngestService))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+  }
+
+  @Test
+  void ingestBooks_ShouldReturnAcceptedWithTicket() throws Exception {
+    // Arrange
+    when(bookIngestService.submit(anyList()))
+        .thenReturn(
+            new IngestTicketStatus("abc", IngestTicketStatus.State.QUEUED, 1, 0, 0, 0, List.of()));
+
+    // Act & Assert
+    mockMvc
+        .perform(post("/api/books/ingest").contentType(MediaType.APPLICATION_JSON).content(BOOKS))
+        .andExpect(status().isAccepted())
+        .andExpect(header().string(HttpHeaders.LOCATION, endsWith("/api/books/ingest/abc")))
+        .andExpect(jsonPath("$.ticket", is("abc")))
+        .andExpect(jsonPath("$.state", is("QUEUED")))
+        .andExpect(jsonPath("$.accepted", is(1)));
+  }
+
+  @Test
+  void ingestBooks_WhenQueueIsFull_ShouldReturnServiceUnavailable() throws Exception {
+    // Arrange
+    when(bookIngestService.submit(anyList()))
+        .thenThrow(new IngestQueueFullException("The ingest queue is full", Duration.ofSeconds(2)));
+
+    // Act & Assert
+    mockMvc
+        .perform(post("/api/books/ingest").contentType(MediaType.APPLICATION_JSON).content(BOOKS))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+        .andExpect(jsonPath("$.status", is(503)));
+  }
+
+  @Test
+  void getTicket_ShouldReturnProgressWithRejections() throws Exception {
+    // Arrange
+    when(bookIngestService.getStatus("abc"))
+        .thenReturn(
+            Optional.of(
+                new IngestTicketStatus(
+                    "abc",
+                    IngestTicketStatus.State.COMPLETED,
+                    2,
+                    2,
+                    1,
+                    1,
+                    List.of(BookBatchResult.rejected(1, "Title, author and genre are required")))));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/books/ingest/abc"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.state", is("COMPLETED")))
+        .andExpect(jsonPath("$.created", is(1)))
+        .andExpect(jsonPath("$.rejections[0].index", is(1)))
+        .andExpect(jsonPath("$.rejections[0].status", is("REJECTED")));
+  }
+
+  @Test
+  void getTicket_WithUnknownTicket_ShouldReturnNotFound() throws Exception {
+    // Arrange
+    when(bookIngestService.getStatus("nope")).thenReturn(Optional.empty());
+
+    // Act & Assert
+    mockMvc.perform(get("/api/books/ingest/nope")).andExpect(status().isNotFound());
+  }
+}
@@ -0,0 +1,164 @@
+package com.example.automationdemo.automationdemo.controller;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.exception.GlobalExceptionHandler;
+import com.example.automationdemo.automationdemo.repository.BookSearchCriteria;
+import com.example.automationdemo.automationdemo.repository.ReactiveBookRepository;
+import java.time.Instant;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controller tests for the reactive v2 API using standalone MockMvc. Mono and Flux results are
+ * completed asynchronously, so each request is started and then dispatched again for the response.
+ */
+public class BookReactiveControllerTest {
+
+  private MockMvc mockMvc;
+  private ReactiveBookRepository reactiveBookRepository;
+  private BookDTO testBookDTO;
+
+  @BeforeEach
+  void setUp() {
+    this.reactiveBookRepository = Mockito.mock(ReactiveBookRepository.class);
+    this.mockMvc =
+        MockMvcBuilders.standaloneSetup(new BookReactiveController(reactiveBookRepository))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    testBookDTO =
+        BookDTO.builder()
+            .id(1L)
+            .title("Test Title")
+            .author("Test Author")
+            .genre("Fiction")
+            .isbn("1234567890")
+            .publicationDate(LocalDate.of(2020, 1, 1))
+            .version(3L)
+            .updatedAt(Instant.parse("2024-05-01T10:15:30Z"))
+            .build();
+  }
+
+  @Test
+  void getBookById_ShouldReturnBookWithETag() throws Exception {
+    // Arrange
+    when(reactiveBookRepository.findById(1L)).thenReturn(Mono.just(testBookDTO));
+
+    // Act
+    MvcResult started =
+        mockMvc.perform(get("/api/v2/books/1")).andExpect(request().asyncStarted()).andReturn();
+
+    // Assert
+    mockMvc
+        .perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"1.3\""))
+        .andExpect(jsonPath("$.id", is(1)))
+        .andExpect(jsonPath("$.title", is("Test Title")))
+        .andExpect(jsonPath("$.publicationDate", is("2020-01-01")));
+  }
+
+  @Test
+  void getBookById_WithMissingBook_ShouldReturnNotFound() throws Exception {
+    // Arrange
+    when(reactiveBookRepository.findById(99L)).thenReturn(Mono.empty());
+
+    // Act
+    MvcResult started =
+        mockMvc.perform(get("/api/v2/books/99")).andExpect(request().asyncStarted()).andReturn();
+
+    // Assert
+    mockMvc
+        .perform(asyncDispatch(started))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.message", is("Book not found with ID: 99")));
+  }
+
+  @Test
+  void getBookByIsbn_ShouldReturnBook() throws Exception {
+    // Arrange
+    when(reactiveBookRepository.findByIsbn("1234567890")).thenReturn(Mono.just(testBookDTO));
+
+    // Act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/v2/books/isbn/1234567890"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // Assert
+    mockMvc
+        .perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.isbn", is("1234567890")));
+  }
+
+  @Test
+  void searchBooks_ShouldPassFiltersAndCursor() throws Exception {
+    // Arrange
+    BookSearchCriteria criteria = new BookSearchCriteria("test", null, "Fiction", null, null);
+    when(reactiveBookRepository.search(criteria, 10L, 20)).thenReturn(Flux.just(testBookDTO));
+
+    // Act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/v2/books/search?title=test&genre=Fiction&after=10&limit=20"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // Assert
+    mockMvc
+        .perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].title", is("Test Title")));
+  }
+
+  @Test
+  void searchBooks_WithLimitOutOfRange_ShouldReturnBadRequest() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/v2/books/search?limit=501"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", is("limit must be between 1 and 500")));
+
+    verify(reactiveBookRepository, never()).search(any(), any(), anyInt());
+  }
+
+  @Test
+  void streamBooks_ShouldWriteOneBookPerLine() throws Exception {
+    // Arrange
+    BookDTO second = BookDTO.builder().id(2L).title("Second").build();
+    when(reactiveBookRepository.streamAll()).thenReturn(Flux.just(testBookDTO, second));
+
+    // Act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/v2/books").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // Assert
+    mockMvc
+        .perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string(matchesPattern("\\{\"id\":1,[^\n]*}\n\\{\"id\":2,[^\n]*}\n")));
+  }
+}
@@ -0,0 +1,215 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ReplicaDataSourceTest {
+
+  private static final long MAX_LAG_BYTES = 1024;
+
+  private final AtomicReference<String> primaryLsn = new AtomicReference<>("0/10000");
+  private final AtomicReference<String> firstLsn = new AtomicReference<>("0/10000");
+  private final AtomicReference<String> secondLsn = new AtomicReference<>("0/10000");
+
+  private Connection primaryConnection;
+  private Connection firstConnection;
+  private Connection secondConnection;
+  private DataSource first;
+  private ReplicaDataSource replicaDataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    primaryConnection = connection(primaryLsn);
+    firstConnection = connection(firstLsn);
+    secondConnection = connection(secondLsn);
+    DataSource primary = dataSource(primaryConnection);
+    first = dataSource(firstConnection);
+    Map<String, DataSource> replicas = new LinkedHashMap<>();
+    replicas.put("first", first);
+    replicas.put("second", dataSource(secondConnection));
+    replicaDataSource =
+        new ReplicaDataSource(
+            primary,
+            replicas,
+            MAX_LAG_BYTES,
+            Duration.ofHours(1),
+            Duration.ofMillis(50),
+            new SimpleMeterRegistry());
+  }
+
+  @AfterEach
+  void tearDown() {
+    ConsistencyToken.clear();
+  }
+
+  @Test
+  void getConnection_ShouldTakeHealthyReplicasInTurn() throws SQLException {
+    // Arrange
+    replicaDataSource.checkReplicas();
+
+    // Act
+    Connection one = replicaDataSource.getConnection();
+    Connection two = replicaDataSource.getConnection();
+    Connection three = replicaDataSource.getConnection();
+
+    // Assert
+    assertNotSame(one, two);
+    assertSame(one, three);
+    assertNotSame(primaryConnection, one);
+    assertNotSame(primaryConnection, two);
+  }
+
+  @Test
+  void getConnection_BeforeFirstCheck_ShouldUsePrimary() throws SQLException {
+    assertSame(primaryConnection, replicaDataSource.getConnection());
+  }
+
+  @Test
+  void checkReplicas_ShouldEjectLaggingReplicaUntilItCatchesUp() throws SQLException {
+    // Arrange - the second replica is more than MAX_LAG_BYTES behind
+    secondLsn.set("0/F000");
+    replicaDataSource.checkReplicas();
+
+    // Act & Assert
+    assertSame(firstConnection, replicaDataSource.getConnection());
+    assertSame(firstConnection, replicaDataSource.getConnection());
+
+    secondLsn.set("0/10000");
+    replicaDataSource.checkReplicas();
+    assertEquals(2, replicaDataSource.healthy().size());
+  }
+
+  @Test
+  void checkReplicas_WhenNoReplicaIsReachable_ShouldSendReadsToPrimary() throws SQLException {
+    // Arrange
+    replicaDataSource.checkReplicas();
+    when(first.getConnection()).thenThrow(new SQLException("Connection refused"));
+    secondLsn.set(null); // promoted, so no longer replaying
+
+    // Act
+    replicaDataSource.checkReplicas();
+
+    // Assert
+    assertTrue(replicaDataSource.healthy().isEmpty());
+    assertSame(primaryConnection, replicaDataSource.getConnection());
+  }
+
+  @Test
+  void getConnection_WithToken_ShouldWaitForReplicaToCatchUp() throws SQLException {
+    // Arrange - both replicas last seen behind the token; the next one gets there while polled
+    replicaDataSource.checkReplicas();
+    clearInvocations(firstConnection, secondConnection);
+    ConsistencyToken.require(ConsistencyToken.parse("0/10100"));
+    firstLsn.set("0/10100");
+    secondLsn.set("0/10100");
+
+    // Act
+    Connection connection = replicaDataSource.getConnection();
+
+    // Assert
+    assertNotSame(primaryConnection, connection);
+    verify(connection, never()).close();
+  }
+
+  @Test
+  void getConnection_WithTokenNoReplicaReaches_ShouldFallBackToPrimary() throws SQLException {
+    // Arrange
+    replicaDataSource.checkReplicas();
+    clearInvocations(firstConnection);
+    ConsistencyToken.require(ConsistencyToken.parse("1/0"));
+
+    // Act
+    Connection connection = replicaDataSource.getConnection();
+
+    // Assert
+    assertSame(primaryConnection, connection);
+    verify(firstConnection).close();
+  }
+
+  @Test
+  void getConnection_InReadLatest_ShouldRequireTheKnownPrimaryPosition() throws SQLException {
+    // Arrange - a commit here took the primary past what both replicas have replayed
+    replicaDataSource.checkReplicas();
+    clearInvocations(primaryConnection, firstConnection, secondConnection);
+    replicaDataSource.primaryReached(ConsistencyToken.parse("0/10100"));
+
+    // Act
+    Connection latest = ConsistencyToken.readLatest(this::getConnection);
+    Connection any = replicaDataSource.getConnection();
+
+    // Assert - straight to the primary, without asking it or the replicas for a position
+    assertSame(primaryConnection, latest);
+    assertNotSame(primaryConnection, any);
+    verify(primaryConnection, never()).createStatement();
+    verify(firstConnection, never()).createStatement();
+    verify(secondConnection, never()).createStatement();
+  }
+
+  @Test
+  void getConnection_InReadLatest_WhenReplicasAreCurrent_ShouldUseThemWithoutQueries()
+      throws SQLException {
+    // Arrange
+    replicaDataSource.checkReplicas();
+    clearInvocations(primaryConnection);
+
+    // Act
+    Connection latest = ConsistencyToken.readLatest(this::getConnection);
+
+    // Assert
+    assertNotSame(primaryConnection, latest);
+    verify(primaryConnection, never()).createStatement();
+  }
+
+  @Test
+  void consistencyToken_ShouldRoundTripPostgresLsn() {
+    assertEquals("16/B374D848", ConsistencyToken.format(ConsistencyToken.parse("16/B374D848")));
+    assertTrue(ConsistencyToken.isAtOrAfter(ConsistencyToken.parse("1/0"), 0xFFFFFFFFL));
+    assertThrows(IllegalArgumentException.class, () -> ConsistencyToken.parse("16B374D848"));
+    assertThrows(IllegalArgumentException.class, () -> ConsistencyToken.parse("16/XYZ"));
+  }
+
+  private Connection getConnection() {
+    try {
+      return replicaDataSource.getConnection();
+    } catch (SQLException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  // A connection whose queries all return the given WAL position
+  private static Connection connection(AtomicReference<String> lsn) throws SQLException {
+    Connection connection = mock(Connection.class);
+    when(connection.createStatement())
+        .thenAnswer(
+            invocation -> {
+              Statement statement = mock(Statement.class);
+              ResultSet resultSet = mock(ResultSet.class);
+              when(resultSet.next()).thenReturn(true);
+              when(resultSet.getString(1)).thenAnswer(get -> lsn.get());
+              when(statement.executeQuery(anyString())).thenReturn(resultSet);
+              return statement;
+            });
+    return connection;
+  }
+
+  private static DataSource dataSource(Connection connection) throws SQLException {
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    return dataSource;
+  }
+}
@@ -0,0 +1,82 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/** Sampled EXPLAIN (ANALYZE, BUFFERS) of a slow findByFilters statement on PostgreSQL. */
+@Testcontainers
+public class SlowQueryLogContainerIT {
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:13.3")
+          .withDatabaseName("testdb")
+          .withUsername("test")
+          .withPassword("test");
+
+  @Test
+  void slowFindByFilters_ShouldBeExplainedWithItsBindValues() throws Exception {
+    // Arrange - every statement counts as slow and every slow findByFilters is sampled
+    PGSimpleDataSource postgresDataSource = new PGSimpleDataSource();
+    postgresDataSource.setUrl(postgres.getJdbcUrl());
+    postgresDataSource.setUser(postgres.getUsername());
+    postgresDataSource.setPassword(postgres.getPassword());
+    SqlStatementStats stats = new SqlStatementStats(100);
+    DataSource dataSource;
+    try (SlowQueryLog slowQueryLog =
+        new SlowQueryLog(
+            stats,
+            Duration.ZERO,
+            Set.of("findByFilters"),
+            1.0,
+            Duration.ofSeconds(10),
+            new SimpleMeterRegistry())) {
+      dataSource = slowQueryLog.wrap("test", postgresDataSource);
+      try (Connection connection = dataSource.getConnection();
+          Statement statement = connection.createStatement()) {
+        statement.execute("CREATE TABLE books (id BIGINT PRIMARY KEY, author TEXT)");
+        statement.execute("INSERT INTO books VALUES (1, 'Austen'), (2, 'Tolstoy')");
+      }
+
+      // Act
+      try (Connection connection = dataSource.getConnection();
+          PreparedStatement statement =
+              connection.prepareStatement(
+                  "/* findByFilters */ select id from books where author = ?")) {
+        statement.setString(1, "Austen");
+        statement.executeQuery().close();
+      }
+
+      // Assert - the plan arrives from the background thread
+      String plan = awaitPlan(stats);
+      assertTrue(plan.contains("Seq Scan on books"), plan);
+      assertTrue(plan.contains("rows=1"), plan);
+      assertTrue(plan.contains("Buffers:"), plan);
+    }
+  }
+
+  private static String awaitPlan(SqlStatementStats stats) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (System.nanoTime() - deadline < 0) {
+      for (SqlStatementStats.Summary summary : stats.top(10, SqlStatementStats.Order.TOTAL)) {
+        if (summary.fingerprint().startsWith("/* findByFilters */") && summary.plan() != null) {
+          return summary.plan();
+        }
+      }
+      Thread.sleep(50);
+    }
+    return fail("No plan was recorded");
+  }
+}
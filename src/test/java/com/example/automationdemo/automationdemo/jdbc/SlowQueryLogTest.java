@@ -0,0 +1,137 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SlowQueryLogTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final SqlStatementStats stats = new SqlStatementStats(100);
+  private JdbcDataSource h2;
+
+  @BeforeEach
+  void createTable() throws SQLException {
+    h2 = new JdbcDataSource();
+    h2.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    execute(h2, "CREATE TABLE books (id BIGINT PRIMARY KEY, author VARCHAR(255))");
+    execute(h2, "INSERT INTO books VALUES (1, 'Austen'), (2, 'Tolstoy')");
+  }
+
+  @AfterEach
+  void dropDatabase() throws SQLException {
+    execute(h2, "SHUTDOWN");
+  }
+
+  private SlowQueryLog slowQueryLog(Duration threshold) {
+    return new SlowQueryLog(
+        stats, threshold, Set.of("findByFilters"), 1.0, Duration.ofSeconds(1), meterRegistry);
+  }
+
+  private static void execute(DataSource dataSource, String sql) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private static void findByAuthor(DataSource dataSource, String author) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement =
+            connection.prepareStatement(
+                "/* findByFilters */ select id from books where author = ?")) {
+      statement.setString(1, author);
+      statement.executeQuery().close();
+    }
+  }
+
+  @Test
+  void executions_ShouldBeCountedPerFingerprint() throws SQLException {
+    // Arrange
+    DataSource dataSource = slowQueryLog(Duration.ofMinutes(1)).wrap("test", h2);
+
+    // Act
+    findByAuthor(dataSource, "Austen");
+    findByAuthor(dataSource, "Tolstoy");
+    execute(dataSource, "select id from books where id = 1");
+    execute(dataSource, "select id from books where id = 2");
+
+    // Assert
+    List<SqlStatementStats.Summary> top = stats.top(10, SqlStatementStats.Order.TOTAL);
+    assertEquals(2, top.size());
+    assertTrue(top.stream().allMatch(summary -> summary.count() == 2));
+    assertTrue(top.stream().allMatch(summary -> summary.slowCount() == 0));
+    assertEquals(0, meterRegistry.get("books.sql.slow").counter().count());
+  }
+
+  @Test
+  void statementsOverTheThreshold_ShouldBeCountedAsSlow() throws SQLException {
+    // Arrange
+    DataSource dataSource = slowQueryLog(Duration.ZERO).wrap("test", h2);
+
+    // Act
+    findByAuthor(dataSource, "Austen");
+
+    // Assert - slow, but H2 is never EXPLAINed
+    SqlStatementStats.Summary summary = stats.top(1, SqlStatementStats.Order.MAX).get(0);
+    assertEquals(
+        "/* findByFilters */ select id from books where author = ?", summary.fingerprint());
+    assertEquals(1, summary.slowCount());
+    assertNotNull(summary.lastSlowAt());
+    assertNull(summary.plan());
+    assertEquals(1, meterRegistry.get("books.sql.slow").counter().count());
+  }
+
+  @Test
+  void top_ShouldListTheSlowestFirstUpToTheLimit() {
+    // Arrange
+    stats.record("fast", 1_000_000, false);
+    stats.record("fast", 1_000_000, false);
+    stats.record("fast", 1_000_000, false);
+    stats.record("slow", 2_500_000, false);
+    stats.record("medium", 2_000_000, false);
+
+    // Act & Assert
+    assertEquals(
+        List.of("slow", "medium"),
+        stats.top(2, SqlStatementStats.Order.MEAN).stream()
+            .map(SqlStatementStats.Summary::fingerprint)
+            .toList());
+    assertEquals("fast", stats.top(1, SqlStatementStats.Order.TOTAL).get(0).fingerprint());
+    assertEquals(3.0, stats.top(1, SqlStatementStats.Order.TOTAL).get(0).totalMillis(), 1e-9);
+  }
+
+  @Test
+  void newFingerprints_WhenFull_ShouldNotBeTracked() {
+    SqlStatementStats small = new SqlStatementStats(1);
+
+    small.record("first", 1, false);
+    small.record("second", 1, false);
+    small.record("first", 1, false);
+
+    List<SqlStatementStats.Summary> top = small.top(10, SqlStatementStats.Order.TOTAL);
+    assertEquals(1, top.size());
+    assertEquals(2, top.get(0).count());
+  }
+
+  @Test
+  void endpoint_ShouldRejectAnUnknownOrderOrABadLimit() {
+    SlowQueryEndpoint endpoint = new SlowQueryEndpoint(stats, 20);
+
+    assertThrows(IllegalArgumentException.class, () -> endpoint.top(null, "fastest"));
+    assertThrows(IllegalArgumentException.class, () -> endpoint.top(0, null));
+  }
+}
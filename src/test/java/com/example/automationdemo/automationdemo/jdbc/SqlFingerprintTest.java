@@ -0,0 +1,43 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class SqlFingerprintTest {
+
+  @Test
+  void literals_ShouldBeReplacedButNamesKept() {
+    assertEquals(
+        "select b1_0.id from books b1_0 where b1_0.title=? and b1_0.version>? limit ?",
+        SqlFingerprint.of(
+            "select b1_0.id from books b1_0 where b1_0.title='It''s' and b1_0.version>-2 limit 10"));
+  }
+
+  @Test
+  void placeholderLists_ShouldMatchWhateverTheirLength() {
+    assertEquals(
+        SqlFingerprint.of("select * from books where id in (?, ?)"),
+        SqlFingerprint.of("select * from books where id in (?,?,?,?)"));
+  }
+
+  @Test
+  void whitespace_ShouldBeCollapsed() {
+    assertEquals(
+        "/* findByFilters */ select b1_0.id from books b1_0",
+        SqlFingerprint.of("  /* findByFilters */ select\n    b1_0.id\n  from\n    books b1_0 "));
+  }
+
+  @Test
+  void fingerprints_ShouldBeCachedByStatement() {
+    String sql = "select * from books where id = 42";
+
+    assertSame(SqlFingerprint.of(sql), SqlFingerprint.of(new String(sql)));
+  }
+
+  @Test
+  void label_ShouldBeTheLeadingComment() {
+    assertEquals("findByFilters", SqlFingerprint.label("/* findByFilters */ select * from books"));
+    assertNull(SqlFingerprint.label("select * from books /* findByFilters */"));
+  }
+}
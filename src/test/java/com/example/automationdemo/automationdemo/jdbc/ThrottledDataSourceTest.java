@@ -0,0 +1,107 @@
+package com.example.automationdemo.automationdemo.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ThrottledDataSourceTest {
+
+  private DataSource target;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    target = mock(DataSource.class);
+    when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+  }
+
+  @Test
+  void getConnection_ShouldHoldPermitUntilClosed() throws SQLException {
+    // Arrange
+    ThrottledDataSource dataSource = new ThrottledDataSource(target, 2, Duration.ofSeconds(1));
+
+    // Act
+    Connection connection = dataSource.getConnection();
+
+    // Assert
+    assertEquals(1, dataSource.getActive());
+    connection.close();
+    assertEquals(0, dataSource.getActive());
+  }
+
+  @Test
+  void close_CalledTwice_ShouldReleaseOnePermit() throws SQLException {
+    // Arrange
+    ThrottledDataSource dataSource = new ThrottledDataSource(target, 2, Duration.ofSeconds(1));
+    Connection held = dataSource.getConnection();
+    Connection closed = dataSource.getConnection();
+
+    // Act
+    closed.close();
+    closed.close();
+
+    // Assert
+    assertEquals(1, dataSource.getActive());
+    held.close();
+  }
+
+  @Test
+  void getConnection_WhenAllPermitsTaken_ShouldTimeOut() throws SQLException {
+    // Arrange
+    ThrottledDataSource dataSource = new ThrottledDataSource(target, 1, Duration.ofMillis(50));
+    Connection held = dataSource.getConnection();
+
+    // Act & Assert
+    SQLTransientConnectionException ex =
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+    assertTrue(ex.getMessage().contains("1 database permits"));
+    verify(target, times(1)).getConnection();
+    held.close();
+  }
+
+  @Test
+  void getConnection_ShouldWaitForReleasedPermit() throws Exception {
+    // Arrange
+    ThrottledDataSource dataSource = new ThrottledDataSource(target, 1, Duration.ofSeconds(5));
+    Connection held = dataSource.getConnection();
+    CompletableFuture<Connection> waiting =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return dataSource.getConnection();
+              } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+              }
+            });
+    while (dataSource.getWaiting() == 0) {
+      Thread.onSpinWait();
+    }
+
+    // Act
+    held.close();
+
+    // Assert
+    Connection next = waiting.get(5, TimeUnit.SECONDS);
+    assertEquals(1, dataSource.getActive());
+    next.close();
+  }
+
+  @Test
+  void getConnection_WhenTargetFails_ShouldReturnPermit() throws SQLException {
+    // Arrange
+    when(target.getConnection()).thenThrow(new SQLException("refused"));
+    ThrottledDataSource dataSource = new ThrottledDataSource(target, 1, Duration.ofMillis(50));
+
+    // Act & Assert
+    assertThrows(SQLException.class, dataSource::getConnection);
+    assertEquals(0, dataSource.getActive());
+  }
+}
@@ -1,6 +1,7 @@
 package com.example.automationdemo.automationdemo.repository;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.example.automationdemo.automationdemo.model.Book;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -24,6 +26,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 @DataJpaTest
 @Testcontainers
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PostgresBookTextSearchRepository.class)
 public class BookRepositoryContainerIT {
 
   /**
@@ -50,6 +53,8 @@ public class BookRepositoryContainerIT {
 
   @Autowired private BookRepository bookRepository;
 
+  @Autowired private BookTextSearchRepository bookTextSearchRepository;
+
   @Test
   void testFullTextSearch_WithPostgresSpecificFeatures() {
     // Arrange - Create test books
@@ -127,6 +132,55 @@ public class BookRepositoryContainerIT {
     assertEquals(1, result3.size());
   }
 
+  /**
+   * Test ranked full-text search on the generated tsvector column. Title matches weigh more than
+   * description matches, stemming matches "dragons" to "dragon", and snippets highlight the terms.
+   */
+  @Test
+  void testRankedFullTextSearch_WithTsvectorColumn() {
+    // Arrange
+    Book book1 = createTestBook("The Dragon Reborn", "Robert Jordan", "Fantasy");
+    book1.setDescription("The Dragon is reborn and must face the Dark One.");
+    bookRepository.save(book1);
+
+    Book book2 = createTestBook("The Hobbit", "J.R.R. Tolkien", "Fantasy");
+    book2.setDescription("A hobbit goes on an adventure with dwarves to reclaim their treasure.");
+    bookRepository.save(book2);
+
+    Book book3 = createTestBook("Dune", "Frank Herbert", "Science Fiction");
+    book3.setDescription("Politics on a desert planet, and no dragons at all.");
+    bookRepository.saveAndFlush(book3);
+
+    // Act
+    List<BookSearchHit> results = bookTextSearchRepository.search("dragons", true, 10, 0);
+
+    // Assert
+    assertEquals(2, results.size());
+    assertEquals("The Dragon Reborn", results.get(0).book().getTitle());
+    assertTrue(results.get(0).rank() > results.get(1).rank());
+    assertTrue(results.get(0).snippet().contains("<b>Dragon</b>"));
+  }
+
+  /** Snippets are HTML: stored markup comes back escaped, and only the highlight tags are real. */
+  @Test
+  void testFullTextSearch_ShouldEscapeMarkupInSnippets() {
+    // Arrange
+    Book book = createTestBook("Dragonsbane", "Barbara Hambly", "Fantasy");
+    book.setDescription("<img src=x onerror=alert(1)> A dragon \uE001 sleeps.");
+    bookRepository.saveAndFlush(book);
+
+    // Act
+    List<BookSearchHit> results = bookTextSearchRepository.search("dragon", true, 10, 0);
+
+    // Assert
+    assertEquals(1, results.size());
+    String snippet = results.get(0).snippet();
+    assertFalse(snippet.contains("<img"), snippet);
+    assertTrue(snippet.contains("&lt;img"), snippet);
+    assertTrue(snippet.contains("A <b>dragon</b>"), snippet);
+    assertEquals(snippet.indexOf("</b>"), snippet.lastIndexOf("</b>"), snippet);
+  }
+
   /** Helper method to create a test book */
   private Book createTestBook(String title, String author, String genre) {
     Book book = new Book(title, author, genre);
@@ -4,11 +4,16 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import com.example.automationdemo.automationdemo.model.Book;
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.test.context.ActiveProfiles;
 
 /**
@@ -18,10 +23,15 @@ import org.springframework.test.context.ActiveProfiles;
  */
 @DataJpaTest
 @ActiveProfiles("test")
+@Import(LikeBookTextSearchRepository.class)
 public class BookRepositoryTest {
 
+  private static final Set<BookField> ID_ONLY = EnumSet.of(BookField.ID);
+
   @Autowired private BookRepository bookRepository;
 
+  @Autowired private BookTextSearchRepository bookTextSearchRepository;
+
   @Test
   void findById_WithExistingId_ShouldReturnBook() {
     // Arrange
@@ -146,6 +156,205 @@ public class BookRepositoryTest {
     assertEquals("Sci-Fi Book", result2.get(0).getTitle());
   }
 
+  @Test
+  void findPage_SortedById_ShouldContinueAfterCursor() {
+    // Arrange
+    Book first = bookRepository.save(createTestBook("Book A", "Author", "Fiction"));
+    Book second = bookRepository.save(createTestBook("Book B", "Author", "Fiction"));
+    Book third = bookRepository.save(createTestBook("Book C", "Author", "Fiction"));
+
+    // Act
+    List<BookProjection> page1 =
+        bookRepository.findPage(BookSearchCriteria.none(), BookSort.ID, null, 2, ID_ONLY);
+    List<BookProjection> page2 =
+        bookRepository.findPage(
+            BookSearchCriteria.none(),
+            BookSort.ID,
+            BookCursor.after(page1.get(1), BookSort.ID),
+            2,
+            ID_ONLY);
+
+    // Assert
+    assertEquals(
+        List.of(first.getId(), second.getId()), page1.stream().map(BookProjection::id).toList());
+    assertEquals(List.of(third.getId()), page2.stream().map(BookProjection::id).toList());
+  }
+
+  @Test
+  void findPage_SortedByTitle_ShouldBreakTiesById() {
+    // Arrange
+    Book dune1 = bookRepository.save(createTestBook("Dune", "Frank Herbert", "Science Fiction"));
+    Book dune2 = bookRepository.save(createTestBook("Dune", "Frank Herbert", "Science Fiction"));
+    bookRepository.save(createTestBook("Emma", "Jane Austen", "Romance"));
+    bookRepository.save(createTestBook("Carrie", "Stephen King", "Horror"));
+
+    // Act
+    BookCursor after = BookCursor.after(dune1, BookSort.TITLE);
+    List<BookProjection> result =
+        bookRepository.findPage(BookSearchCriteria.none(), BookSort.TITLE, after, 10, ID_ONLY);
+
+    // Assert - the title is selected anyway because it is the sort key
+    assertEquals(List.of("Dune", "Emma"), result.stream().map(BookProjection::title).toList());
+    assertEquals(dune2.getId(), result.get(0).id());
+  }
+
+  @Test
+  void findPage_WithFilters_ShouldOnlyReturnMatchingBooks() {
+    // Arrange
+    bookRepository.save(createTestBook("The Shining", "Stephen King", "Horror"));
+    bookRepository.save(createTestBook("It", "Stephen King", "Horror"));
+    bookRepository.save(createTestBook("Emma", "Jane Austen", "Romance"));
+
+    // Act
+    BookSearchCriteria criteria = new BookSearchCriteria(null, "king", null, null, null);
+    List<BookProjection> result =
+        bookRepository.findPage(criteria, BookSort.TITLE, null, 10, BookField.LIST_DEFAULT);
+
+    // Assert
+    assertEquals(List.of("It", "The Shining"), result.stream().map(BookProjection::title).toList());
+  }
+
+  @Test
+  void findPage_WithFields_ShouldOnlySelectThoseColumns() {
+    // Arrange
+    Book book = createTestBook("Projected", "Projected Author", "Fiction");
+    book.setIsbn("9780000000009");
+    book.setDescription("A long description that list views don't need");
+    bookRepository.save(book);
+
+    // Act
+    List<BookProjection> result =
+        bookRepository.findPage(
+            BookSearchCriteria.none(),
+            BookSort.ID,
+            null,
+            null,
+            EnumSet.of(BookField.TITLE, BookField.ISBN));
+
+    // Assert
+    assertEquals(1, result.size());
+    assertEquals(
+        EnumSet.of(BookField.ID, BookField.TITLE, BookField.ISBN), result.get(0).values().keySet());
+    assertEquals("9780000000009", result.get(0).values().get(BookField.ISBN));
+  }
+
+  @Test
+  void streamAllBy_ShouldReturnBooksInIdOrder() {
+    // Arrange
+    Book first = bookRepository.save(createTestBook("Stream B", "Author", "Fiction"));
+    Book second = bookRepository.save(createTestBook("Stream A", "Author", "Fiction"));
+
+    // Act - @DataJpaTest runs each test in a transaction, as the stream requires
+    List<Long> ids;
+    try (Stream<Book> books = bookRepository.streamAllBy()) {
+      ids = books.map(Book::getId).toList();
+    }
+
+    // Assert
+    assertEquals(List.of(first.getId(), second.getId()), ids);
+  }
+
+  @Test
+  void findExistingIsbns_ShouldReturnOnlyTakenIsbns() {
+    // Arrange
+    Book book = createTestBook("ISBN Test", "ISBN Author", "Fiction");
+    book.setIsbn("9780000000001");
+    bookRepository.save(book);
+
+    // Act
+    List<String> result =
+        bookRepository.findExistingIsbns(List.of("9780000000001", "9780000000002"));
+
+    // Assert
+    assertEquals(List.of("9780000000001"), result);
+  }
+
+  @Test
+  void textSearch_WithLikeFallback_ShouldMatchDescription() {
+    // Arrange
+    Book hobbit = createTestBook("The Hobbit", "J.R.R. Tolkien", "Fantasy");
+    hobbit.setDescription("A hobbit goes on an adventure with dwarves and a dragon.");
+    bookRepository.save(hobbit);
+    bookRepository.save(createTestBook("Dune", "Frank Herbert", "Science Fiction"));
+
+    // Act
+    List<BookSearchHit> result = bookTextSearchRepository.search("Dragon", true, 10, 0);
+
+    // Assert
+    assertEquals(1, result.size());
+    assertEquals("The Hobbit", result.get(0).book().getTitle());
+  }
+
+  @Test
+  void findByIsbnIn_ShouldReturnOnlyExistingBooks() {
+    // Arrange
+    Book book = createTestBook("ISBN Test", "ISBN Author", "Fiction");
+    book.setIsbn("9780000000001");
+    bookRepository.save(book);
+
+    // Act
+    List<Book> result = bookRepository.findByIsbnIn(List.of("9780000000001", "9780000000002"));
+
+    // Assert
+    assertEquals(1, result.size());
+    assertEquals("ISBN Test", result.get(0).getTitle());
+  }
+
+  @Test
+  void deleteBookById_ShouldReportTheRowsDeleted() {
+    // Arrange
+    Book book = bookRepository.saveAndFlush(createTestBook("Gone", "Author", "Fiction"));
+
+    // Act & Assert
+    assertEquals(1, bookRepository.deleteBookById(book.getId()));
+    assertEquals(0, bookRepository.deleteBookById(book.getId()));
+    assertFalse(bookRepository.existsById(book.getId()));
+  }
+
+  @Test
+  void deleteBooksByIdIn_ShouldDeleteOnlyTheListedBooks() {
+    // Arrange
+    Book first = bookRepository.saveAndFlush(createTestBook("First", "Author", "Fiction"));
+    Book second = bookRepository.saveAndFlush(createTestBook("Second", "Author", "Fiction"));
+    Book kept = bookRepository.saveAndFlush(createTestBook("Kept", "Author", "Fiction"));
+
+    // Act
+    int deleted = bookRepository.deleteBooksByIdIn(List.of(first.getId(), second.getId(), -1L));
+
+    // Assert
+    assertEquals(2, deleted);
+    assertEquals(
+        List.of(kept.getId()), bookRepository.findAll().stream().map(Book::getId).toList());
+  }
+
+  @Test
+  void deleteByFilters_ShouldDeleteMatchingBooks() {
+    // Arrange
+    bookRepository.saveAndFlush(createTestBook("Dune", "Frank Herbert", "Science Fiction"));
+    bookRepository.saveAndFlush(createTestBook("Children of Dune", "Frank Herbert", "Sci-Fi"));
+    bookRepository.saveAndFlush(createTestBook("Emma", "Jane Austen", "Romance"));
+
+    // Act
+    int deleted =
+        bookRepository.deleteByFilters(new BookSearchCriteria(null, "herbert", null, null, null));
+
+    // Assert
+    assertEquals(2, deleted);
+    assertEquals(List.of("Emma"), bookRepository.findAll().stream().map(Book::getTitle).toList());
+  }
+
+  @Test
+  void deleteByFilters_WithoutFilters_ShouldBeRejected() {
+    // Arrange
+    bookRepository.saveAndFlush(createTestBook("Dune", "Frank Herbert", "Science Fiction"));
+
+    // Act & Assert - the repository proxy translates the IllegalArgumentException
+    assertThrows(
+        InvalidDataAccessApiUsageException.class,
+        () -> bookRepository.deleteByFilters(BookSearchCriteria.none()));
+    assertEquals(1, bookRepository.count());
+  }
+
   /** Helper method to create a test book */
   private Book createTestBook(String title, String author, String genre) {
     Book book = new Book(title, author, genre);
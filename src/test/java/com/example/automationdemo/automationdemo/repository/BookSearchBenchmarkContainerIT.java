@@ -0,0 +1,151 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Benchmark for the pg_trgm search indexes on a catalog of one million books. The same searches are
+ * timed with a sequential scan and again after applying the V5 migration, and the plans are checked
+ * to make sure the indexed queries really use the trigram indexes.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookSearchBenchmarkContainerIT {
+
+  private static final int ROWS = 1_000_000;
+  private static final int RUNS = 7;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:13.3")
+          .withDatabaseName("testdb")
+          .withUsername("test")
+          .withPassword("test");
+
+  @DynamicPropertySource
+  static void registerPgProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    registry.add("spring.jpa.show-sql", () -> "false");
+  }
+
+  @Autowired private BookRepository bookRepository;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private DataSource dataSource;
+
+  @Test
+  void trigramIndexes_ShouldSpeedUpSubstringSearchesAtOneMillionRows() {
+    // Arrange - load the catalog without the trigram indexes so the load is fast
+    dropTrigramIndexes();
+    jdbcTemplate.execute(
+        "INSERT INTO books (title, author, genre, publisher, isbn) "
+            + "SELECT 'Title ' || md5(i::text), 'Author ' || (i % 50000), "
+            + "(ARRAY['Fantasy', 'Horror', 'Romance', 'Science Fiction'])[i % 4 + 1], "
+            + "'Publisher ' || (i % 500), 'ISBN-' || i "
+            + "FROM generate_series(1, "
+            + ROWS
+            + ") AS s(i)");
+    jdbcTemplate.execute("ANALYZE books");
+
+    // A fragment of one title and an author name that matches 20 books
+    String titleFragment =
+        jdbcTemplate.queryForObject("SELECT substr(md5('424242'), 4, 10)", String.class);
+    String author = "author 42424";
+
+    // Act - sequential scan first, then with the migration's indexes in place
+    long seqFilters =
+        medianNanos(() -> bookRepository.findByFilters(titleFragment, null, null, null, null));
+    long seqTitle =
+        medianNanos(() -> bookRepository.findByTitleContainingIgnoreCase(titleFragment));
+    long seqAuthor =
+        medianNanos(() -> bookRepository.findByFilters(null, author, null, null, null));
+
+    new ResourceDatabasePopulator(
+            new ClassPathResource("db/migration/V5__Add_trigram_search_indexes.sql"))
+        .execute(dataSource);
+    jdbcTemplate.execute("ANALYZE books");
+
+    long idxFilters =
+        medianNanos(() -> bookRepository.findByFilters(titleFragment, null, null, null, null));
+    long idxTitle =
+        medianNanos(() -> bookRepository.findByTitleContainingIgnoreCase(titleFragment));
+    long idxAuthor =
+        medianNanos(() -> bookRepository.findByFilters(null, author, null, null, null));
+
+    String plan =
+        String.join(
+            "\n",
+            jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM books WHERE LOWER(title) LIKE LOWER('%' || ? || '%')",
+                String.class, titleFragment));
+
+    System.out.printf(
+        "Trigram search benchmark, %,d rows (median of %d runs)%n"
+            + "  findByFilters(title)              seq %8.2f ms   indexed %8.2f ms%n"
+            + "  findByTitleContainingIgnoreCase   seq %8.2f ms   indexed %8.2f ms%n"
+            + "  findByFilters(author)             seq %8.2f ms   indexed %8.2f ms%n",
+        ROWS,
+        RUNS,
+        ms(seqFilters),
+        ms(idxFilters),
+        ms(seqTitle),
+        ms(idxTitle),
+        ms(seqAuthor),
+        ms(idxAuthor));
+
+    // Assert
+    assertEquals(1, bookRepository.findByFilters(titleFragment, null, null, null, null).size());
+    assertEquals(20, bookRepository.findByFilters(null, author, null, null, null).size());
+    assertTrue(plan.contains("idx_books_title_trgm"), plan);
+    assertTrue(idxFilters * 10 < seqFilters, "findByFilters should be at least 10x faster");
+    assertTrue(idxTitle * 10 < seqTitle, "title search should be at least 10x faster");
+    assertTrue(idxAuthor * 10 < seqAuthor, "author search should be at least 10x faster");
+  }
+
+  private void dropTrigramIndexes() {
+    for (String column : List.of("title", "author", "genre", "publisher")) {
+      jdbcTemplate.execute("DROP INDEX IF EXISTS idx_books_" + column + "_trgm");
+    }
+  }
+
+  // Median wall-clock time of RUNS executions after one warm-up run
+  private long medianNanos(Supplier<List<?>> search) {
+    search.get();
+    long[] timings = new long[RUNS];
+    for (int i = 0; i < RUNS; i++) {
+      long start = System.nanoTime();
+      search.get();
+      timings[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(timings);
+    return timings[RUNS / 2];
+  }
+
+  private static double ms(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+}
@@ -0,0 +1,199 @@
+package com.example.automationdemo.automationdemo.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.automationdemo.automationdemo.config.HibernateCacheConfig;
+import com.example.automationdemo.automationdemo.model.Book;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Second-level and query cache tests. Each repository call runs in its own transaction (the test
+ * itself is not transactional), so a repeat read can only avoid SQL by hitting the shared cache.
+ */
+@DataJpaTest(
+    properties = {
+      "spring.jpa.properties.hibernate.generate_statistics=true",
+      "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+          + "com.example.automationdemo.automationdemo.repository."
+          + "BookSecondLevelCacheTest$RecordingStatementInspector"
+    })
+@ActiveProfiles("test")
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookSecondLevelCacheTest {
+
+  @Autowired private BookRepository bookRepository;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  private Statistics statistics;
+
+  private Book book;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    book = new Book("Cached Title", "Cached Author", "Fiction");
+    book.setIsbn("9780000000001");
+    book = bookRepository.save(book);
+    statistics.clear();
+    RecordingStatementInspector.STATEMENTS.clear();
+  }
+
+  @AfterEach
+  void tearDown() {
+    bookRepository.deleteAll();
+  }
+
+  @Test
+  void findById_RepeatRead_ShouldBeServedFromCache() {
+    // Act
+    bookRepository.findById(book.getId());
+    long statements = statistics.getPrepareStatementCount();
+    Optional<Book> result = bookRepository.findById(book.getId());
+
+    // Assert
+    assertTrue(result.isPresent());
+    assertEquals(statements, statistics.getPrepareStatementCount());
+    assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+  }
+
+  @Test
+  void findByIsbn_RepeatRead_ShouldBeServedFromQueryCache() {
+    // Act
+    bookRepository.findByIsbn("9780000000001");
+    long statements = statistics.getPrepareStatementCount();
+    Optional<Book> result = bookRepository.findByIsbn("9780000000001");
+
+    // Assert
+    assertTrue(result.isPresent());
+    assertEquals(statements, statistics.getPrepareStatementCount());
+    assertEquals(1, statistics.getQueryCacheHitCount());
+  }
+
+  @Test
+  void findByFilters_SingleFilter_ShouldBeServedFromQueryCache() {
+    // Act
+    bookRepository.findByFilters(null, "cached", null, null, null);
+    long statements = statistics.getPrepareStatementCount();
+    List<Book> result = bookRepository.findByFilters(null, "cached", null, null, null);
+
+    // Assert
+    assertEquals(1, result.size());
+    assertEquals(statements, statistics.getPrepareStatementCount());
+    assertEquals(1, statistics.getQueryCacheHitCount());
+  }
+
+  @Test
+  void findPage_FirstPageOfSingleFilterSearch_ShouldBeServedFromQueryCache() {
+    // Arrange - what GET /api/books/search?author=... runs
+    BookSearchCriteria criteria = new BookSearchCriteria(null, "cached", null, null, null);
+
+    // Act
+    bookRepository.findPage(criteria, BookSort.ID, null, null, BookField.LIST_DEFAULT);
+    long statements = statistics.getPrepareStatementCount();
+    List<BookProjection> result =
+        bookRepository.findPage(criteria, BookSort.ID, null, null, BookField.LIST_DEFAULT);
+
+    // Assert
+    assertEquals(1, result.size());
+    assertEquals(statements, statistics.getPrepareStatementCount());
+    assertEquals(1, statistics.getQueryCacheHitCount());
+  }
+
+  @Test
+  void findByFilters_CombinedFilters_ShouldNotUseQueryCache() {
+    // Act
+    bookRepository.findByFilters("cached", "cached", null, null, null);
+    bookRepository.findByFilters("cached", "cached", null, null, null);
+
+    // Assert
+    assertEquals(0, statistics.getQueryCachePutCount());
+  }
+
+  @Test
+  void update_ShouldRefreshEntityAndInvalidateQueryCache() {
+    // Arrange
+    bookRepository.findById(book.getId());
+    bookRepository.findByIsbn("9780000000001");
+
+    // Act
+    book.setTitle("Updated Title");
+    bookRepository.save(book);
+    long statements = statistics.getPrepareStatementCount();
+    Optional<Book> byIsbn = bookRepository.findByIsbn("9780000000001");
+
+    // Assert: the cached query result is stale, so it runs again
+    assertTrue(statistics.getPrepareStatementCount() > statements);
+    assertEquals("Updated Title", byIsbn.get().getTitle());
+    assertEquals("Updated Title", bookRepository.findById(book.getId()).get().getTitle());
+  }
+
+  @Test
+  void delete_ShouldEvictEntity() {
+    // Arrange
+    bookRepository.findById(book.getId());
+
+    // Act
+    bookRepository.deleteById(book.getId());
+
+    // Assert
+    assertTrue(bookRepository.findById(book.getId()).isEmpty());
+    assertTrue(bookRepository.findByIsbn("9780000000001").isEmpty());
+  }
+
+  @Test
+  void patchOfCachedBook_ShouldBeOneUpdateOfTheChangedColumn() {
+    // Arrange
+    bookRepository.findById(book.getId());
+    RecordingStatementInspector.STATEMENTS.clear();
+
+    // Act - load, change one field and flush, as BookService.patchBook does
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              Book cached = bookRepository.findById(book.getId()).orElseThrow();
+              cached.setTitle("Patched Title");
+              bookRepository.saveAndFlush(cached);
+            });
+
+    // Assert - no SELECT, and the UPDATE leaves the other columns alone
+    assertEquals(1, RecordingStatementInspector.STATEMENTS.size());
+    String update = RecordingStatementInspector.STATEMENTS.get(0).toLowerCase();
+    assertTrue(update.startsWith("update books set"), update);
+    assertTrue(update.contains("title=?"), update);
+    assertFalse(update.contains("description"), update);
+    assertFalse(update.contains("author"), update);
+  }
+
+  // Records the SQL Hibernate prepares, without the comment naming the query (use_sql_comments)
+  public static class RecordingStatementInspector implements StatementInspector {
+
+    static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+      STATEMENTS.add(sql.replaceFirst("^\\s*/\\*.*?\\*/", "").replaceAll("\\s+", " ").trim());
+      return sql;
+    }
+  }
+}
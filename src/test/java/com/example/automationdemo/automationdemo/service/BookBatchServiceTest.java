@@ -0,0 +1,243 @@
+package com.example.automationdemo.automationdemo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+import com.example.automationdemo.automationdemo.cache.IsbnFilter;
+import com.example.automationdemo.automationdemo.dto.BookBatchResult;
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.model.Book;
+import com.example.automationdemo.automationdemo.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+public class BookBatchServiceTest {
+
+  private static final int BATCH_SIZE = 2;
+
+  @Mock private BookRepository bookRepository;
+
+  @Mock private EntityManager entityManager;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private BookBatchService bookBatchService;
+
+  @BeforeEach
+  void setUp() {
+    bookBatchService =
+        new BookBatchService(
+            bookRepository,
+            entityManager,
+            BATCH_SIZE,
+            new IsbnFilter(false, 1, 0.01),
+            transactionManager);
+  }
+
+  @Test
+  void createBooks_WithValidBooks_ShouldPersistAndFlushInBatches() {
+    // Arrange - simulate the sequence assigning ids on persist
+    AtomicLong ids = new AtomicLong();
+    doAnswer(
+            invocation -> {
+              invocation.<Book>getArgument(0).setId(ids.incrementAndGet());
+              return null;
+            })
+        .when(entityManager)
+        .persist(any(Book.class));
+    when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(Collections.emptyList());
+
+    // Act
+    List<BookBatchResult> results =
+        bookBatchService.createBooks(
+            Arrays.asList(book("A", "111"), book("B", "222"), book("C", "333")));
+
+    // Assert
+    assertEquals(3, results.size());
+    assertTrue(results.stream().allMatch(r -> r.status() == BookBatchResult.Status.CREATED));
+    assertEquals(3L, results.get(2).book().getId());
+    verify(bookRepository, times(1)).findExistingIsbns(Set.of("111", "222", "333"));
+    verify(entityManager, times(3)).persist(any(Book.class));
+    // One full batch of two plus the final partial batch
+    verify(entityManager, times(2)).flush();
+  }
+
+  @Test
+  void createBooks_WithDuplicateIsbns_ShouldRejectOnlyDuplicates() {
+    // Arrange - "111" exists already and "222" appears twice in the request
+    when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(List.of("111"));
+
+    // Act
+    List<BookBatchResult> results =
+        bookBatchService.createBooks(
+            Arrays.asList(book("A", "111"), book("B", "222"), book("C", "222")));
+
+    // Assert
+    assertEquals(BookBatchResult.Status.REJECTED, results.get(0).status());
+    assertTrue(results.get(0).message().contains("already exists"));
+    assertEquals(BookBatchResult.Status.CREATED, results.get(1).status());
+    assertEquals(BookBatchResult.Status.REJECTED, results.get(2).status());
+    assertEquals(2, results.get(2).index());
+    verify(entityManager, times(1)).persist(any(Book.class));
+  }
+
+  @Test
+  void createBooks_WithMissingRequiredFields_ShouldRejectItem() {
+    // Arrange
+    BookDTO incomplete = book(null, null);
+
+    // Act
+    List<BookBatchResult> results = bookBatchService.createBooks(List.of(incomplete));
+
+    // Assert
+    assertEquals(BookBatchResult.Status.REJECTED, results.get(0).status());
+    verify(bookRepository, never()).findExistingIsbns(anyCollection());
+    verify(entityManager, never()).persist(any());
+  }
+
+  @Test
+  void createBooks_WithFieldsLongerThanTheirColumns_ShouldRejectOnlyThoseItems() {
+    // Arrange
+    BookDTO longTitle = book("T".repeat(BookBatchService.MAX_TEXT_LENGTH + 1), null);
+    BookDTO longGenre = book("B", null);
+    longGenre.setGenre("G".repeat(BookBatchService.MAX_GENRE_LENGTH + 1));
+    BookDTO longPublisher = book("C", null);
+    longPublisher.setPublisher("P".repeat(BookBatchService.MAX_TEXT_LENGTH + 1));
+    BookDTO atTheLimit = book("T".repeat(BookBatchService.MAX_TEXT_LENGTH), null);
+    atTheLimit.setGenre("G".repeat(BookBatchService.MAX_GENRE_LENGTH));
+
+    // Act
+    List<BookBatchResult> results =
+        bookBatchService.createBooks(List.of(longTitle, longGenre, longPublisher, atTheLimit));
+
+    // Assert
+    assertEquals("Title must be at most 255 characters", results.get(0).message());
+    assertEquals("Genre must be at most 100 characters", results.get(1).message());
+    assertEquals("Publisher must be at most 255 characters", results.get(2).message());
+    assertEquals(BookBatchResult.Status.CREATED, results.get(3).status());
+    verify(entityManager, times(1)).persist(any(Book.class));
+  }
+
+  @Test
+  void createBooks_WithTooManyBooks_ShouldThrowException() {
+    // Arrange
+    List<BookDTO> books = new ArrayList<>();
+    for (int i = 0; i <= BookBatchService.MAX_BATCH_ITEMS; i++) {
+      books.add(book("Title " + i, null));
+    }
+
+    // Act & Assert
+    assertThrows(IllegalArgumentException.class, () -> bookBatchService.createBooks(books));
+    verifyNoInteractions(entityManager);
+  }
+
+  @Test
+  void createBooks_WithIsbnFilter_ShouldLookUpOnlyPossiblyTakenIsbns() {
+    // Arrange - the catalog holds "111" only
+    IsbnFilter isbnFilter = new IsbnFilter(true, 1_000, 0.001);
+    isbnFilter.load(Stream.of("111"));
+    bookBatchService =
+        new BookBatchService(
+            bookRepository, entityManager, BATCH_SIZE, isbnFilter, transactionManager);
+    when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(List.of("111"));
+
+    // Act
+    List<BookBatchResult> results =
+        bookBatchService.createBooks(Arrays.asList(book("A", "111"), book("B", "222")));
+
+    // Assert
+    assertEquals(BookBatchResult.Status.REJECTED, results.get(0).status());
+    assertEquals(BookBatchResult.Status.CREATED, results.get(1).status());
+    verify(bookRepository, times(1)).findExistingIsbns(Set.of("111"));
+    assertTrue(isbnFilter.mightContain("222"));
+  }
+
+  @Test
+  void createBooks_WithOnlyNewIsbns_ShouldSkipLookup() {
+    // Arrange
+    IsbnFilter isbnFilter = new IsbnFilter(true, 1_000, 0.001);
+    isbnFilter.load(Stream.of("111"));
+    bookBatchService =
+        new BookBatchService(
+            bookRepository, entityManager, BATCH_SIZE, isbnFilter, transactionManager);
+
+    // Act
+    bookBatchService.createBooks(Arrays.asList(book("A", "222"), book("B", "333")));
+
+    // Assert
+    verify(bookRepository, never()).findExistingIsbns(anyCollection());
+    verify(entityManager, times(2)).persist(any(Book.class));
+  }
+
+  @Test
+  void createBooks_WhenFilterMissesIsbnTakenElsewhere_ShouldRetryAndRejectOnlyThatBook() {
+    // Arrange - another instance created "111", which this instance's filter has never seen
+    IsbnFilter isbnFilter = new IsbnFilter(true, 1_000, 0.001);
+    isbnFilter.load(Stream.empty());
+    bookBatchService =
+        new BookBatchService(
+            bookRepository, entityManager, BATCH_SIZE, isbnFilter, transactionManager);
+    doThrow(
+            new PersistenceException(
+                "could not execute batch",
+                new SQLException("duplicate key value violates unique constraint", "23505")))
+        .doNothing()
+        .when(entityManager)
+        .flush();
+    when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(List.of("111"));
+
+    // Act
+    List<BookBatchResult> results =
+        bookBatchService.createBooks(Arrays.asList(book("A", "111"), book("B", "222")));
+
+    // Assert - the first attempt is rolled back and the retry looks up every ISBN
+    assertEquals(BookBatchResult.Status.REJECTED, results.get(0).status());
+    assertTrue(results.get(0).message().contains("already exists"));
+    assertEquals(BookBatchResult.Status.CREATED, results.get(1).status());
+    verify(bookRepository, times(1)).findExistingIsbns(Set.of("111", "222"));
+    verify(transactionManager, times(1)).rollback(any());
+  }
+
+  @Test
+  void createBooks_WhenIsbnTakenConcurrently_ShouldThrowIllegalArgument() {
+    // Arrange - the constraint fires on flush although the lookup found nothing
+    when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(Collections.emptyList());
+    doThrow(
+            new PersistenceException(
+                "could not execute batch",
+                new SQLException("duplicate key value violates unique constraint", "23505")))
+        .when(entityManager)
+        .flush();
+
+    // Act & Assert
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> bookBatchService.createBooks(List.of(book("A", "111"))));
+  }
+
+  private BookDTO book(String title, String isbn) {
+    BookDTO bookDTO = new BookDTO();
+    bookDTO.setTitle(title);
+    bookDTO.setAuthor(title != null ? "Author" : null);
+    bookDTO.setGenre(title != null ? "Fiction" : null);
+    bookDTO.setIsbn(isbn);
+    return bookDTO;
+  }
+}
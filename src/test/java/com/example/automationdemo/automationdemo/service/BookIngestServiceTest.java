@@ -0,0 +1,289 @@
+package com.example.automationdemo.automationdemo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import com.example.automationdemo.automationdemo.dto.BookBatchResult;
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.dto.IngestTicketStatus;
+import com.example.automationdemo.automationdemo.exception.IngestQueueFullException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.util.unit.DataSize;
+
+public class BookIngestServiceTest {
+
+  private static final int BATCH_SIZE = 2;
+
+  @TempDir Path tempDir;
+
+  private Path logFile;
+  private ObjectMapper objectMapper;
+  private BookBatchService bookBatchService;
+  private BookIngestService bookIngestService;
+
+  @BeforeEach
+  void setUp() {
+    logFile = tempDir.resolve("ingest.log");
+    objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    bookBatchService = mock(BookBatchService.class);
+    bookIngestService =
+        new BookIngestService(
+            bookBatchService,
+            objectMapper,
+            logFile,
+            false,
+            DataSize.ofMegabytes(16),
+            BookBatchService.MAX_BATCH_ITEMS,
+            BATCH_SIZE,
+            Duration.ofMillis(10),
+            Duration.ofHours(1),
+            new SimpleMeterRegistry());
+  }
+
+  @AfterEach
+  void tearDown() {
+    bookIngestService.stop();
+  }
+
+  @Test
+  void submit_ShouldWriteInBatchesAndCompleteTheTicket() throws Exception {
+    // Arrange
+    createEveryBook();
+    bookIngestService.start();
+
+    // Act
+    IngestTicketStatus accepted = bookIngestService.submit(books("A", "B", "C"));
+    IngestTicketStatus status = awaitCompleted(accepted.ticket());
+
+    // Assert
+    assertEquals(3, accepted.accepted());
+    assertEquals(3, status.processed());
+    assertEquals(3, status.created());
+    assertEquals(0, status.rejected());
+    verify(bookBatchService, times(2)).createBooks(anyList());
+    // Everything is written, so nothing is left to replay
+    assertEquals(0, Files.size(logFile));
+  }
+
+  @Test
+  void submit_WhenQueueIsFull_ShouldBeRejected() throws Exception {
+    // Arrange - the writer is stuck on its first batch
+    CountDownLatch release = new CountDownLatch(1);
+    when(bookBatchService.createBooks(anyList()))
+        .thenAnswer(
+            invocation -> {
+              release.await();
+              return created(invocation.getArgument(0));
+            });
+    bookIngestService.start();
+    String[] titles = new String[BookBatchService.MAX_BATCH_ITEMS];
+    bookIngestService.submit(books(titles));
+
+    // Act & Assert
+    IngestQueueFullException ex =
+        assertThrows(IngestQueueFullException.class, () -> bookIngestService.submit(books("X")));
+    assertEquals(Duration.ofMillis(10), ex.getRetryAfter());
+    release.countDown();
+  }
+
+  @Test
+  void start_ShouldReplayBooksAcceptedButNotWritten() throws Exception {
+    // Arrange - a log left by a crash after the first book was written, with a torn last line
+    IngestLog previous = new IngestLog(logFile, objectMapper, false, 1 << 20);
+    previous.accepted("ticket-1", books("A", "B", "C"));
+    previous.finished(Map.of("ticket-1", List.of(0)));
+    previous.close();
+    Files.writeString(logFile, "{\"ticket\":\"ticket-2\",\"bo", StandardOpenOption.APPEND);
+    List<String> written = new ArrayList<>();
+    when(bookBatchService.createBooks(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<BookDTO> bookDTOs = invocation.getArgument(0);
+              bookDTOs.forEach(book -> written.add(book.getTitle()));
+              return created(bookDTOs);
+            });
+
+    // Act
+    bookIngestService.start();
+    IngestTicketStatus status = awaitCompleted("ticket-1");
+
+    // Assert
+    assertEquals(List.of("B", "C"), written);
+    assertEquals(3, status.processed());
+    assertEquals(2, status.created());
+    assertTrue(bookIngestService.getStatus("ticket-2").isEmpty());
+  }
+
+  @Test
+  void log_PastCompactSize_ShouldKeepOnlyUnfinishedRequests() throws Exception {
+    // Arrange - every append takes the file past the compaction size
+    IngestLog ingestLog = new IngestLog(logFile, objectMapper, false, 1);
+    ingestLog.accepted("ticket-1", books("A"));
+    ingestLog.accepted("ticket-2", books("B", "C"));
+
+    // Act
+    ingestLog.finished(Map.of("ticket-1", List.of(0)));
+    ingestLog.finished(Map.of("ticket-2", List.of(0)));
+    ingestLog.close();
+
+    // Assert - ticket-1 is gone and ticket-2 replays from its second book
+    List<String> lines = Files.readAllLines(logFile);
+    assertEquals(2, lines.size());
+    assertTrue(lines.stream().noneMatch(line -> line.contains("ticket-1")));
+    IngestLog reopened = new IngestLog(logFile, objectMapper, false, 1);
+    assertEquals(1, reopened.pending().size());
+    assertEquals(List.of(1), reopened.pending().get(0).remaining());
+    reopened.close();
+  }
+
+  @Test
+  void writer_WhenBatchHitsTakenIsbn_ShouldRejectOnlyThatBook() throws Exception {
+    // Arrange - the batch fails on the unique constraint, so it is redone book by book
+    when(bookBatchService.createBooks(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<BookDTO> bookDTOs = invocation.getArgument(0);
+              if (bookDTOs.size() > 1) {
+                throw new IllegalArgumentException("A book in the batch has an ISBN that exists");
+              }
+              if (bookDTOs.get(0).getTitle().equals("Taken")) {
+                throw new IllegalArgumentException("Book with ISBN 1 already exists");
+              }
+              return created(bookDTOs);
+            });
+    bookIngestService.start();
+
+    // Act
+    IngestTicketStatus accepted = bookIngestService.submit(books("Fine", "Taken"));
+    IngestTicketStatus status = awaitCompleted(accepted.ticket());
+
+    // Assert
+    assertEquals(1, status.created());
+    assertEquals(1, status.rejected());
+    assertEquals(1, status.rejections().get(0).index());
+    assertEquals("Book with ISBN 1 already exists", status.rejections().get(0).message());
+  }
+
+  @Test
+  void writer_WhenBookByBookPassFails_ShouldNotCreateEarlierBooksAgain() throws Exception {
+    // Arrange - the batch hits a taken ISBN, then the database drops out on the second book
+    List<String> written = new ArrayList<>();
+    boolean[] databaseDown = {true};
+    when(bookBatchService.createBooks(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<BookDTO> bookDTOs = invocation.getArgument(0);
+              if (bookDTOs.size() > 1) {
+                throw new IllegalArgumentException("A book in the batch has an ISBN that exists");
+              }
+              String title = bookDTOs.get(0).getTitle();
+              if (title.equals("Second") && databaseDown[0]) {
+                databaseDown[0] = false;
+                throw new DataAccessResourceFailureException("Connection refused");
+              }
+              written.add(title);
+              return created(bookDTOs);
+            });
+    bookIngestService.start();
+
+    // Act
+    IngestTicketStatus accepted = bookIngestService.submit(books("First", "Second"));
+    IngestTicketStatus status = awaitCompleted(accepted.ticket());
+
+    // Assert
+    assertEquals(List.of("First", "Second"), written);
+    assertEquals(2, status.created());
+  }
+
+  @Test
+  void writer_WhenBookCanNeverBeWritten_ShouldRejectItAndMoveOn() throws Exception {
+    // Arrange - a value too long for its column fails every attempt the same way
+    when(bookBatchService.createBooks(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<BookDTO> bookDTOs = invocation.getArgument(0);
+              if (bookDTOs.stream().anyMatch(book -> book.getTitle().equals("Too long"))) {
+                throw new DataIntegrityViolationException(
+                    "could not execute batch",
+                    new SQLException("value too long for type character varying(255)", "22001"));
+              }
+              return created(bookDTOs);
+            });
+    bookIngestService.start();
+
+    // Act
+    IngestTicketStatus first = bookIngestService.submit(books("Fine", "Too long"));
+    IngestTicketStatus firstStatus = awaitCompleted(first.ticket());
+    IngestTicketStatus next = bookIngestService.submit(books("Next"));
+
+    // Assert - only the bad book is rejected and the queue keeps moving
+    assertEquals(1, firstStatus.created());
+    assertEquals(1, firstStatus.rejections().get(0).index());
+    assertEquals(
+        "value too long for type character varying(255)",
+        firstStatus.rejections().get(0).message());
+    assertEquals(1, awaitCompleted(next.ticket()).created());
+  }
+
+  @Test
+  void submit_WithNoBooks_ShouldBeRejected() {
+    bookIngestService.start();
+
+    assertThrows(IllegalArgumentException.class, () -> bookIngestService.submit(List.of()));
+  }
+
+  private void createEveryBook() {
+    when(bookBatchService.createBooks(anyList()))
+        .thenAnswer(invocation -> created(invocation.getArgument(0)));
+  }
+
+  private static List<BookBatchResult> created(List<BookDTO> bookDTOs) {
+    return IntStream.range(0, bookDTOs.size())
+        .mapToObj(i -> BookBatchResult.created(i, bookDTOs.get(i)))
+        .toList();
+  }
+
+  private static List<BookDTO> books(String... titles) {
+    List<BookDTO> books = new ArrayList<>();
+    for (String title : titles) {
+      BookDTO book = new BookDTO();
+      book.setTitle(title);
+      book.setAuthor("Author");
+      book.setGenre("Genre");
+      books.add(book);
+    }
+    return books;
+  }
+
+  private IngestTicketStatus awaitCompleted(String ticket) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (System.nanoTime() < deadline) {
+      IngestTicketStatus status = bookIngestService.getStatus(ticket).orElseThrow();
+      if (status.state() == IngestTicketStatus.State.COMPLETED) {
+        return status;
+      }
+      Thread.sleep(10);
+    }
+    fail("Ticket " + ticket + " did not complete");
+    return null;
+  }
+}
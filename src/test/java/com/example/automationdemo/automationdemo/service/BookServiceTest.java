@@ -4,27 +4,70 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import com.example.automationdemo.automationdemo.cache.BookCache;
+import com.example.automationdemo.automationdemo.cache.IsbnFilter;
 import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.dto.BookLookupResult;
+import com.example.automationdemo.automationdemo.dto.BookPage;
+import com.example.automationdemo.automationdemo.dto.BookPatch;
+import com.example.automationdemo.automationdemo.dto.BookSearchHitDTO;
+import com.example.automationdemo.automationdemo.dto.BookView;
 import com.example.automationdemo.automationdemo.exception.BookNotFoundException;
+import com.example.automationdemo.automationdemo.exception.PreconditionFailedException;
 import com.example.automationdemo.automationdemo.model.Book;
+import com.example.automationdemo.automationdemo.repository.BookCursor;
+import com.example.automationdemo.automationdemo.repository.BookField;
+import com.example.automationdemo.automationdemo.repository.BookProjection;
 import com.example.automationdemo.automationdemo.repository.BookRepository;
+import com.example.automationdemo.automationdemo.repository.BookSearchCriteria;
+import com.example.automationdemo.automationdemo.repository.BookSearchHit;
+import com.example.automationdemo.automationdemo.repository.BookSort;
+import com.example.automationdemo.automationdemo.repository.BookTextSearchRepository;
+import com.example.automationdemo.automationdemo.repository.CatalogVersionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
 @ExtendWith(MockitoExtension.class)
 public class BookServiceTest {
 
   @Mock private BookRepository bookRepository;
 
+  @Mock private BookTextSearchRepository bookTextSearchRepository;
+
+  @Mock private EntityManager entityManager;
+
+  @Mock private CatalogVersionRepository catalogVersionRepository;
+
+  // Pass-through cache so every lookup reaches the repository mock
+  @Spy
+  private BookCache bookCache =
+      new BookCache(false, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+  @Spy private IsbnFilter isbnFilter = new IsbnFilter(false, 1, 0.01);
+
   @InjectMocks private BookService bookService;
 
   private Book testBook;
@@ -44,21 +87,6 @@ public class BookServiceTest {
     testBookDTO = new BookDTO(testBook);
   }
 
-  @Test
-  void getAllBooks_ShouldReturnAllBooks() {
-    // Arrange
-    when(bookRepository.findAll()).thenReturn(Collections.singletonList(testBook));
-
-    // Act
-    List<BookDTO> result = bookService.getAllBooks();
-
-    // Assert
-    assertEquals(1, result.size());
-    assertEquals(testBook.getId(), result.get(0).getId());
-    assertEquals(testBook.getTitle(), result.get(0).getTitle());
-    verify(bookRepository, times(1)).findAll();
-  }
-
   @Test
   void getBookById_WithValidId_ShouldReturnBook() {
     // Arrange
@@ -109,10 +137,9 @@ public class BookServiceTest {
   }
 
   @Test
-  void createBook_WithValidData_ShouldReturnCreatedBook() {
+  void createBook_WithValidData_ShouldInsertWithoutLookup() {
     // Arrange
-    when(bookRepository.findByIsbn(anyString())).thenReturn(Optional.empty());
-    when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+    when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(testBook);
 
     // Act
     BookDTO result = bookService.createBook(testBookDTO);
@@ -120,26 +147,43 @@ public class BookServiceTest {
     // Assert
     assertNotNull(result);
     assertEquals(testBook.getTitle(), result.getTitle());
-    verify(bookRepository, times(1)).findByIsbn(anyString());
-    verify(bookRepository, times(1)).save(any(Book.class));
+    verify(bookRepository, times(1)).saveAndFlush(any(Book.class));
+    verify(bookRepository, never()).findByIsbn(anyString());
+    verify(isbnFilter).put("1234567890");
   }
 
   @Test
   void createBook_WithDuplicateIsbn_ShouldThrowException() {
-    // Arrange
-    when(bookRepository.findByIsbn("1234567890")).thenReturn(Optional.of(testBook));
+    // Arrange - the unique constraint on isbn rejects the insert
+    when(bookRepository.saveAndFlush(any(Book.class))).thenThrow(uniqueViolation());
 
     // Act & Assert
-    assertThrows(IllegalArgumentException.class, () -> bookService.createBook(testBookDTO));
-    verify(bookRepository, times(1)).findByIsbn("1234567890");
-    verify(bookRepository, never()).save(any(Book.class));
+    IllegalArgumentException ex =
+        assertThrows(IllegalArgumentException.class, () -> bookService.createBook(testBookDTO));
+    assertEquals("Book with ISBN 1234567890 already exists", ex.getMessage());
+    verify(bookRepository, never()).findByIsbn(anyString());
+  }
+
+  @Test
+  void createBook_WithOtherIntegrityViolation_ShouldRethrow() {
+    // Arrange - e.g. a NOT NULL column
+    DataIntegrityViolationException notNull =
+        new DataIntegrityViolationException(
+            "not null", new SQLException("null value in column", "23502"));
+    when(bookRepository.saveAndFlush(any(Book.class))).thenThrow(notNull);
+
+    // Act & Assert
+    assertSame(
+        notNull,
+        assertThrows(
+            DataIntegrityViolationException.class, () -> bookService.createBook(testBookDTO)));
   }
 
   @Test
   void updateBook_WithValidData_ShouldReturnUpdatedBook() {
     // Arrange
     when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-    when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+    when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(testBook);
 
     // Update DTO
     testBookDTO.setTitle("Updated Title");
@@ -151,7 +195,51 @@ public class BookServiceTest {
     assertNotNull(result);
     assertEquals("Updated Title", result.getTitle());
     verify(bookRepository, times(1)).findById(1L);
-    verify(bookRepository, times(1)).save(any(Book.class));
+    verify(bookRepository, times(1)).saveAndFlush(any(Book.class));
+    verify(bookCache).evict(1L, "1234567890", "1234567890");
+  }
+
+  @Test
+  void updateBook_WithChangedIsbn_ShouldEvictOldAndNewIsbn() {
+    // Arrange
+    when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+    when(bookRepository.findByIsbn("5555555555")).thenReturn(Optional.empty());
+    when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(testBook);
+    testBookDTO.setIsbn("5555555555");
+
+    // Act
+    bookService.updateBook(1L, testBookDTO);
+
+    // Assert
+    verify(bookCache).evict(1L, "1234567890", "5555555555");
+  }
+
+  @Test
+  void updateBook_WithMatchingVersion_ShouldUpdate() {
+    // Arrange
+    testBook.setVersion(3L);
+    when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+    when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(testBook);
+
+    // Act
+    BookDTO result = bookService.updateBook(1L, testBookDTO, 3L);
+
+    // Assert
+    assertEquals(3L, result.getVersion());
+    verify(bookRepository, times(1)).saveAndFlush(any(Book.class));
+  }
+
+  @Test
+  void updateBook_WithStaleVersion_ShouldThrowPreconditionFailed() {
+    // Arrange
+    testBook.setVersion(4L);
+    when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+
+    // Act & Assert
+    assertThrows(
+        PreconditionFailedException.class, () -> bookService.updateBook(1L, testBookDTO, 3L));
+    verify(bookRepository, never()).saveAndFlush(any(Book.class));
+    verifyNoInteractions(bookCache);
   }
 
   @Test
@@ -162,7 +250,7 @@ public class BookServiceTest {
     // Act & Assert
     assertThrows(BookNotFoundException.class, () -> bookService.updateBook(99L, testBookDTO));
     verify(bookRepository, times(1)).findById(99L);
-    verify(bookRepository, never()).save(any(Book.class));
+    verify(bookRepository, never()).saveAndFlush(any(Book.class));
   }
 
   @Test
@@ -185,48 +273,291 @@ public class BookServiceTest {
     assertThrows(IllegalArgumentException.class, () -> bookService.updateBook(1L, testBookDTO));
     verify(bookRepository, times(1)).findById(1L);
     verify(bookRepository, times(1)).findByIsbn("9876543210");
-    verify(bookRepository, never()).save(any(Book.class));
+    verify(bookRepository, never()).saveAndFlush(any(Book.class));
+  }
+
+  @Test
+  void patchBook_ShouldChangeOnlyPatchedFields() throws Exception {
+    // Arrange
+    testBook.setVersion(2L);
+    when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+    when(bookRepository.saveAndFlush(testBook)).thenReturn(testBook);
+    BookPatch patch =
+        BookPatch.from(
+            new ObjectMapper().readTree("{\"isbn\":\"5555555555\",\"description\":null}"));
+
+    // Act
+    BookDTO result = bookService.patchBook(1L, patch, 2L);
+
+    // Assert
+    assertEquals("Test Title", result.getTitle());
+    assertEquals("5555555555", result.getIsbn());
+    assertNull(result.getDescription());
+    verify(bookRepository, never()).findByIsbn(anyString());
+    verify(bookCache).evict(1L, "1234567890", "5555555555");
+  }
+
+  @Test
+  void patchBook_WithTakenIsbn_ShouldThrowException() throws Exception {
+    // Arrange
+    when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+    when(bookRepository.saveAndFlush(testBook)).thenThrow(uniqueViolation());
+    BookPatch patch = BookPatch.from(new ObjectMapper().readTree("{\"isbn\":\"5555555555\"}"));
+
+    // Act & Assert
+    assertThrows(IllegalArgumentException.class, () -> bookService.patchBook(1L, patch, null));
+  }
+
+  @Test
+  void patchBook_WithStaleVersion_ShouldThrowPreconditionFailed() throws Exception {
+    // Arrange
+    testBook.setVersion(5L);
+    when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+    BookPatch patch = BookPatch.from(new ObjectMapper().readTree("{\"title\":\"New\"}"));
+
+    // Act & Assert
+    assertThrows(PreconditionFailedException.class, () -> bookService.patchBook(1L, patch, 4L));
+    assertEquals("Test Title", testBook.getTitle());
+    verify(bookRepository, never()).saveAndFlush(any(Book.class));
+  }
+
+  @Test
+  void getBooksByIds_ShouldQueryOnceAndKeepRequestOrder() {
+    // Arrange
+    Book second = new Book("Second", "Author", "Genre");
+    second.setId(2L);
+    when(bookRepository.findAllById(Set.of(2L, 1L, 99L))).thenReturn(List.of(second, testBook));
+
+    // Act
+    List<BookLookupResult<Long>> result = bookService.getBooksByIds(List.of(2L, 99L, 1L));
+
+    // Assert
+    assertEquals(List.of(2L, 99L, 1L), result.stream().map(BookLookupResult::key).toList());
+    assertEquals("Second", result.get(0).book().getTitle());
+    assertEquals(BookLookupResult.Status.NOT_FOUND, result.get(1).status());
+    assertNull(result.get(1).book());
+    assertEquals("Test Title", result.get(2).book().getTitle());
+    verify(bookRepository, times(1)).findAllById(any());
+    verify(bookRepository, never()).findById(anyLong());
+  }
+
+  @Test
+  void getBooksByIsbns_ShouldQueryOnceAndMarkMissingIsbns() {
+    // Arrange
+    when(bookRepository.findByIsbnIn(Set.of("1234567890", "0000000000")))
+        .thenReturn(List.of(testBook));
+
+    // Act
+    List<BookLookupResult<String>> result =
+        bookService.getBooksByIsbns(List.of("1234567890", "0000000000"));
+
+    // Assert
+    assertEquals(BookLookupResult.Status.FOUND, result.get(0).status());
+    assertEquals(1L, result.get(0).book().getId());
+    assertEquals("0000000000", result.get(1).key());
+    assertEquals(BookLookupResult.Status.NOT_FOUND, result.get(1).status());
+    verify(bookRepository, times(1)).findByIsbnIn(any());
+    verify(bookRepository, never()).findByIsbn(anyString());
   }
 
   @Test
   void deleteBook_WithValidId_ShouldDeleteBook() {
     // Arrange
-    when(bookRepository.existsById(1L)).thenReturn(true);
-    doNothing().when(bookRepository).deleteById(1L);
+    when(bookRepository.deleteBookById(1L)).thenReturn(1);
 
     // Act
     bookService.deleteBook(1L);
 
     // Assert
-    verify(bookRepository, times(1)).existsById(1L);
-    verify(bookRepository, times(1)).deleteById(1L);
+    verify(bookRepository, times(1)).deleteBookById(1L);
+    verify(bookRepository, never()).existsById(anyLong());
+    verify(bookCache).evict(1L);
   }
 
   @Test
   void deleteBook_WithInvalidId_ShouldThrowException() {
     // Arrange
-    when(bookRepository.existsById(99L)).thenReturn(false);
+    when(bookRepository.deleteBookById(99L)).thenReturn(0);
 
     // Act & Assert
     assertThrows(BookNotFoundException.class, () -> bookService.deleteBook(99L));
-    verify(bookRepository, times(1)).existsById(99L);
-    verify(bookRepository, never()).deleteById(anyLong());
+    verify(bookRepository, times(1)).deleteBookById(99L);
+    verifyNoInteractions(bookCache);
+  }
+
+  @Test
+  void deleteBooks_WithIds_ShouldDeleteInOneStatementAndEvictEach() {
+    // Arrange
+    Set<Long> ids = Set.of(1L, 2L, 3L);
+    when(bookRepository.deleteBooksByIdIn(ids)).thenReturn(2);
+
+    // Act
+    int deleted = bookService.deleteBooks(ids);
+
+    // Assert
+    assertEquals(2, deleted);
+    verify(bookRepository, times(1)).deleteBooksByIdIn(ids);
+    verify(bookCache).evict(1L);
+    verify(bookCache).evict(2L);
+    verify(bookCache).evict(3L);
+  }
+
+  @Test
+  void deleteBooks_WithCriteria_ShouldDeleteInOneStatementAndClearTheCache() {
+    // Arrange
+    BookSearchCriteria criteria = new BookSearchCriteria(null, "Herbert", null, null, null);
+    when(bookRepository.deleteByFilters(criteria)).thenReturn(4);
+
+    // Act
+    int deleted = bookService.deleteBooks(criteria);
+
+    // Assert
+    assertEquals(4, deleted);
+    verify(bookCache).evictAll();
+  }
+
+  @Test
+  void getBookViews_ShouldReturnRequestedFieldsOnly() {
+    // Arrange
+    Set<BookField> fields = EnumSet.of(BookField.ID, BookField.TITLE);
+    BookSearchCriteria criteria = new BookSearchCriteria(null, "Author", null, null, null);
+    when(bookRepository.findPage(criteria, BookSort.ID, null, null, fields))
+        .thenReturn(List.of(projection(1L, "Test Title")));
+
+    // Act
+    List<BookView> result = bookService.getBookViews(criteria, fields);
+
+    // Assert
+    assertEquals(1, result.size());
+    assertEquals(Map.of("id", 1L, "title", "Test Title"), result.get(0).properties());
+  }
+
+  @Test
+  void getBooksPage_WithMoreRows_ShouldReturnNextCursor() {
+    // Arrange
+    when(bookRepository.findPage(
+            BookSearchCriteria.none(), BookSort.ID, null, 2, BookField.LIST_DEFAULT))
+        .thenReturn(Arrays.asList(projection(1L, "Test Title"), projection(2L, "Second Title")));
+
+    // Act
+    BookPage result =
+        bookService.getBooksPage(BookSearchCriteria.none(), null, null, 1, BookField.LIST_DEFAULT);
+
+    // Assert
+    assertEquals(1, result.items().size());
+    assertEquals(1L, result.items().get(0).properties().get("id"));
+    assertEquals(new BookCursor(BookSort.ID, 1L, null), BookCursor.decode(result.nextCursor()));
+  }
+
+  @Test
+  void getBooksPage_OnLastPage_ShouldReturnNoCursor() {
+    // Arrange
+    BookCursor after = new BookCursor(BookSort.TITLE, 1L, "Test Title");
+    when(bookRepository.findPage(
+            BookSearchCriteria.none(), BookSort.TITLE, after, 11, BookField.LIST_DEFAULT))
+        .thenReturn(Collections.singletonList(projection(2L, "Zebra")));
+
+    // Act - sort is taken from the cursor
+    BookPage result =
+        bookService.getBooksPage(
+            BookSearchCriteria.none(), null, after.encode(), 10, BookField.LIST_DEFAULT);
+
+    // Assert
+    assertEquals(1, result.items().size());
+    assertNull(result.nextCursor());
+  }
+
+  @Test
+  void getBooksPage_WithMismatchedSort_ShouldThrowException() {
+    // Arrange
+    String idCursor = new BookCursor(BookSort.ID, 1L, null).encode();
+
+    // Act & Assert
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            bookService.getBooksPage(
+                BookSearchCriteria.none(), BookSort.TITLE, idCursor, 10, BookField.LIST_DEFAULT));
+    verify(bookRepository, never()).findPage(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void getBooksPage_WithInvalidCursor_ShouldThrowException() {
+    // Act & Assert
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            bookService.getBooksPage(
+                BookSearchCriteria.none(), null, "not-a-cursor", 10, BookField.LIST_DEFAULT));
+  }
+
+  @Test
+  void exportBooks_ShouldPassEveryBookToConsumerAndCloseStream() {
+    // Arrange
+    boolean[] closed = {false};
+    when(bookRepository.streamAllBy())
+        .thenReturn(Stream.of(testBook).onClose(() -> closed[0] = true));
+    List<BookDTO> exported = new ArrayList<>();
+
+    // Act
+    long count = bookService.exportBooks(exported::add);
+
+    // Assert
+    assertEquals(1, count);
+    assertEquals(testBook.getTitle(), exported.get(0).getTitle());
+    assertTrue(closed[0]);
+    verify(entityManager, never()).clear();
+  }
+
+  @Test
+  void exportBooks_ShouldClearPersistenceContextPeriodically() {
+    // Arrange
+    int total = BookService.EXPORT_CLEAR_INTERVAL * 2 + 1;
+    when(bookRepository.streamAllBy())
+        .thenReturn(LongStream.rangeClosed(1, total).mapToObj(id -> testBook));
+
+    // Act
+    long count = bookService.exportBooks(book -> {});
+
+    // Assert
+    assertEquals(total, count);
+    verify(entityManager, times(2)).clear();
   }
 
   @Test
-  void searchBooks_ShouldReturnFilteredBooks() {
+  void searchText_ShouldReturnRankedHits() {
     // Arrange
-    when(bookRepository.findByFilters("Test", "Author", "Fiction", "Publisher", "1234"))
-        .thenReturn(Arrays.asList(testBook));
+    when(bookTextSearchRepository.search("hobbit dragon", true, 20, 0))
+        .thenReturn(List.of(new BookSearchHit(testBook, 0.75, "a <b>hobbit</b>")));
 
     // Act
-    List<BookDTO> result =
-        bookService.searchBooks("Test", "Author", "Fiction", "Publisher", "1234");
+    List<BookSearchHitDTO> result = bookService.searchText(" hobbit dragon ", true, 20, 0);
 
     // Assert
     assertEquals(1, result.size());
-    assertEquals(testBook.getId(), result.get(0).getId());
-    verify(bookRepository, times(1))
-        .findByFilters("Test", "Author", "Fiction", "Publisher", "1234");
+    assertEquals(testBook.getId(), result.get(0).book().getId());
+    assertEquals(0.75, result.get(0).rank());
+    assertEquals("a <b>hobbit</b>", result.get(0).snippet());
+  }
+
+  @Test
+  void searchText_WithBlankQuery_ShouldThrowException() {
+    // Act & Assert
+    assertThrows(IllegalArgumentException.class, () -> bookService.searchText("  ", false, 20, 0));
+    verifyNoInteractions(bookTextSearchRepository);
+  }
+
+  // Row as returned by a projection query selecting id and title
+  private static BookProjection projection(Long id, String title) {
+    Map<BookField, Object> values = new EnumMap<>(BookField.class);
+    values.put(BookField.ID, id);
+    values.put(BookField.TITLE, title);
+    return new BookProjection(values);
+  }
+
+  private static DataIntegrityViolationException uniqueViolation() {
+    return new DataIntegrityViolationException(
+        "could not execute statement",
+        new SQLException("duplicate key value violates unique constraint", "23505"));
   }
 }
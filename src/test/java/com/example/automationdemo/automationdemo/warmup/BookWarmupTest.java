@@ -0,0 +1,113 @@
+package com.example.automationdemo.automationdemo.warmup;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/** The warm-up against a running server with made-up books, and how it gates readiness. */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "books.warmup.enabled=true",
+      "books.warmup.source=sample",
+      "books.warmup.iterations=300",
+      "books.warmup.sample-size=10",
+      "books.warmup.measure-iterations=5"
+    })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class BookWarmupTest {
+
+  // The warm-up state at the moment the application said it was ready to take traffic
+  static final AtomicReference<WarmupReport.State> stateWhenReady = new AtomicReference<>();
+
+  @TestConfiguration
+  static class ReadinessRecorder {
+
+    @Bean
+    ApplicationListener<AvailabilityChangeEvent<ReadinessState>> readinessRecorder(
+        BookWarmup bookWarmup) {
+      return event -> {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+          stateWhenReady.set(bookWarmup.report().state());
+        }
+      };
+    }
+  }
+
+  @Autowired private BookWarmup bookWarmup;
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Test
+  void warmup_ShouldFinishBeforeTheApplicationIsReady() {
+    assertEquals(WarmupReport.State.COMPLETED, stateWhenReady.get());
+  }
+
+  @Test
+  void warmup_ShouldRunAllIterationsAndMeasureEachOperation() {
+    // Act
+    WarmupReport report = bookWarmup.report();
+
+    // Assert
+    assertEquals(WarmupReport.State.COMPLETED, report.state());
+    assertEquals("sample", report.source());
+    assertEquals(300, report.iterations());
+    assertEquals(0, report.errors());
+    assertEquals("iterations", report.stoppedBy());
+    assertTrue(report.duration().compareTo(Duration.ZERO) > 0);
+    assertEquals(
+        List.of("book-by-id", "book-by-isbn", "list", "search", "json"),
+        List.copyOf(report.latency().keySet()));
+    report.latency().values().forEach(latency -> assertEquals(5, latency.samples()));
+  }
+
+  @Test
+  void warmupRequests_ShouldBeLeftOutOfRequestMetrics() {
+    assertNull(meterRegistry.find("http.server.requests").tag("uri", "/api/books/{id}").timer());
+    assertNull(meterRegistry.find("books.sql.statements").tag("uri", "/api/books/{id}").summary());
+  }
+
+  @Test
+  void warmupEndpoint_ShouldReportTheWarmup() throws Exception {
+    mockMvc
+        .perform(get("/actuator/warmup"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.state").value("COMPLETED"))
+        .andExpect(jsonPath("$.iterations").value(300))
+        .andExpect(jsonPath("$.latency.search.samples").value(5));
+  }
+
+  @Test
+  void readinessProbe_ShouldBeUpOnceWarmedUp() throws Exception {
+    mockMvc.perform(get("/actuator/health/readiness")).andExpect(status().isOk());
+  }
+
+  @Test
+  void sampleBooks_ShouldCycleThroughAFewAuthors() {
+    List<BookDTO> books = BookWarmup.sampleBooks(10);
+
+    assertEquals(10, books.size());
+    assertEquals(books.get(0).getAuthor(), books.get(5).getAuthor());
+    assertNotEquals(books.get(0).getIsbn(), books.get(5).getIsbn());
+  }
+}
@@ -0,0 +1,170 @@
+package com.example.automationdemo.automationdemo.web;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.automationdemo.automationdemo.dto.BookDTO;
+import com.example.automationdemo.automationdemo.dto.BookView;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.DynamicMessage;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+public class BookProtobufHttpMessageConverterTest {
+
+  private static final Type BOOK_LIST =
+      new ParameterizedTypeReference<List<BookDTO>>() {}.getType();
+  private static final Type VIEW_LIST =
+      new ParameterizedTypeReference<List<BookView>>() {}.getType();
+
+  // book.proto, built at runtime so the converter is checked against protobuf's own parser
+  private static Descriptor bookMessage;
+  private static Descriptor bookListMessage;
+
+  private final BookProtobufHttpMessageConverter converter = new BookProtobufHttpMessageConverter();
+
+  @BeforeAll
+  static void buildSchema() throws Exception {
+    DescriptorProto.Builder book = DescriptorProto.newBuilder().setName("Book");
+    book.addField(field("id", 1, FieldDescriptorProto.Type.TYPE_INT64));
+    String[] strings = {
+      "title", "author", "genre", "publisher", "isbn", "publication_date", "description"
+    };
+    for (int i = 0; i < strings.length; i++) {
+      book.addField(field(strings[i], i + 2, FieldDescriptorProto.Type.TYPE_STRING));
+    }
+    DescriptorProto bookList =
+        DescriptorProto.newBuilder()
+            .setName("BookList")
+            .addField(
+                FieldDescriptorProto.newBuilder()
+                    .setName("books")
+                    .setNumber(1)
+                    .setLabel(FieldDescriptorProto.Label.LABEL_REPEATED)
+                    .setType(FieldDescriptorProto.Type.TYPE_MESSAGE)
+                    .setTypeName(".automationdemo.books.v1.Book"))
+            .build();
+    FileDescriptor file =
+        FileDescriptor.buildFrom(
+            FileDescriptorProto.newBuilder()
+                .setName("book.proto")
+                .setPackage("automationdemo.books.v1")
+                .setSyntax("proto3")
+                .addMessageType(book)
+                .addMessageType(bookList)
+                .build(),
+            new FileDescriptor[0]);
+    bookMessage = file.findMessageTypeByName("Book");
+    bookListMessage = file.findMessageTypeByName("BookList");
+  }
+
+  @Test
+  void write_Book_ShouldMatchTheSchema() throws Exception {
+    // Arrange
+    BookDTO book = book();
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+    // Act
+    converter.write(book, BookDTO.class, BookProtobufHttpMessageConverter.PROTOBUF, output);
+
+    // Assert
+    DynamicMessage message = DynamicMessage.parseFrom(bookMessage, output.getBodyAsBytes());
+    assertEquals(7L, message.getField(bookMessage.findFieldByName("id")));
+    assertEquals("Dune", message.getField(bookMessage.findFieldByName("title")));
+    assertEquals("1965-08-01", message.getField(bookMessage.findFieldByName("publication_date")));
+    assertFalse(message.hasField(bookMessage.findFieldByName("description")));
+    assertEquals(BookProtobufHttpMessageConverter.PROTOBUF, output.getHeaders().getContentType());
+  }
+
+  @Test
+  void write_BookViews_ShouldOnlyCarryTheRequestedFields() throws Exception {
+    // Arrange
+    Map<String, Object> properties = new LinkedHashMap<>();
+    properties.put("id", 7L);
+    properties.put("isbn", "9780441013593");
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+    // Act
+    converter.write(
+        List.of(new BookView(properties)),
+        VIEW_LIST,
+        BookProtobufHttpMessageConverter.PROTOBUF,
+        output);
+
+    // Assert
+    DynamicMessage list = DynamicMessage.parseFrom(bookListMessage, output.getBodyAsBytes());
+    DynamicMessage book =
+        (DynamicMessage) list.getRepeatedField(bookListMessage.findFieldByName("books"), 0);
+    assertEquals(2, book.getAllFields().size());
+    assertEquals("9780441013593", book.getField(bookMessage.findFieldByName("isbn")));
+  }
+
+  @Test
+  void read_BookList_ShouldRoundTrip() throws Exception {
+    // Arrange
+    BookDTO second = book();
+    second.setId(null);
+    second.setTitle("Dune Messiah");
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+    converter.write(
+        List.of(book(), second), BOOK_LIST, BookProtobufHttpMessageConverter.PROTOBUF, output);
+
+    // Act
+    @SuppressWarnings("unchecked")
+    List<BookDTO> books =
+        (List<BookDTO>)
+            converter.read(BOOK_LIST, null, new MockHttpInputMessage(output.getBodyAsBytes()));
+
+    // Assert
+    assertEquals(2, books.size());
+    assertEquals(7L, books.get(0).getId());
+    assertEquals(LocalDate.of(1965, 8, 1), books.get(0).getPublicationDate());
+    assertNull(books.get(1).getId());
+    assertEquals("Dune Messiah", books.get(1).getTitle());
+  }
+
+  @Test
+  void canWrite_ShouldOnlyAcceptBookPayloads() {
+    assertTrue(
+        converter.canWrite(BOOK_LIST, List.class, BookProtobufHttpMessageConverter.PROTOBUF));
+    assertTrue(
+        converter.canWrite(VIEW_LIST, List.class, BookProtobufHttpMessageConverter.PROTOBUF));
+    assertFalse(
+        converter.canWrite(String.class, String.class, BookProtobufHttpMessageConverter.PROTOBUF));
+    assertFalse(converter.canWrite(BookDTO.class, BookDTO.class, MediaType.APPLICATION_JSON));
+  }
+
+  private static FieldDescriptorProto field(
+      String name, int number, FieldDescriptorProto.Type type) {
+    // proto3 "optional" is a synthetic oneof; explicit presence is all that matters here
+    return FieldDescriptorProto.newBuilder()
+        .setName(name)
+        .setNumber(number)
+        .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL)
+        .setType(type)
+        .build();
+  }
+
+  private static BookDTO book() {
+    BookDTO book = new BookDTO();
+    book.setId(7L);
+    book.setTitle("Dune");
+    book.setAuthor("Frank Herbert");
+    book.setGenre("Science Fiction");
+    book.setIsbn("9780441013593");
+    book.setPublicationDate(LocalDate.of(1965, 8, 1));
+    return book;
+  }
+}
@@ -0,0 +1,146 @@
+package com.example.automationdemo.automationdemo.web;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.netflix.concurrency.limits.limit.FixedLimit;
+import com.netflix.concurrency.limits.limiter.SimpleLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ConcurrencyLimitFilterTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private SimpleLimiter<Void> readLimiter;
+  private ConcurrencyLimitFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    // Fixed limits of one make "the limit is reached" deterministic
+    readLimiter = SimpleLimiter.newBuilder().limit(FixedLimit.of(1)).build();
+    SimpleLimiter<Void> writeLimiter = SimpleLimiter.newBuilder().limit(FixedLimit.of(1)).build();
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    filter =
+        new ConcurrencyLimitFilter(
+            readLimiter, writeLimiter, meterRegistry, objectMapper, Duration.ofSeconds(2));
+  }
+
+  private MockHttpServletResponse perform(String method, FilterChain chain)
+      throws ServletException, IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/books/1");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, chain);
+    return response;
+  }
+
+  @Test
+  void underLimit_ShouldPassRequestThroughAndReleaseSlot() throws Exception {
+    // Act
+    MockHttpServletResponse response = perform("GET", (req, res) -> {});
+
+    // Assert
+    assertEquals(200, response.getStatus());
+    assertEquals(0, readLimiter.getInflight());
+  }
+
+  @Test
+  void overLimit_ShouldRejectWithServiceUnavailableAndRetryAfter() throws Exception {
+    // Arrange - a second read arrives while the first one still holds the only slot
+    AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+    FilterChain slowRead = (req, res) -> nested.set(perform("GET", (r, s) -> {}));
+
+    // Act
+    MockHttpServletResponse first = perform("GET", slowRead);
+
+    // Assert
+    assertEquals(200, first.getStatus());
+    assertEquals(503, nested.get().getStatus());
+    assertEquals("2", nested.get().getHeader("Retry-After"));
+    assertTrue(nested.get().getContentAsString().contains("Too many concurrent requests"));
+    assertEquals(
+        1.0, meterRegistry.get("books.concurrency.rejected").tag("type", "read").counter().count());
+  }
+
+  @Test
+  void readsAndWrites_ShouldHaveSeparateLimits() throws Exception {
+    // Arrange - a write arrives while a read holds the only read slot
+    AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+    FilterChain slowRead = (req, res) -> nested.set(perform("PUT", (r, s) -> {}));
+
+    // Act
+    perform("GET", slowRead);
+
+    // Assert
+    assertEquals(200, nested.get().getStatus());
+  }
+
+  @Test
+  void failingRequest_ShouldReleaseSlot() {
+    // Act
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            perform(
+                "GET",
+                (req, res) -> {
+                  throw new IllegalStateException("boom");
+                }));
+
+    // Assert
+    assertEquals(0, readLimiter.getInflight());
+  }
+
+  @Test
+  void timedOutAsyncRequest_ShouldReleaseSlotOnce() throws Exception {
+    // Arrange
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/export");
+    request.setAsyncSupported(true);
+    filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+    MockAsyncContext async = (MockAsyncContext) request.getAsyncContext();
+    assertEquals(1, readLimiter.getInflight());
+
+    // Act - the container follows a timeout with onComplete
+    for (AsyncListener listener : async.getListeners()) {
+      listener.onTimeout(new AsyncEvent(async));
+    }
+    async.complete();
+
+    // Assert
+    assertEquals(0, readLimiter.getInflight());
+  }
+
+  @Test
+  void metrics_ShouldReportLimitAndInflight() throws Exception {
+    // Arrange
+    AtomicReference<Double> inflightDuringRequest = new AtomicReference<>();
+    FilterChain chain =
+        (req, res) ->
+            inflightDuringRequest.set(
+                meterRegistry
+                    .get("books.concurrency.inflight")
+                    .tag("type", "read")
+                    .gauge()
+                    .value());
+
+    // Act
+    perform("GET", chain);
+
+    // Assert
+    assertEquals(1.0, inflightDuringRequest.get());
+    assertEquals(
+        1.0, meterRegistry.get("books.concurrency.limit").tag("type", "write").gauge().value());
+  }
+}
@@ -0,0 +1,70 @@
+package com.example.automationdemo.automationdemo.web;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.automationdemo.automationdemo.jdbc.ConsistencyToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ConsistencyTokenFilterTest {
+
+  private final ConsistencyTokenFilter filter =
+      new ConsistencyTokenFilter(new ObjectMapper().registerModule(new JavaTimeModule()));
+
+  private MockHttpServletResponse perform(String token, FilterChain chain)
+      throws ServletException, IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1");
+    if (token != null) {
+      request.addHeader(ConsistencyTokenFilter.HEADER, token);
+    }
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, chain);
+    return response;
+  }
+
+  @Test
+  void token_ShouldBeRequiredWhileTheRequestRuns() throws Exception {
+    // Arrange
+    AtomicReference<Long> required = new AtomicReference<>();
+
+    // Act
+    MockHttpServletResponse response =
+        perform("16/B374D848", (req, res) -> required.set(ConsistencyToken.required()));
+
+    // Assert
+    assertEquals(200, response.getStatus());
+    assertEquals(ConsistencyToken.parse("16/B374D848"), required.get());
+    assertNull(ConsistencyToken.required());
+  }
+
+  @Test
+  void noToken_ShouldRequireNothing() throws Exception {
+    AtomicReference<Long> required = new AtomicReference<>(0L);
+
+    perform(null, (req, res) -> required.set(ConsistencyToken.required()));
+
+    assertNull(required.get());
+  }
+
+  @Test
+  void malformedToken_ShouldBeRejectedWithBadRequest() throws Exception {
+    // Arrange
+    AtomicBoolean called = new AtomicBoolean();
+
+    // Act
+    MockHttpServletResponse response = perform("not-an-lsn", (req, res) -> called.set(true));
+
+    // Assert
+    assertEquals(400, response.getStatus());
+    assertTrue(response.getContentAsString().contains("Invalid consistency token"));
+    assertFalse(called.get());
+  }
+}
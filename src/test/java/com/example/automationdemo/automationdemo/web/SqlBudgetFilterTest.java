@@ -0,0 +1,176 @@
+package com.example.automationdemo.automationdemo.web;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.automationdemo.automationdemo.exception.SqlBudgetExceededException;
+import com.example.automationdemo.automationdemo.jdbc.SlowQueryLog;
+import com.example.automationdemo.automationdemo.jdbc.SqlStatementStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+public class SqlBudgetFilterTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final SlowQueryLog slowQueryLog =
+      new SlowQueryLog(
+          new SqlStatementStats(100),
+          Duration.ofMinutes(1),
+          Set.of(),
+          0,
+          Duration.ofSeconds(1),
+          meterRegistry);
+  private final DataSource dataSource;
+
+  SqlBudgetFilterTest() {
+    JdbcDataSource h2 = new JdbcDataSource();
+    h2.setURL("jdbc:h2:mem:");
+    dataSource = slowQueryLog.wrap("test", h2);
+  }
+
+  @AfterEach
+  void close() {
+    slowQueryLog.close();
+  }
+
+  private SqlBudgetFilter filter(SqlBudgetFilter.Action action) {
+    return filter(action, true);
+  }
+
+  private SqlBudgetFilter filter(SqlBudgetFilter.Action action, boolean serverTiming) {
+    return new SqlBudgetFilter(
+        Map.of("GET /api/books/{id}", 2),
+        10,
+        action,
+        serverTiming,
+        meterRegistry,
+        new ObjectMapper().registerModule(new JavaTimeModule()));
+  }
+
+  // A handler that runs this many statements and writes a body
+  private FilterChain handler(int statements) {
+    return (req, res) -> {
+      req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/books/{id}");
+      try (Connection connection = dataSource.getConnection();
+          Statement statement = connection.createStatement()) {
+        for (int i = 0; i < statements; i++) {
+          statement.execute("select 1");
+        }
+      } catch (SQLException ex) {
+        throw new IllegalStateException(ex);
+      }
+      res.getWriter().write("{\"id\":1}");
+    };
+  }
+
+  private MockHttpServletResponse perform(SqlBudgetFilter filter, int statements) throws Exception {
+    return perform(filter, handler(statements));
+  }
+
+  private MockHttpServletResponse perform(SqlBudgetFilter filter, FilterChain chain)
+      throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/books/1"), response, chain);
+    return response;
+  }
+
+  @Test
+  void statements_ShouldBeReportedInServerTiming() throws Exception {
+    // Act
+    MockHttpServletResponse response = perform(filter(SqlBudgetFilter.Action.FAIL), 2);
+
+    // Assert
+    assertEquals(200, response.getStatus());
+    assertEquals("{\"id\":1}", response.getContentAsString());
+    String timing = response.getHeader(SqlBudgetFilter.SERVER_TIMING);
+    assertTrue(timing.matches("db;dur=[0-9.]+;desc=\"2 statements\", mapping;dur=[0-9.]+"), timing);
+    assertEquals(
+        2.0,
+        meterRegistry
+            .get("books.sql.statements")
+            .tags("method", "GET", "uri", "/api/books/{id}")
+            .summary()
+            .totalAmount());
+    assertTrue(meterRegistry.find("books.sql.budget.exceeded").counters().isEmpty());
+  }
+
+  @Test
+  void serverTiming_WhenDisabled_ShouldNotBeSent() throws Exception {
+    MockHttpServletResponse response = perform(filter(SqlBudgetFilter.Action.FAIL, false), 2);
+
+    assertEquals(200, response.getStatus());
+    assertNull(response.getHeader(SqlBudgetFilter.SERVER_TIMING));
+  }
+
+  @Test
+  void overBudget_BeforeTheBody_ShouldFailWithoutBuffering() throws Exception {
+    // Arrange - the handler is over budget by the time Spring MVC is about to write the body
+    FilterChain chain =
+        (req, res) -> {
+          handler(3).doFilter(req, new MockHttpServletResponse());
+          res.setContentType("application/json");
+          ((SqlBudgetFilter.RequestBudget) req.getAttribute(SqlBudgetFilter.REQUEST_BUDGET))
+              .beforeBody((HttpServletResponse) res);
+        };
+
+    // Act & Assert
+    SqlBudgetExceededException ex =
+        assertThrows(
+            SqlBudgetExceededException.class,
+            () -> perform(filter(SqlBudgetFilter.Action.FAIL), chain));
+    assertEquals("GET /api/books/{id} ran 3 SQL statements, over its budget of 2", ex.getMessage());
+    assertEquals(1, meterRegistry.get("books.sql.budget.exceeded").counter().count());
+  }
+
+  @Test
+  void overBudget_WhenLogging_ShouldOnlyCount() throws Exception {
+    MockHttpServletResponse response = perform(filter(SqlBudgetFilter.Action.LOG), 3);
+
+    assertEquals(200, response.getStatus());
+    assertEquals("{\"id\":1}", response.getContentAsString());
+    assertEquals(1, meterRegistry.get("books.sql.budget.exceeded").counter().count());
+  }
+
+  @Test
+  void overBudget_WhenFailing_ShouldReplaceTheResponse() throws Exception {
+    MockHttpServletResponse response = perform(filter(SqlBudgetFilter.Action.FAIL), 3);
+
+    assertEquals(500, response.getStatus());
+    assertTrue(
+        response
+            .getContentAsString()
+            .contains("GET /api/books/{id} ran 3 SQL statements, over its budget of 2"));
+    assertNotNull(response.getHeader(SqlBudgetFilter.SERVER_TIMING));
+  }
+
+  @Test
+  void budgets_ShouldBeParsedFromMethodPathEntries() {
+    assertEquals(
+        Map.of("GET /api/books/{id}", 1, "DELETE /api/books/{id}", 1),
+        SqlBudgetFilter.parseBudgets(
+            List.of("GET /api/books/{id}=1", " DELETE /api/books/{id} = 1", "")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> SqlBudgetFilter.parseBudgets(List.of("/api/books/{id}=1")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> SqlBudgetFilter.parseBudgets(List.of("GET /api/books/{id}=many")));
+    assertThrows(IllegalArgumentException.class, () -> SqlBudgetFilter.Action.of("ignore"));
+  }
+}
@@ -47,6 +47,17 @@ resource "google_cloud_run_service" "spring_boot_api" {
           value = var.environment
         }
         
+        # Only route traffic once the JIT warm-up is over (see BookWarmup); the default TCP probe
+        # passes as soon as the port is open
+        startup_probe {
+          http_get {
+            path = "/actuator/health/readiness"
+          }
+          period_seconds    = 2
+          timeout_seconds   = 1
+          failure_threshold = 30
+        }
+        
         # Environment-specific env variables
         dynamic "env" {
           for_each = var.env_variables